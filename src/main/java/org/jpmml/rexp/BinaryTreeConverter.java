@@ -74,6 +74,8 @@ public class BinaryTreeConverter extends TreeModelConverter<S4Object> {
 		TreeModel treeModel = encodeTreeModel(tree, schema)
 			.setOutput(TreeModelUtil.createNodeOutput(schema));
 
+		reportTreeModel(treeModel);
+
 		return treeModel;
 	}
 
@@ -165,7 +167,7 @@ public class BinaryTreeConverter extends TreeModelConverter<S4Object> {
 		TreeModel treeModel = new TreeModel(this.miningFunction, ModelUtil.createMiningSchema(schema), root)
 			.setSplitCharacteristic(TreeModel.SplitCharacteristic.BINARY_SPLIT);
 
-		return treeModel;
+		return pruneTreeModel(treeModel, schema);
 	}
 
 	private void encodeNode(Node node, RGenericVector tree, Schema schema){
@@ -209,8 +211,11 @@ public class BinaryTreeConverter extends TreeModelConverter<S4Object> {
 
 			List<String> values = categoricalFeature.getValues();
 
-			leftPredicate = createSimpleSetPredicate(categoricalFeature, selectValues(values, (List<Integer>)splitpoint.getValues(), true));
-			rightPredicate = createSimpleSetPredicate(categoricalFeature, selectValues(values, (List<Integer>)splitpoint.getValues(), false));
+			List<String> leftValues = selectValues(values, (List<Integer>)splitpoint.getValues(), true);
+			List<String> rightValues = selectValues(values, (List<Integer>)splitpoint.getValues(), false);
+
+			leftPredicate = createSimpleSetPredicate(categoricalFeature, leftValues, rightValues);
+			rightPredicate = createSimpleSetPredicate(categoricalFeature, rightValues, leftValues);
 		} else
 
 		{
@@ -0,0 +1,57 @@
+/*
+ * Copyright (c) 2017 Villu Ruusmann
+ *
+ * This file is part of JPMML-R
+ *
+ * JPMML-R is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JPMML-R is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with JPMML-R.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.jpmml.rexp;
+
+import java.util.Map;
+
+/**
+ * <p>
+ * Registers the converters of this library.
+ * </p>
+ *
+ * <p>
+ * Converter classes are referenced by name, so that the classes of unused converters (and their third-party dependencies) are never loaded.
+ * </p>
+ */
+public class BuiltinConverterProvider implements ConverterProvider {
+
+	@Override
+	public void registerConverters(Map<String, ConverterSupplier> converters){
+		register(converters, "BinaryTree", "org.jpmml.rexp.BinaryTreeConverter");
+		register(converters, "earth", "org.jpmml.rexp.EarthConverter");
+		register(converters, "gbm", "org.jpmml.rexp.GBMConverter");
+		register(converters, "iForest", "org.jpmml.rexp.IForestConverter");
+		register(converters, "glm", "org.jpmml.rexp.GLMConverter");
+		register(converters, "kmeans", "org.jpmml.rexp.KMeansConverter");
+		register(converters, "lm", "org.jpmml.rexp.LMConverter");
+		register(converters, "lrm", "org.jpmml.rexp.LRMConverter");
+		register(converters, "mvr", "org.jpmml.rexp.MVRConverter");
+		register(converters, "ols", "org.jpmml.rexp.OLSConverter");
+		register(converters, "randomForest", "org.jpmml.rexp.RandomForestConverter");
+		register(converters, "ranger", "org.jpmml.rexp.RangerConverter");
+		register(converters, "scorecard", "org.jpmml.rexp.ScorecardConverter");
+		register(converters, "train", "org.jpmml.rexp.TrainConverter");
+		register(converters, "xgb.Booster", "org.jpmml.rexp.XGBoostConverter");
+	}
+
+	static
+	private void register(Map<String, ConverterSupplier> converters, String name, String className){
+		converters.put(name, new ClassConverterSupplier(className));
+	}
+}
@@ -0,0 +1,109 @@
+/*
+ * Copyright (c) 2017 Villu Ruusmann
+ *
+ * This file is part of JPMML-R
+ *
+ * JPMML-R is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JPMML-R is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with JPMML-R.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.jpmml.rexp;
+
+import java.lang.reflect.Constructor;
+
+/**
+ * <p>
+ * A converter factory that instantiates the named converter class using its single-argument constructor.
+ * </p>
+ *
+ * <p>
+ * The converter class is loaded when the first converter object is requested.
+ * The constructor is looked up once, and then reused.
+ * </p>
+ */
+public class ClassConverterSupplier implements ConverterSupplier {
+
+	private String className = null;
+
+	private ClassLoader classLoader = null;
+
+	private volatile Constructor<?> constructor = null;
+
+
+	public ClassConverterSupplier(String className){
+		this(className, ClassConverterSupplier.class.getClassLoader());
+	}
+
+	public ClassConverterSupplier(String className, ClassLoader classLoader){
+
+		if(className == null){
+			throw new NullPointerException();
+		}
+
+		this.className = className;
+		this.classLoader = classLoader;
+	}
+
+	@Override
+	public <R extends RExp> Converter<R> newConverter(R rexp){
+		Constructor<?> constructor = ensureConstructor();
+
+		Class<?>[] parameterTypes = constructor.getParameterTypes();
+		if(!parameterTypes[0].isInstance(rexp)){
+			throw new IllegalArgumentException("Converter class " + this.className + " does not support R object type " + (rexp.getClass()).getName());
+		}
+
+		try {
+			return (Converter<R>)constructor.newInstance(rexp);
+		} catch(Exception e){
+			throw new IllegalArgumentException(e);
+		}
+	}
+
+	public String getClassName(){
+		return this.className;
+	}
+
+	private Constructor<?> ensureConstructor(){
+
+		if(this.constructor == null){
+			this.constructor = findConstructor();
+		}
+
+		return this.constructor;
+	}
+
+	private Constructor<?> findConstructor(){
+		Class<?> clazz;
+
+		try {
+			clazz = Class.forName(this.className, false, this.classLoader);
+		} catch(ClassNotFoundException cnfe){
+			throw new IllegalArgumentException("Converter class " + this.className + " not found", cnfe);
+		}
+
+		if(!(Converter.class).isAssignableFrom(clazz)){
+			throw new IllegalArgumentException("Class " + clazz.getName() + " is not a subclass of " + Converter.class.getName());
+		}
+
+		Constructor<?>[] constructors = clazz.getConstructors();
+		for(Constructor<?> constructor : constructors){
+			Class<?>[] parameterTypes = constructor.getParameterTypes();
+
+			if(parameterTypes.length == 1 && (RExp.class).isAssignableFrom(parameterTypes[0])){
+				return constructor;
+			}
+		}
+
+		throw new IllegalArgumentException("Converter class " + clazz.getName() + " does not declare a public single-argument constructor");
+	}
+}
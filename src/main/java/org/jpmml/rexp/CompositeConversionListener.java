@@ -0,0 +1,114 @@
+/*
+ * Copyright (c) 2017 Villu Ruusmann
+ *
+ * This file is part of JPMML-R
+ *
+ * JPMML-R is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JPMML-R is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with JPMML-R.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.jpmml.rexp;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.dmg.pmml.Predicate;
+
+public class CompositeConversionListener implements ConversionListener {
+
+	private List<ConversionListener> listeners = new ArrayList<>();
+
+
+	public CompositeConversionListener(){
+	}
+
+	public CompositeConversionListener(List<? extends ConversionListener> listeners){
+		this.listeners.addAll(listeners);
+	}
+
+	@Override
+	public void phaseStarted(ConversionPhase phase){
+
+		for(ConversionListener listener : this.listeners){
+			listener.phaseStarted(phase);
+		}
+	}
+
+	@Override
+	public void phaseFinished(ConversionPhase phase){
+
+		for(ConversionListener listener : this.listeners){
+			listener.phaseFinished(phase);
+		}
+	}
+
+	@Override
+	public void rexpRead(int type){
+
+		for(ConversionListener listener : this.listeners){
+			listener.rexpRead(type);
+		}
+	}
+
+	@Override
+	public void bytesRead(long count){
+
+		for(ConversionListener listener : this.listeners){
+			listener.bytesRead(count);
+		}
+	}
+
+	@Override
+	public void featuresEncoded(int count){
+
+		for(ConversionListener listener : this.listeners){
+			listener.featuresEncoded(count);
+		}
+	}
+
+	@Override
+	public void treeEncoded(int nodes){
+
+		for(ConversionListener listener : this.listeners){
+			listener.treeEncoded(nodes);
+		}
+	}
+
+	@Override
+	public void predicateInterned(Predicate predicate){
+
+		for(ConversionListener listener : this.listeners){
+			listener.predicateInterned(predicate);
+		}
+	}
+
+	@Override
+	public void fieldsRenamed(int count){
+
+		for(ConversionListener listener : this.listeners){
+			listener.fieldsRenamed(count);
+		}
+	}
+
+	public void addListener(ConversionListener listener){
+
+		if(listener == null){
+			throw new NullPointerException();
+		}
+
+		this.listeners.add(listener);
+	}
+
+	public List<ConversionListener> getListeners(){
+		return this.listeners;
+	}
+}
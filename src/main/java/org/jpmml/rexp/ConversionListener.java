@@ -0,0 +1,70 @@
+/*
+ * Copyright (c) 2017 Villu Ruusmann
+ *
+ * This file is part of JPMML-R
+ *
+ * JPMML-R is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JPMML-R is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with JPMML-R.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.jpmml.rexp;
+
+import org.dmg.pmml.Predicate;
+
+/**
+ * <p>
+ * A callback interface for monitoring the conversion workflow.
+ * </p>
+ *
+ * @see RExpParser#setListener(ConversionListener)
+ * @see Converter#setListener(ConversionListener)
+ */
+public interface ConversionListener {
+
+	void phaseStarted(ConversionPhase phase);
+
+	void phaseFinished(ConversionPhase phase);
+
+	/**
+	 * @param type The SEXP type.
+	 *
+	 * @see SExpTypes
+	 * @see SerializationTypes
+	 */
+	void rexpRead(int type);
+
+	void bytesRead(long count);
+
+	/**
+	 * @param count The number of features in the schema.
+	 */
+	void featuresEncoded(int count);
+
+	/**
+	 * <p>
+	 * Tree ensemble converters report member trees one by one during the {@link ConversionPhase#ENCODE_MODEL} phase.
+	 * </p>
+	 *
+	 * @param nodes The number of nodes in the tree.
+	 */
+	void treeEncoded(int nodes);
+
+	/**
+	 * @param predicate The interned predicate, which may be shared with earlier requests.
+	 */
+	void predicateInterned(Predicate predicate);
+
+	/**
+	 * @param count The number of renamed fields.
+	 */
+	void fieldsRenamed(int count);
+}
@@ -0,0 +1,302 @@
+/*
+ * Copyright (c) 2017 Villu Ruusmann
+ *
+ * This file is part of JPMML-R
+ *
+ * JPMML-R is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JPMML-R is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with JPMML-R.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.jpmml.rexp;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+import org.dmg.pmml.Predicate;
+
+/**
+ * <p>
+ * A conversion listener that collects per-phase timings and counters.
+ * </p>
+ *
+ * <p>
+ * Allocated bytes are measured for the current thread,
+ * and are reported only if the JVM supports thread allocated memory measurement.
+ * </p>
+ */
+public class ConversionMetrics implements ConversionListener {
+
+	private String converter = null;
+
+	private Map<ConversionPhase, long[]> activePhases = new EnumMap<>(ConversionPhase.class);
+
+	private Map<ConversionPhase, Long> phaseTimes = new EnumMap<>(ConversionPhase.class);
+
+	private Map<ConversionPhase, Long> phaseAllocatedBytes = new EnumMap<>(ConversionPhase.class);
+
+	private long bytesRead = 0L;
+
+	private Map<Integer, Long> rexpCounts = new TreeMap<>();
+
+	private long features = 0L;
+
+	private long trees = 0L;
+
+	private long nodes = 0L;
+
+	private long predicates = 0L;
+
+	private Set<Predicate> distinctPredicates = Collections.newSetFromMap(new IdentityHashMap<Predicate, Boolean>());
+
+	private long renamedFields = 0L;
+
+
+	@Override
+	public void phaseStarted(ConversionPhase phase){
+		long[] start = {System.nanoTime(), getAllocatedBytes()};
+
+		this.activePhases.put(phase, start);
+	}
+
+	@Override
+	public void phaseFinished(ConversionPhase phase){
+		long[] start = this.activePhases.remove(phase);
+
+		if(start == null){
+			throw new IllegalStateException(String.valueOf(phase));
+		}
+
+		increment(this.phaseTimes, phase, System.nanoTime() - start[0]);
+
+		long allocatedBytes = getAllocatedBytes();
+		if(allocatedBytes > -1L && start[1] > -1L){
+			increment(this.phaseAllocatedBytes, phase, allocatedBytes - start[1]);
+		}
+	}
+
+	@Override
+	public void rexpRead(int type){
+		increment(this.rexpCounts, type, 1L);
+	}
+
+	@Override
+	public void bytesRead(long count){
+		this.bytesRead += count;
+	}
+
+	@Override
+	public void featuresEncoded(int count){
+		this.features += count;
+	}
+
+	@Override
+	public void treeEncoded(int nodes){
+		this.trees++;
+		this.nodes += nodes;
+	}
+
+	@Override
+	public void predicateInterned(Predicate predicate){
+		this.predicates++;
+
+		this.distinctPredicates.add(predicate);
+	}
+
+	@Override
+	public void fieldsRenamed(int count){
+		this.renamedFields += count;
+	}
+
+	public void writeJson(Writer writer) throws IOException {
+		writer.write("{\n");
+
+		if(this.converter != null){
+			writer.write("\t\"converter\" : " + formatString(this.converter) + ",\n");
+		}
+
+		writer.write("\t\"phases\" : {");
+
+		Collection<Map.Entry<ConversionPhase, Long>> phaseEntries = this.phaseTimes.entrySet();
+
+		int count = 0;
+
+		for(Map.Entry<ConversionPhase, Long> phaseEntry : phaseEntries){
+			ConversionPhase phase = phaseEntry.getKey();
+
+			writer.write((count > 0 ? "," : "") + "\n");
+			writer.write("\t\t" + formatString(phase.value()) + " : {\"nanoTime\" : " + phaseEntry.getValue());
+
+			Long allocatedBytes = this.phaseAllocatedBytes.get(phase);
+			if(allocatedBytes != null){
+				writer.write(", \"allocatedBytes\" : " + allocatedBytes);
+			}
+
+			writer.write("}");
+
+			count++;
+		}
+
+		writer.write((count > 0 ? "\n\t" : "") + "},\n");
+
+		writer.write("\t\"bytesRead\" : " + this.bytesRead + ",\n");
+
+		writer.write("\t\"rexps\" : {");
+
+		Collection<Map.Entry<Integer, Long>> rexpEntries = this.rexpCounts.entrySet();
+
+		count = 0;
+
+		for(Map.Entry<Integer, Long> rexpEntry : rexpEntries){
+			writer.write((count > 0 ? "," : "") + "\n");
+			writer.write("\t\t" + formatString(SerializationUtil.formatType(rexpEntry.getKey())) + " : " + rexpEntry.getValue());
+
+			count++;
+		}
+
+		writer.write((count > 0 ? "\n\t" : "") + "},\n");
+
+		writer.write("\t\"features\" : " + this.features + ",\n");
+		writer.write("\t\"trees\" : " + this.trees + ",\n");
+		writer.write("\t\"nodes\" : " + this.nodes + ",\n");
+		writer.write("\t\"predicates\" : " + this.predicates + ",\n");
+		writer.write("\t\"distinctPredicates\" : " + this.distinctPredicates.size() + ",\n");
+		writer.write("\t\"renamedFields\" : " + this.renamedFields + "\n");
+
+		writer.write("}\n");
+
+		writer.flush();
+	}
+
+	public String getConverter(){
+		return this.converter;
+	}
+
+	public void setConverter(String converter){
+		this.converter = converter;
+	}
+
+	public Long getPhaseTime(ConversionPhase phase){
+		return this.phaseTimes.get(phase);
+	}
+
+	public Long getPhaseAllocatedBytes(ConversionPhase phase){
+		return this.phaseAllocatedBytes.get(phase);
+	}
+
+	public long getBytesRead(){
+		return this.bytesRead;
+	}
+
+	public long getRExpCount(int type){
+		Long count = this.rexpCounts.get(type);
+
+		return (count != null ? count : 0L);
+	}
+
+	public long getFeatures(){
+		return this.features;
+	}
+
+	public long getTrees(){
+		return this.trees;
+	}
+
+	public long getNodes(){
+		return this.nodes;
+	}
+
+	public long getPredicates(){
+		return this.predicates;
+	}
+
+	public long getDistinctPredicates(){
+		return this.distinctPredicates.size();
+	}
+
+	public long getRenamedFields(){
+		return this.renamedFields;
+	}
+
+	static
+	private <K> void increment(Map<K, Long> map, K key, long delta){
+		Long value = map.get(key);
+
+		map.put(key, (value != null ? value + delta : delta));
+	}
+
+	static
+	private String formatString(String string){
+		StringBuilder sb = new StringBuilder();
+
+		sb.append('\"');
+
+		for(int i = 0; i < string.length(); i++){
+			char c = string.charAt(i);
+
+			switch(c){
+				case '\"':
+				case '\\':
+					sb.append('\\').append(c);
+					break;
+				default:
+					if(c < 0x20){
+						sb.append(String.format("\\u%04x", (int)c));
+					} else
+
+					{
+						sb.append(c);
+					}
+					break;
+			}
+		}
+
+		sb.append('\"');
+
+		return sb.toString();
+	}
+
+	static
+	private long getAllocatedBytes(){
+
+		if(ConversionMetrics.threadMXBean != null){
+			return ConversionMetrics.threadMXBean.getThreadAllocatedBytes(Thread.currentThread().getId());
+		}
+
+		return -1L;
+	}
+
+	static
+	private com.sun.management.ThreadMXBean createThreadMXBean(){
+		ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+
+		if(threadMXBean instanceof com.sun.management.ThreadMXBean){
+			com.sun.management.ThreadMXBean sunThreadMXBean = (com.sun.management.ThreadMXBean)threadMXBean;
+
+			if(sunThreadMXBean.isThreadAllocatedMemorySupported() && sunThreadMXBean.isThreadAllocatedMemoryEnabled()){
+				return sunThreadMXBean;
+			}
+		}
+
+		return null;
+	}
+
+	private static final com.sun.management.ThreadMXBean threadMXBean = createThreadMXBean();
+}
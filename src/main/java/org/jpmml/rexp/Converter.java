@@ -25,6 +25,14 @@ public class Converter<R extends RExp> {
 
 	private R object = null;
 
+	private ConversionListener listener = null;
+
+	private ConverterOptions options = new ConverterOptions();
+
+	private long memoryBudget = -1L;
+
+	private int ntreeLimit = -1;
+
 
 	public Converter(R object){
 		setObject(object);
@@ -40,4 +48,79 @@ public class Converter<R extends RExp> {
 	private void setObject(R object){
 		this.object = object;
 	}
+
+	/**
+	 * <p>
+	 * Applies and removes the options that this converter supports.
+	 * </p>
+	 *
+	 * <p>
+	 * Subclasses that support additional options should apply and remove them first,
+	 * and then pass the remaining options on to the superclass method.
+	 * </p>
+	 *
+	 * @throws IllegalArgumentException If an option value is not valid.
+	 */
+	public void applyOptions(ConverterOptions options){
+		Long memoryBudget = options.removeBytes(ConverterOptions.MEMORY_BUDGET);
+		if(memoryBudget != null){
+			setMemoryBudget(memoryBudget);
+		}
+	}
+
+	public ConversionListener getListener(){
+		return this.listener;
+	}
+
+	public void setListener(ConversionListener listener){
+		this.listener = listener;
+	}
+
+	public ConverterOptions getOptions(){
+		return this.options;
+	}
+
+	/**
+	 * @throws IllegalArgumentException If some option is not supported by this converter, or if an option value is not valid.
+	 *
+	 * @see #applyOptions(ConverterOptions)
+	 */
+	public void setOptions(ConverterOptions options){
+		ConverterOptions unsupportedOptions = new ConverterOptions(options);
+
+		applyOptions(unsupportedOptions);
+
+		if(!unsupportedOptions.isEmpty()){
+			throw new IllegalArgumentException("Converter " + (getClass()).getName() + " does not support options " + unsupportedOptions.getNames());
+		}
+
+		this.options = new ConverterOptions(options);
+	}
+
+	/**
+	 * @return The memory budget in bytes, or <code>-1</code> if there is no memory budget.
+	 */
+	public long getMemoryBudget(){
+		return this.memoryBudget;
+	}
+
+	public void setMemoryBudget(long memoryBudget){
+		this.memoryBudget = memoryBudget;
+	}
+
+	/**
+	 * @return The number of leading trees (boosting iterations for multi-class boosting models) to convert, or <code>-1</code> if all trees should be converted.
+	 */
+	public int getNtreeLimit(){
+		return this.ntreeLimit;
+	}
+
+	public void setNtreeLimit(int ntreeLimit){
+
+		if(ntreeLimit < 1 && ntreeLimit != -1){
+			throw new IllegalArgumentException("The tree limit must be a positive integer, got " + ntreeLimit);
+		}
+
+		this.ntreeLimit = ntreeLimit;
+	}
 }
\ No newline at end of file
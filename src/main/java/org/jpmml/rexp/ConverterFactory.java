@@ -18,13 +18,33 @@
  */
 package org.jpmml.rexp;
 
-import java.lang.reflect.Constructor;
+import java.util.Collections;
 import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.ServiceLoader;
 
+/**
+ * <p>
+ * A registry of converters by R class name.
+ * </p>
+ *
+ * <p>
+ * The registry is populated with built-in converters, and converters that are contributed by {@link ConverterProvider} services.
+ * Service discovery takes place once, when the first factory object is created.
+ * Converter classes are loaded on demand.
+ * </p>
+ */
 public class ConverterFactory {
 
+	private Map<String, ConverterSupplier> converters = null;
+
+
 	protected ConverterFactory(){
+		this(getRegisteredConverters());
+	}
+
+	protected ConverterFactory(Map<String, ConverterSupplier> converters){
+		this.converters = new LinkedHashMap<>(converters);
 	}
 
 	public <R extends RExp> Converter<R> newConverter(R rexp){
@@ -33,24 +53,57 @@ public class ConverterFactory {
 		for(int i = 0; i < names.size(); i++){
 			String name = names.getValue(i);
 
-			Class<? extends Converter> clazz = ConverterFactory.converters.get(name);
-			if(clazz != null){
-				return newConverter(clazz, rexp);
+			ConverterSupplier supplier = this.converters.get(name);
+			if(supplier != null){
+				return supplier.newConverter(rexp);
 			}
 		}
 
-		throw new IllegalArgumentException("No built-in converter for class " + names.getValues());
+		throw new IllegalArgumentException("No converter for class " + names.getValues());
+	}
+
+	/**
+	 * @throws IllegalArgumentException If some option is not supported by the converter.
+	 */
+	public <R extends RExp> Converter<R> newConverter(R rexp, ConverterOptions options){
+		Converter<R> converter = newConverter(rexp);
+		converter.setOptions(options);
+
+		return converter;
 	}
 
 	public <R extends RExp> Converter<R> newConverter(Class<? extends Converter> clazz, R rexp){
+		ConverterSupplier supplier = new ClassConverterSupplier(clazz.getName(), clazz.getClassLoader());
+
+		return supplier.newConverter(rexp);
+	}
 
-		try {
-			Constructor<?> constructor = clazz.getDeclaredConstructor(rexp.getClass());
+	/**
+	 * @throws IllegalArgumentException If some option is not supported by the converter.
+	 */
+	public <R extends RExp> Converter<R> newConverter(Class<? extends Converter> clazz, R rexp, ConverterOptions options){
+		Converter<R> converter = newConverter(clazz, rexp);
+		converter.setOptions(options);
 
-			return (Converter<R>)constructor.newInstance(rexp);
-		} catch(Exception e){
-			throw new IllegalArgumentException(e);
+		return converter;
+	}
+
+	/**
+	 * <p>
+	 * Registers a converter with this factory object.
+	 * </p>
+	 */
+	public void putConverter(String name, ConverterSupplier supplier){
+
+		if(name == null || supplier == null){
+			throw new NullPointerException();
 		}
+
+		this.converters.put(name, supplier);
+	}
+
+	public Map<String, ConverterSupplier> getConverters(){
+		return Collections.unmodifiableMap(this.converters);
 	}
 
 	static
@@ -58,23 +111,30 @@ public class ConverterFactory {
 		return new ConverterFactory();
 	}
 
-	private static Map<String, Class<? extends Converter>> converters = new LinkedHashMap<>();
-
-	static {
-		converters.put("BinaryTree", BinaryTreeConverter.class);
-		converters.put("earth", EarthConverter.class);
-		converters.put("gbm", GBMConverter.class);
-		converters.put("iForest", IForestConverter.class);
-		converters.put("glm", GLMConverter.class);
-		converters.put("kmeans", KMeansConverter.class);
-		converters.put("lm", LMConverter.class);
-		converters.put("lrm", LRMConverter.class);
-		converters.put("mvr", MVRConverter.class);
-		converters.put("ols", OLSConverter.class);
-		converters.put("randomForest", RandomForestConverter.class);
-		converters.put("ranger", RangerConverter.class);
-		converters.put("scorecard", ScorecardConverter.class);
-		converters.put("train", TrainConverter.class);
-		converters.put("xgb.Booster", XGBoostConverter.class);
+	static
+	private Map<String, ConverterSupplier> getRegisteredConverters(){
+		return RegistryHolder.converters;
+	}
+
+	static
+	private Map<String, ConverterSupplier> loadConverters(){
+		Map<String, ConverterSupplier> result = new LinkedHashMap<>();
+
+		ConverterProvider builtinProvider = new BuiltinConverterProvider();
+		builtinProvider.registerConverters(result);
+
+		ServiceLoader<ConverterProvider> serviceLoader = ServiceLoader.load(ConverterProvider.class);
+
+		for(ConverterProvider provider : serviceLoader){
+			provider.registerConverters(result);
+		}
+
+		return Collections.unmodifiableMap(result);
+	}
+
+	static
+	private class RegistryHolder {
+
+		private static final Map<String, ConverterSupplier> converters = loadConverters();
 	}
-}
\ No newline at end of file
+}
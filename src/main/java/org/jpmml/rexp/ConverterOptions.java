@@ -0,0 +1,218 @@
+/*
+ * Copyright (c) 2017 Villu Ruusmann
+ *
+ * This file is part of JPMML-R
+ *
+ * JPMML-R is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JPMML-R is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with JPMML-R.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.jpmml.rexp;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * <p>
+ * Named converter options.
+ * </p>
+ *
+ * <p>
+ * Option values are kept in their string form (eg. as specified on the command line), and are converted to typed values by the converter.
+ * A converter applies the options that it supports, and rejects all others.
+ * </p>
+ *
+ * @see Converter#setOptions(ConverterOptions)
+ */
+public class ConverterOptions {
+
+	private Map<String, String> values = new LinkedHashMap<>();
+
+
+	public ConverterOptions(){
+	}
+
+	public ConverterOptions(Map<String, String> values){
+		putAll(values);
+	}
+
+	public ConverterOptions(ConverterOptions options){
+		this(options.values);
+	}
+
+	public boolean isEmpty(){
+		return this.values.isEmpty();
+	}
+
+	public String get(String name){
+		return this.values.get(name);
+	}
+
+	public ConverterOptions put(String name, Object value){
+
+		if(name == null || value == null){
+			throw new NullPointerException();
+		}
+
+		this.values.put(name, String.valueOf(value));
+
+		return this;
+	}
+
+	public ConverterOptions putAll(Map<String, String> values){
+
+		for(Map.Entry<String, String> entry : values.entrySet()){
+			put(entry.getKey(), entry.getValue());
+		}
+
+		return this;
+	}
+
+	public String remove(String name){
+		return this.values.remove(name);
+	}
+
+	public Boolean removeBoolean(String name){
+		String value = remove(name);
+
+		if(value == null){
+			return null;
+		}
+
+		switch(value){
+			case "true":
+				return Boolean.TRUE;
+			case "false":
+				return Boolean.FALSE;
+			default:
+				throw new IllegalArgumentException("Option " + name + " requires a boolean value (\"true\" or \"false\"), got \"" + value + "\"");
+		}
+	}
+
+	public Integer removeInteger(String name){
+		String value = remove(name);
+
+		if(value == null){
+			return null;
+		}
+
+		try {
+			return Integer.valueOf(value);
+		} catch(NumberFormatException nfe){
+			throw new IllegalArgumentException("Option " + name + " requires an integer value, got \"" + value + "\"");
+		}
+	}
+
+	/**
+	 * @see MemoryUtil#parseBytes(String)
+	 */
+	public Long removeBytes(String name){
+		String value = remove(name);
+
+		if(value == null){
+			return null;
+		}
+
+		return MemoryUtil.parseBytes(value);
+	}
+
+	public Set<String> getNames(){
+		return Collections.unmodifiableSet(this.values.keySet());
+	}
+
+	public Map<String, String> getValues(){
+		return Collections.unmodifiableMap(this.values);
+	}
+
+	@Override
+	public String toString(){
+		return this.values.toString();
+	}
+
+	/**
+	 * The maximum estimated memory usage of the conversion (bytes, or with a K, M or G suffix).
+	 *
+	 * @see Converter#setMemoryBudget(long)
+	 */
+	public static final String MEMORY_BUDGET = "memory_budget";
+
+	/**
+	 * @see Converter#setNtreeLimit(int)
+	 */
+	public static final String NTREE_LIMIT = "ntree_limit";
+
+	/**
+	 * @see ModelConverter#setFoldPreProcess(boolean)
+	 */
+	public static final String FOLD_PREPROCESS = "fold_preprocess";
+
+	/**
+	 * @see ModelConverter#setEliminateSubexpressions(boolean)
+	 */
+	public static final String ELIMINATE_SUBEXPRESSIONS = "eliminate_subexpressions";
+
+	/**
+	 * @see LMConverter#setLookupLevels(int)
+	 */
+	public static final String LOOKUP_LEVELS = "lookup_levels";
+
+	/**
+	 * @see LMConverter#setUseRegressionModel(boolean)
+	 * @see MVRConverter#setUseRegressionModel(boolean)
+	 * @see EarthConverter#setUseRegressionModel(boolean)
+	 */
+	public static final String REGRESSION_MODEL = "regression_model";
+
+	/**
+	 * @see TreeModelConverter#setMaxDepth(int)
+	 */
+	public static final String MAX_DEPTH = "max_depth";
+
+	/**
+	 * @see TreeModelConverter#setPruneTrees(boolean)
+	 */
+	public static final String PRUNE = "prune";
+
+	/**
+	 * @see TreeModelCompactor
+	 */
+	public static final String COMPACT = "compact";
+
+	/**
+	 * The precision of split thresholds and node scores ("double", "float", or the number of significant digits).
+	 *
+	 * @see TreeModelRounder
+	 */
+	public static final String PRECISION = "precision";
+
+	/**
+	 * @see TreeModelConverter#setComplementSets(boolean)
+	 */
+	public static final String COMPLEMENT_SETS = "complement_sets";
+
+	/**
+	 * @see TreeModelConverter#setBinFeatures(boolean)
+	 */
+	public static final String BIN_FEATURES = "bin_features";
+
+	/**
+	 * @see GBMConverter#setAggregateStumps(boolean)
+	 */
+	public static final String AGGREGATE_STUMPS = "aggregate_stumps";
+
+	/**
+	 * @see GBMConverter#setUseDefaultChild(boolean)
+	 */
+	public static final String DEFAULT_CHILD = "default_child";
+}
@@ -0,0 +1,45 @@
+/*
+ * Copyright (c) 2017 Villu Ruusmann
+ *
+ * This file is part of JPMML-R
+ *
+ * JPMML-R is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JPMML-R is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with JPMML-R.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.jpmml.rexp;
+
+import java.util.Map;
+
+/**
+ * <p>
+ * A service provider interface for contributing converters to {@link ConverterFactory}.
+ * </p>
+ *
+ * <p>
+ * Implementations are discovered using {@link java.util.ServiceLoader}.
+ * They should be listed in a <code>META-INF/services/org.jpmml.rexp.ConverterProvider</code> resource file.
+ * Converters that are contributed by service providers take precedence over built-in converters.
+ * </p>
+ */
+public interface ConverterProvider {
+
+	/**
+	 * <p>
+	 * Registers converters by R class name.
+	 * Implementations should not load converter classes eagerly.
+	 * </p>
+	 *
+	 * @param converters A mapping from R class names to converter factories.
+	 */
+	void registerConverters(Map<String, ConverterSupplier> converters);
+}
@@ -29,8 +29,10 @@ import org.dmg.pmml.Expression;
 import org.dmg.pmml.FieldName;
 import org.dmg.pmml.FieldRef;
 import org.dmg.pmml.MiningFunction;
+import org.dmg.pmml.Model;
 import org.dmg.pmml.OpType;
 import org.dmg.pmml.general_regression.GeneralRegressionModel;
+import org.dmg.pmml.regression.RegressionModel;
 import org.jpmml.converter.ContinuousFeature;
 import org.jpmml.converter.Feature;
 import org.jpmml.converter.FortranMatrixUtil;
@@ -43,10 +45,23 @@ import org.jpmml.converter.general_regression.GeneralRegressionModelUtil;
 
 public class EarthConverter extends ModelConverter<RGenericVector> {
 
+	private boolean useRegressionModel = false;
+
+
 	public EarthConverter(RGenericVector earth){
 		super(earth);
 	}
 
+	@Override
+	public void applyOptions(ConverterOptions options){
+		Boolean useRegressionModel = options.removeBoolean(ConverterOptions.REGRESSION_MODEL);
+		if(useRegressionModel != null){
+			setUseRegressionModel(useRegressionModel);
+		}
+
+		super.applyOptions(options);
+	}
+
 	@Override
 	public void encodeSchema(RExpEncoder encoder){
 		RGenericVector earth = getObject();
@@ -185,7 +200,7 @@ public class EarthConverter extends ModelConverter<RGenericVector> {
 	}
 
 	@Override
-	public GeneralRegressionModel encodeModel(Schema schema){
+	public Model encodeModel(Schema schema){
 		RGenericVector earth = getObject();
 
 		RDoubleVector coefficients = (RDoubleVector)earth.getValue("coefficients");
@@ -200,6 +215,12 @@ public class EarthConverter extends ModelConverter<RGenericVector> {
 
 		List<Double> featureCoefficients = (coefficients.getValues()).subList(1, features.size() + 1);
 
+		if(isUseRegressionModel()){
+			RegressionModel regressionModel = LinearModelUtil.encodeRegressionModel(schema, features, intercept, featureCoefficients, GeneralRegressionModel.LinkFunction.IDENTITY, null);
+
+			return regressionModel;
+		}
+
 		GeneralRegressionModel generalRegressionModel = new GeneralRegressionModel(GeneralRegressionModel.ModelType.GENERALIZED_LINEAR, MiningFunction.REGRESSION, ModelUtil.createMiningSchema(schema), null, null, null)
 			.setLinkFunction(GeneralRegressionModel.LinkFunction.IDENTITY);
 
@@ -208,6 +229,20 @@ public class EarthConverter extends ModelConverter<RGenericVector> {
 		return generalRegressionModel;
 	}
 
+	/**
+	 * <p>
+	 * If <code>true</code>, then the model is encoded as a regression model.
+	 * If <code>false</code>, then the model is encoded as a general regression model.
+	 * </p>
+	 */
+	public boolean isUseRegressionModel(){
+		return this.useRegressionModel;
+	}
+
+	public void setUseRegressionModel(boolean useRegressionModel){
+		this.useRegressionModel = useRegressionModel;
+	}
+
 	static
 	private String formatHingeFunction(int dir, FieldName name, double cut){
 
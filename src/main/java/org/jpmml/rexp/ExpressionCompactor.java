@@ -22,10 +22,25 @@ import java.util.List;
 import java.util.ListIterator;
 
 import org.dmg.pmml.Apply;
+import org.dmg.pmml.Constant;
+import org.dmg.pmml.DataType;
 import org.dmg.pmml.Expression;
+import org.dmg.pmml.FieldRef;
+import org.dmg.pmml.PMMLObject;
 import org.dmg.pmml.VisitorAction;
+import org.jpmml.converter.ValueUtil;
 import org.jpmml.model.visitors.AbstractVisitor;
 
+/**
+ * <p>
+ * A Visitor that flattens logical expressions, and simplifies arithmetic and relational expressions.
+ * </p>
+ *
+ * <p>
+ * Arithmetic expressions are simplified in post-order (ie. when the Visitor leaves the parent expression), so that constant subexpressions are folded bottom-up.
+ * The root expression cannot be replaced in place, and must be simplified separately using {@link #simplify(Expression)}.
+ * </p>
+ */
 public class ExpressionCompactor extends AbstractVisitor {
 
 	@Override
@@ -47,6 +62,256 @@ public class ExpressionCompactor extends AbstractVisitor {
 		return VisitorAction.CONTINUE;
 	}
 
+	@Override
+	public PMMLObject popParent(){
+		PMMLObject parent = super.popParent();
+
+		if(parent instanceof Apply){
+			Apply apply = (Apply)parent;
+
+			List<Expression> expressions = apply.getExpressions();
+			for(ListIterator<Expression> expressionIt = expressions.listIterator(); expressionIt.hasNext(); ){
+				Expression expression = expressionIt.next();
+
+				Expression simplifiedExpression = simplify(expression);
+				if(simplifiedExpression != expression){
+					expressionIt.set(simplifiedExpression);
+				}
+			}
+		} else
+
+		if(parent instanceof FunctionExpression){
+			FunctionExpression functionExpression = (FunctionExpression)parent;
+
+			List<FunctionExpression.Argument> arguments = functionExpression.getArguments();
+			for(FunctionExpression.Argument argument : arguments){
+				argument.setExpression(simplify(argument.getExpression()));
+			}
+		}
+
+		return parent;
+	}
+
+	/**
+	 * <p>
+	 * Simplifies an expression, whose child expressions have already been simplified.
+	 * </p>
+	 *
+	 * @return The simplified expression, or the argument expression if no simplification was possible.
+	 */
+	static
+	public Expression simplify(Expression expression){
+
+		if(!(expression instanceof Apply)){
+			return expression;
+		}
+
+		Apply apply = (Apply)expression;
+
+		if(apply.getMapMissingTo() != null || apply.getDefaultValue() != null){
+			return apply;
+		}
+
+		String function = apply.getFunction();
+
+		List<Expression> expressions = apply.getExpressions();
+
+		switch(function){
+			case "+":
+			case "-":
+			case "*":
+			case "/":
+			case "pow":
+				if(expressions.size() == 2){
+					return simplifyBinaryExpression(apply, expressions.get(0), expressions.get(1));
+				}
+				break;
+			case "abs":
+			case "ceil":
+			case "exp":
+			case "floor":
+			case "ln":
+			case "log10":
+			case "sqrt":
+				if(expressions.size() == 1){
+					return simplifyUnaryExpression(apply, expressions.get(0));
+				}
+				break;
+			case "equal":
+			case "notEqual":
+			case "lessThan":
+			case "lessOrEqual":
+			case "greaterThan":
+			case "greaterOrEqual":
+				if(expressions.size() == 2){
+					normalizeComparisonExpression(apply, expressions.get(0), expressions.get(1));
+				}
+				break;
+			default:
+				break;
+		}
+
+		return apply;
+	}
+
+	static
+	private Expression simplifyBinaryExpression(Apply apply, Expression left, Expression right){
+		String function = apply.getFunction();
+
+		Double leftValue = toNumber(left);
+		Double rightValue = toNumber(right);
+
+		if(leftValue != null && rightValue != null){
+			double value;
+
+			switch(function){
+				case "+":
+					value = leftValue + rightValue;
+					break;
+				case "-":
+					value = leftValue - rightValue;
+					break;
+				case "*":
+					value = leftValue * rightValue;
+					break;
+				case "/":
+					value = leftValue / rightValue;
+					break;
+				case "pow":
+					value = Math.pow(leftValue, rightValue);
+					break;
+				default:
+					throw new IllegalArgumentException(function);
+			}
+
+			switch(function){
+				case "+":
+				case "-":
+				case "*":
+					if(isInteger((Constant)left) && isInteger((Constant)right)){
+						return createConstant(value, true, apply);
+					}
+					break;
+				default:
+					break;
+			}
+
+			return createConstant(value, false, apply);
+		}
+
+		switch(function){
+			case "+":
+				if(isValue(leftValue, 0d)){
+					return right;
+				} // End if
+
+				if(isValue(rightValue, 0d)){
+					return left;
+				}
+				break;
+			case "-":
+				if(isValue(rightValue, 0d)){
+					return left;
+				}
+				break;
+			case "*":
+				if(isValue(leftValue, 1d)){
+					return right;
+				} // End if
+
+				if(isValue(rightValue, 1d)){
+					return left;
+				}
+				break;
+			case "/":
+				// The result of division is always double, but a field reference takes the data type of the referenced field
+				if(isValue(rightValue, 1d) && isDouble(left)){
+					return left;
+				}
+				break;
+			case "pow":
+				if(isValue(rightValue, 1d)){
+					return left;
+				} // End if
+
+				// R evaluates x^2 as x * x
+				if(isValue(rightValue, 2d) && (left instanceof FieldRef)){
+					FieldRef fieldRef = (FieldRef)left;
+
+					apply.setFunction("*");
+
+					List<Expression> expressions = apply.getExpressions();
+					expressions.set(1, new FieldRef(fieldRef.getField()));
+				}
+				break;
+			default:
+				break;
+		}
+
+		return apply;
+	}
+
+	static
+	private Expression simplifyUnaryExpression(Apply apply, Expression expression){
+		String function = apply.getFunction();
+
+		Double value = toNumber(expression);
+
+		if(value == null){
+			return apply;
+		}
+
+		switch(function){
+			case "abs":
+				return createConstant(Math.abs(value), isInteger((Constant)expression), apply);
+			case "ceil":
+				return createConstant(Math.ceil(value), false, apply);
+			case "exp":
+				return createConstant(Math.exp(value), false, apply);
+			case "floor":
+				return createConstant(Math.floor(value), false, apply);
+			case "ln":
+				return createConstant(Math.log(value), false, apply);
+			case "log10":
+				return createConstant(Math.log10(value), false, apply);
+			case "sqrt":
+				return createConstant(Math.sqrt(value), false, apply);
+			default:
+				throw new IllegalArgumentException(function);
+		}
+	}
+
+	static
+	private void normalizeComparisonExpression(Apply apply, Expression left, Expression right){
+
+		if(!(left instanceof Constant) || (right instanceof Constant)){
+			return;
+		}
+
+		String function = apply.getFunction();
+
+		switch(function){
+			case "lessThan":
+				apply.setFunction("greaterThan");
+				break;
+			case "lessOrEqual":
+				apply.setFunction("greaterOrEqual");
+				break;
+			case "greaterThan":
+				apply.setFunction("lessThan");
+				break;
+			case "greaterOrEqual":
+				apply.setFunction("lessOrEqual");
+				break;
+			default:
+				break;
+		}
+
+		List<Expression> expressions = apply.getExpressions();
+		expressions.set(0, right);
+		expressions.set(1, left);
+	}
+
 	static
 	private void inlineLogicalExpressions(Apply apply){
 		String function = apply.getFunction();
@@ -114,4 +379,122 @@ public class ExpressionCompactor extends AbstractVisitor {
 				return null;
 		}
 	}
-}
\ No newline at end of file
+
+	static
+	private Double toNumber(Expression expression){
+
+		if(!(expression instanceof Constant)){
+			return null;
+		}
+
+		Constant constant = (Constant)expression;
+
+		DataType dataType = constant.getDataType();
+		if(dataType != null){
+
+			switch(dataType){
+				case INTEGER:
+				case FLOAT:
+				case DOUBLE:
+					break;
+				default:
+					return null;
+			}
+		}
+
+		String value = constant.getValue();
+		if(value == null){
+			return null;
+		}
+
+		Double result;
+
+		try {
+			result = Double.valueOf(value);
+		} catch(NumberFormatException nfe){
+			return null;
+		}
+
+		if(result.isNaN() || result.isInfinite()){
+			return null;
+		}
+
+		return result;
+	}
+
+	static
+	private boolean isInteger(Constant constant){
+		DataType dataType = constant.getDataType();
+
+		if(dataType != null){
+			return (DataType.INTEGER).equals(dataType);
+		}
+
+		String value = constant.getValue();
+
+		return value.matches("[+-]?\\d+");
+	}
+
+	/**
+	 * @return <code>true</code> if the expression is known to evaluate to a double value, <code>false</code> otherwise.
+	 */
+	static
+	private boolean isDouble(Expression expression){
+
+		if(expression instanceof Constant){
+			Constant constant = (Constant)expression;
+
+			return (toNumber(constant) != null) && !isInteger(constant);
+		} else
+
+		if(expression instanceof Apply){
+			Apply apply = (Apply)expression;
+
+			switch(apply.getFunction()){
+				case "/":
+				case "exp":
+				case "ln":
+				case "log10":
+				case "sqrt":
+					return true;
+				default:
+					return false;
+			}
+		}
+
+		return false;
+	}
+
+	static
+	private boolean isValue(Double value, double expectedValue){
+		return (value != null) && (value.doubleValue() == expectedValue);
+	}
+
+	static
+	private Expression createConstant(double value, boolean integer, Apply apply){
+
+		if(Double.isNaN(value) || Double.isInfinite(value)){
+			return apply;
+		} // End if
+
+		if(integer){
+
+			if(Math.abs(value) > ExpressionCompactor.MAX_SAFE_INTEGER){
+				return apply;
+			}
+
+			Constant constant = new Constant()
+				.setValue(Long.toString((long)value));
+
+			return constant;
+		}
+
+		Constant constant = new Constant()
+			.setValue(ValueUtil.formatValue(value))
+			.setDataType(DataType.DOUBLE);
+
+		return constant;
+	}
+
+	private static final double MAX_SAFE_INTEGER = 9007199254740992d;
+}
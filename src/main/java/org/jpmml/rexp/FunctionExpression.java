@@ -136,6 +136,8 @@ public class FunctionExpression extends Expression {
 	public VisitorAction accept(Visitor visitor){
 		VisitorAction status = VisitorAction.CONTINUE;
 
+		visitor.pushParent(this);
+
 		if((status == VisitorAction.CONTINUE) && hasArguments()){
 			List<Argument> arguments = getArguments();
 
@@ -146,7 +148,9 @@ public class FunctionExpression extends Expression {
 					break;
 				}
 			}
-		} // End if
+		}
+
+		visitor.popParent();
 
 		if(status == VisitorAction.TERMINATE){
 			return VisitorAction.TERMINATE;
@@ -255,7 +259,7 @@ public class FunctionExpression extends Expression {
 			return this.expression;
 		}
 
-		private void setExpression(Expression expression){
+		void setExpression(Expression expression){
 			this.expression = expression;
 		}
 
@@ -24,6 +24,7 @@ import java.util.List;
 
 import org.dmg.pmml.DataField;
 import org.dmg.pmml.DataType;
+import org.dmg.pmml.False;
 import org.dmg.pmml.FieldName;
 import org.dmg.pmml.MiningFunction;
 import org.dmg.pmml.Model;
@@ -49,10 +50,30 @@ import org.jpmml.converter.mining.MiningModelUtil;
 
 public class GBMConverter extends TreeModelConverter<RGenericVector> {
 
+	private boolean aggregateStumps = false;
+
+	private boolean useDefaultChild = false;
+
+
 	public GBMConverter(RGenericVector gbm){
 		super(gbm);
 	}
 
+	@Override
+	public void applyOptions(ConverterOptions options){
+		Boolean aggregateStumps = options.removeBoolean(ConverterOptions.AGGREGATE_STUMPS);
+		if(aggregateStumps != null){
+			setAggregateStumps(aggregateStumps);
+		}
+
+		Boolean useDefaultChild = options.removeBoolean(ConverterOptions.DEFAULT_CHILD);
+		if(useDefaultChild != null){
+			setUseDefaultChild(useDefaultChild);
+		}
+
+		super.applyOptions(options);
+	}
+
 	@Override
 	public void encodeSchema(RExpEncoder encoder){
 		RGenericVector gbm = getObject();
@@ -133,12 +154,14 @@ public class GBMConverter extends TreeModelConverter<RGenericVector> {
 
 		List<TreeModel> treeModels = new ArrayList<>();
 
-		for(int i = 0; i < trees.size(); i++){
+		for(int i = 0; i < limitTreeCount(trees.size()); i++){
 			RGenericVector tree = (RGenericVector)trees.getValue(i);
 
 			TreeModel treeModel = encodeTreeModel(MiningFunction.REGRESSION, tree, c_splits, segmentSchema);
 
 			treeModels.add(treeModel);
+
+			reportTreeModel(treeModel);
 		}
 
 		MiningModel miningModel = encodeMiningModel(distributionName, treeModels, initF.asScalar(), schema);
@@ -146,6 +169,65 @@ public class GBMConverter extends TreeModelConverter<RGenericVector> {
 		return miningModel;
 	}
 
+	@Override
+	public long estimateMemoryUsage(){
+		RGenericVector gbm = getObject();
+
+		RGenericVector trees = (RGenericVector)gbm.getValue("trees");
+		RNumberVector<?> var_type = (RNumberVector<?>)gbm.getValue("var.type");
+
+		int size = limitTreeCount(trees.size());
+
+		long nodes = 0;
+		long values = 0;
+
+		for(int i = 0; i < size; i++){
+			RGenericVector tree = (RGenericVector)trees.getValue(i);
+
+			RIntegerVector splitVar = (RIntegerVector)tree.getValue(0);
+
+			nodes += splitVar.size();
+
+			for(int j = 0; j < splitVar.size(); j++){
+				int var = splitVar.getValue(j);
+
+				if(var < 0){
+					continue;
+				}
+
+				int categories = ValueUtil.asInt(var_type.getValue(var));
+				if(categories > 0){
+					values += categories;
+				}
+			}
+		}
+
+		return MemoryUtil.estimateTreeModels(size, nodes) + MemoryUtil.estimateSplitValues(values);
+	}
+
+	/**
+	 * <p>
+	 * Multinomial models grow one tree per class in each boosting iteration.
+	 * The tree limit applies to boosting iterations, so that all classes keep the same number of trees.
+	 * </p>
+	 */
+	private int limitTreeCount(int size){
+		RGenericVector gbm = getObject();
+
+		RGenericVector distribution = (RGenericVector)gbm.getValue("distribution");
+		RStringVector classes = (RStringVector)gbm.getValue("classes", true);
+
+		RStringVector distributionName = (RStringVector)distribution.getValue("name");
+
+		int treesPerIteration = 1;
+
+		if(("multinomial").equals(distributionName.asScalar())){
+			treesPerIteration = classes.size();
+		}
+
+		return limitTrees(size / treesPerIteration) * treesPerIteration;
+	}
+
 	private MiningModel encodeMiningModel(RStringVector distributionName, List<TreeModel> treeModels, Double initF, Schema schema){
 
 		switch(distributionName.asScalar()){
@@ -199,15 +281,29 @@ public class GBMConverter extends TreeModelConverter<RGenericVector> {
 			.setId("1")
 			.setPredicate(new True());
 
-		encodeNode(root, 0, tree, c_splits, schema);
+		boolean foldMissing = (isUseDefaultChild() && isFoldable(0, 0, tree));
+
+		encodeNode(root, 0, 0, foldMissing, tree, c_splits, schema);
 
 		TreeModel treeModel = new TreeModel(miningFunction, ModelUtil.createMiningSchema(schema), root)
 			.setSplitCharacteristic(TreeModel.SplitCharacteristic.MULTI_SPLIT);
 
-		return treeModel;
+		if(foldMissing){
+			treeModel
+				.setMissingValueStrategy(TreeModel.MissingValueStrategy.LAST_PREDICTION)
+				.setSplitCharacteristic(TreeModel.SplitCharacteristic.BINARY_SPLIT);
+		} else
+
+		if(isUseDefaultChild()){
+			treeModel
+				.setMissingValueStrategy(TreeModel.MissingValueStrategy.DEFAULT_CHILD)
+				.setSplitCharacteristic(isBinary(root) ? TreeModel.SplitCharacteristic.BINARY_SPLIT : TreeModel.SplitCharacteristic.MULTI_SPLIT);
+		}
+
+		return pruneTreeModel(treeModel, schema);
 	}
 
-	private void encodeNode(Node node, int i, RGenericVector tree, RGenericVector c_splits, Schema schema){
+	private void encodeNode(Node node, int i, int depth, boolean foldMissing, RGenericVector tree, RGenericVector c_splits, Schema schema){
 		RIntegerVector splitVar = (RIntegerVector)tree.getValue(0);
 		RDoubleVector splitCodePred = (RDoubleVector)tree.getValue(1);
 		RIntegerVector leftNode = (RIntegerVector)tree.getValue(2);
@@ -221,6 +317,17 @@ public class GBMConverter extends TreeModelConverter<RGenericVector> {
 		Predicate rightPredicate;
 
 		Integer var = splitVar.getValue(i);
+		if(var != -1 && isDepthLimited(depth)){
+			List<Node> leaves = new ArrayList<>();
+			List<Double> weights = new ArrayList<>();
+
+			collectLeaves(i, tree, leaves, weights);
+
+			aggregateLeaves(node, MiningFunction.REGRESSION, leaves, weights);
+
+			return;
+		} // End if
+
 		if(var != -1){
 			Feature feature = schema.getFeature(var);
 
@@ -239,8 +346,11 @@ public class GBMConverter extends TreeModelConverter<RGenericVector> {
 
 				List<Integer> splitValues = c_split.getValues();
 
-				leftPredicate = createSimpleSetPredicate(categoricalFeature, selectValues(values, splitValues, true));
-				rightPredicate = createSimpleSetPredicate(categoricalFeature, selectValues(values, splitValues, false));
+				List<String> leftValues = selectValues(values, splitValues, true);
+				List<String> rightValues = selectValues(values, splitValues, false);
+
+				leftPredicate = createSimpleSetPredicate(categoricalFeature, leftValues, rightValues);
+				rightPredicate = createSimpleSetPredicate(categoricalFeature, rightValues, leftValues);
 			} else
 
 			{
@@ -262,41 +372,77 @@ public class GBMConverter extends TreeModelConverter<RGenericVector> {
 		}
 
 		Integer missing = missingNode.getValue(i);
-		if(missing != -1){
-			Node missingChild = new Node()
-				.setId(String.valueOf(missing + 1))
-				.setPredicate(missingPredicate);
+		Integer left = leftNode.getValue(i);
+		Integer right = rightNode.getValue(i);
 
-			encodeNode(missingChild, missing, tree, c_splits, schema);
+		if(foldMissing){
+			// The missing child repeats the prediction of this node, which is returned when the left and right predicates evaluate to UNKNOWN
+			node.setScore(ValueUtil.formatValue(prediction.getValue(i)));
 
-			node.addNodes(missingChild);
-		}
+			missing = -1;
+		} else
 
-		Integer left = leftNode.getValue(i);
-		if(left != -1){
-			Node leftChild = new Node()
-				.setId(String.valueOf(left + 1))
-				.setPredicate(leftPredicate);
+		if(isUseDefaultChild()){
+
+			if(missing != -1){
+
+				// The missing child is omitted if it is identical to the left or the right child
+				if(isEqual(missing, left, tree)){
+					node.setDefaultChild(String.valueOf(left + 1));
+
+					missing = -1;
+				} else
+
+				if(isEqual(missing, right, tree)){
+					node.setDefaultChild(String.valueOf(right + 1));
+
+					missing = -1;
+				} else
+
+				{
+					node.setDefaultChild(String.valueOf(missing + 1));
+
+					// The missing child is reachable only via the default child pointer
+					missingPredicate = new False();
+				}
+			}
+		} else
 
-			encodeNode(leftChild, left, tree, c_splits, schema);
+		{
+			encodeChild(node, missing, depth + 1, foldMissing, missingPredicate, tree, c_splits, schema);
 
-			node.addNodes(leftChild);
+			missing = -1;
 		}
 
-		Integer right = rightNode.getValue(i);
-		if(right != -1){
-			Node rightChild = new Node()
-				.setId(String.valueOf(right + 1))
-				.setPredicate(rightPredicate);
+		encodeChild(node, left, depth + 1, foldMissing, leftPredicate, tree, c_splits, schema);
+		encodeChild(node, right, depth + 1, foldMissing, rightPredicate, tree, c_splits, schema);
 
-			encodeNode(rightChild, right, tree, c_splits, schema);
+		encodeChild(node, missing, depth + 1, foldMissing, missingPredicate, tree, c_splits, schema);
+	}
 
-			node.addNodes(rightChild);
+	private void encodeChild(Node node, int i, int depth, boolean foldMissing, Predicate predicate, RGenericVector tree, RGenericVector c_splits, Schema schema){
+
+		if(i == -1){
+			return;
 		}
+
+		Node child = new Node()
+			.setId(String.valueOf(i + 1))
+			.setPredicate(predicate);
+
+		encodeNode(child, i, depth, foldMissing, tree, c_splits, schema);
+
+		node.addNodes(child);
 	}
 
-	static
 	private MiningModel createMiningModel(List<TreeModel> treeModels, Double initF, Schema schema){
+
+		if(isAggregateStumps()){
+			StumpAggregator aggregator = new StumpAggregator(this);
+
+			treeModels = aggregator.aggregate(treeModels, schema);
+		}
+
 		MiningModel miningModel = new MiningModel(MiningFunction.REGRESSION, ModelUtil.createMiningSchema(schema))
 			.setSegmentation(MiningModelUtil.createSegmentation(Segmentation.MultipleModelMethod.SUM, treeModels))
 			.setTargets(ModelUtil.createRescaleTargets(schema, null, initF));
@@ -304,6 +450,152 @@ public class GBMConverter extends TreeModelConverter<RGenericVector> {
 		return miningModel;
 	}
 
+	/**
+	 * <p>
+	 * Should the depth-one trees that split on the same feature be merged into a single tree?
+	 * </p>
+	 *
+	 * @see StumpAggregator
+	 */
+	public boolean isAggregateStumps(){
+		return this.aggregateStumps;
+	}
+
+	public void setAggregateStumps(boolean aggregateStumps){
+		this.aggregateStumps = aggregateStumps;
+	}
+
+	/**
+	 * <p>
+	 * Should missing values be routed without dedicated "isMissing" children?
+	 * </p>
+	 *
+	 * <p>
+	 * If every missing child of a tree is a leaf that repeats the prediction of its parent (as is the case with gbm models that were trained on data with missing values),
+	 * then the missing children are dropped and the tree becomes binary, using the "lastPrediction" missing value strategy.
+	 * Otherwise, missing values are routed using default child pointers (the "defaultChild" missing value strategy).
+	 * </p>
+	 */
+	public boolean isUseDefaultChild(){
+		return this.useDefaultChild;
+	}
+
+	public void setUseDefaultChild(boolean useDefaultChild){
+		this.useDefaultChild = useDefaultChild;
+	}
+
+	static
+	private void collectLeaves(int i, RGenericVector tree, List<Node> leaves, List<Double> weights){
+		RIntegerVector splitVar = (RIntegerVector)tree.getValue(0);
+		RIntegerVector leftNode = (RIntegerVector)tree.getValue(2);
+		RIntegerVector rightNode = (RIntegerVector)tree.getValue(3);
+		RIntegerVector missingNode = (RIntegerVector)tree.getValue(4);
+		RDoubleVector weight = (RDoubleVector)tree.getValue(6);
+		RDoubleVector prediction = (RDoubleVector)tree.getValue(7);
+
+		if(i == -1){
+			return;
+		} // End if
+
+		if(splitVar.getValue(i) == -1){
+			Node leaf = new Node()
+				.setScore(ValueUtil.formatValue(prediction.getValue(i)));
+
+			leaves.add(leaf);
+			weights.add(weight.getValue(i));
+
+			return;
+		}
+
+		collectLeaves(leftNode.getValue(i), tree, leaves, weights);
+		collectLeaves(rightNode.getValue(i), tree, leaves, weights);
+		collectLeaves(missingNode.getValue(i), tree, leaves, weights);
+	}
+
+	/**
+	 * @return <code>true</code> if every missing child (within the depth limit) is a leaf that repeats the prediction of its parent, <code>false</code> otherwise.
+	 */
+	private boolean isFoldable(int i, int depth, RGenericVector tree){
+		RIntegerVector splitVar = (RIntegerVector)tree.getValue(0);
+		RIntegerVector leftNode = (RIntegerVector)tree.getValue(2);
+		RIntegerVector rightNode = (RIntegerVector)tree.getValue(3);
+		RIntegerVector missingNode = (RIntegerVector)tree.getValue(4);
+		RDoubleVector prediction = (RDoubleVector)tree.getValue(7);
+
+		if(splitVar.getValue(i) == -1 || isDepthLimited(depth)){
+			return true;
+		}
+
+		int missing = missingNode.getValue(i);
+		if(missing != -1){
+
+			if(splitVar.getValue(missing) != -1 || !(prediction.getValue(missing)).equals(prediction.getValue(i))){
+				return false;
+			}
+		}
+
+		return isFoldable(leftNode.getValue(i), depth + 1, tree) && isFoldable(rightNode.getValue(i), depth + 1, tree);
+	}
+
+	/**
+	 * @return <code>true</code> if the subtrees rooted at the specified nodes are identical, <code>false</code> otherwise.
+	 */
+	static
+	private boolean isEqual(int left, int right, RGenericVector tree){
+		RIntegerVector splitVar = (RIntegerVector)tree.getValue(0);
+		RDoubleVector splitCodePred = (RDoubleVector)tree.getValue(1);
+		RIntegerVector leftNode = (RIntegerVector)tree.getValue(2);
+		RIntegerVector rightNode = (RIntegerVector)tree.getValue(3);
+		RIntegerVector missingNode = (RIntegerVector)tree.getValue(4);
+		RDoubleVector prediction = (RDoubleVector)tree.getValue(7);
+
+		if(left == right){
+			return true;
+		} else
+
+		if(left == -1 || right == -1){
+			return false;
+		}
+
+		Integer var = splitVar.getValue(left);
+		if(!(var).equals(splitVar.getValue(right))){
+			return false;
+		} // End if
+
+		if(var == -1){
+			return (prediction.getValue(left)).equals(prediction.getValue(right));
+		} // End if
+
+		// For categorical splits, the split value is an index into the "c.splits" element
+		if(!(splitCodePred.getValue(left)).equals(splitCodePred.getValue(right))){
+			return false;
+		}
+
+		return isEqual(leftNode.getValue(left), leftNode.getValue(right), tree) && isEqual(rightNode.getValue(left), rightNode.getValue(right), tree) && isEqual(missingNode.getValue(left), missingNode.getValue(right), tree);
+	}
+
+	static
+	private boolean isBinary(Node node){
+
+		if(!node.hasNodes()){
+			return true;
+		}
+
+		List<Node> children = node.getNodes();
+		if(children.size() != 2){
+			return false;
+		}
+
+		for(Node child : children){
+
+			if(!isBinary(child)){
+				return false;
+			}
+		}
+
+		return true;
+	}
+
 	static
 	private <E> List<E> selectValues(List<E> values, List<Integer> splitValues, boolean left){
 
@@ -25,6 +25,7 @@ import org.dmg.pmml.MiningFunction;
 import org.dmg.pmml.Model;
 import org.dmg.pmml.OpType;
 import org.dmg.pmml.general_regression.GeneralRegressionModel;
+import org.dmg.pmml.regression.RegressionModel;
 import org.jpmml.converter.CategoricalLabel;
 import org.jpmml.converter.Feature;
 import org.jpmml.converter.Label;
@@ -99,6 +100,11 @@ public class GLMConverter extends LMConverter {
 
 		List<Double> featureCoefficients = getFeatureCoefficients(features, coefficients);
 
+		Terms terms = encodeLookupFeatures(features, featureCoefficients);
+
+		features = terms.getFeatures();
+		featureCoefficients = terms.getFeatureCoefficients();
+
 		String targetCategory = null;
 
 		if(label instanceof CategoricalLabel){
@@ -113,6 +119,23 @@ public class GLMConverter extends LMConverter {
 
 		MiningFunction miningFunction = (targetCategory != null ? MiningFunction.CLASSIFICATION : MiningFunction.REGRESSION);
 
+		if(isUseRegressionModel()){
+			RegressionModel regressionModel = LinearModelUtil.encodeRegressionModel(schema, features, intercept, featureCoefficients, parseLinkFunction(familyLink.asScalar()), targetCategory);
+
+			if(regressionModel != null){
+
+				switch(miningFunction){
+					case CLASSIFICATION:
+						regressionModel.setOutput(ModelUtil.createProbabilityOutput(schema));
+						break;
+					default:
+						break;
+				}
+
+				return regressionModel;
+			}
+		}
+
 		GeneralRegressionModel generalRegressionModel = new GeneralRegressionModel(GeneralRegressionModel.ModelType.GENERALIZED_LINEAR, miningFunction, ModelUtil.createMiningSchema(schema), null, null, null)
 			.setDistribution(parseFamily(familyFamily.asScalar()))
 			.setLinkFunction(parseLinkFunction(familyLink.asScalar()))
@@ -108,10 +108,12 @@ public class IForestConverter extends TreeModelConverter<RGenericVector> {
 
 		List<TreeModel> treeModels = new ArrayList<>();
 
-		for(int i = 0; i < ValueUtil.asInt(ntree.asScalar()); i++){
+		for(int i = 0; i < limitTrees(ValueUtil.asInt(ntree.asScalar())); i++){
 			TreeModel treeModel = encodeTreeModel(trees, i, segmentSchema);
 
 			treeModels.add(treeModel);
+
+			reportTreeModel(treeModel);
 		}
 
 		// "rawPathLength / avgPathLength(xrow)"
@@ -154,6 +156,37 @@ public class IForestConverter extends TreeModelConverter<RGenericVector> {
 		return miningModel;
 	}
 
+	@Override
+	public long estimateMemoryUsage(){
+		RGenericVector iForest = getObject();
+
+		RGenericVector trees = (RGenericVector)iForest.getValue("trees");
+
+		if(trees == null){
+			return -1L;
+		}
+
+		RIntegerVector nrnodes = (RIntegerVector)trees.getValue("nrnodes");
+		RIntegerVector ntree = (RIntegerVector)trees.getValue("ntree");
+		RIntegerVector nodeStatus = (RIntegerVector)trees.getValue("nodeStatus");
+
+		int rows = nrnodes.asScalar();
+		int columns = limitTrees(ntree.asScalar());
+
+		long nodes = 0;
+
+		// Unused rows are zero-filled
+		for(int i = 0; i < (columns * rows); i++){
+			int status = nodeStatus.getValue(i);
+
+			if(status != 0){
+				nodes++;
+			}
+		}
+
+		return MemoryUtil.estimateTreeModels(columns, nodes);
+	}
+
 	private TreeModel encodeTreeModel(RGenericVector trees, int index, Schema schema){
 		RIntegerVector nrnodes = (RIntegerVector)trees.getValue("nrnodes");
 		RIntegerVector ntree = (RIntegerVector)trees.getValue("ntree");
@@ -186,7 +219,7 @@ public class IForestConverter extends TreeModelConverter<RGenericVector> {
 		TreeModel treeModel = new TreeModel(MiningFunction.REGRESSION, ModelUtil.createMiningSchema(schema), root)
 			.setSplitCharacteristic(TreeModel.SplitCharacteristic.BINARY_SPLIT);
 
-		return treeModel;
+		return pruneTreeModel(treeModel, schema);
 	}
 
 	private void encodeNode(Node node, int index, int depth, List<Integer> nodeStatus, List<Integer> nodeSize, List<Integer> leftDaughter, List<Integer> rightDaughter, List<Integer> splitAtt, List<Double> splitValue, Schema schema){
@@ -195,6 +228,11 @@ public class IForestConverter extends TreeModelConverter<RGenericVector> {
 
 		node.setId(String.valueOf(index + 1));
 
+		// Interior node at the depth limit
+		if(status == -3 && isDepthLimited(depth)){
+			node.setScore(ValueUtil.formatValue(depth + avgPathLength(size)));
+		} else
+
 		// Interior node
 		if(status == -3){
 			int att = splitAtt.get(index);
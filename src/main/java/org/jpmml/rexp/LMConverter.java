@@ -19,29 +19,68 @@
 package org.jpmml.rexp;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.xml.parsers.DocumentBuilder;
 
 import org.dmg.pmml.DataField;
 import org.dmg.pmml.DataType;
+import org.dmg.pmml.DerivedField;
+import org.dmg.pmml.FieldColumnPair;
 import org.dmg.pmml.FieldName;
+import org.dmg.pmml.InlineTable;
+import org.dmg.pmml.MapValues;
 import org.dmg.pmml.MiningFunction;
 import org.dmg.pmml.Model;
+import org.dmg.pmml.OpType;
+import org.dmg.pmml.Row;
 import org.dmg.pmml.regression.RegressionModel;
+import org.jpmml.converter.BinaryFeature;
+import org.jpmml.converter.ContinuousFeature;
+import org.jpmml.converter.DOMUtil;
 import org.jpmml.converter.Feature;
 import org.jpmml.converter.InteractionFeature;
 import org.jpmml.converter.ModelUtil;
+import org.jpmml.converter.PMMLEncoder;
 import org.jpmml.converter.Schema;
+import org.jpmml.converter.ValueUtil;
 import org.jpmml.converter.regression.RegressionModelUtil;
 
 public class LMConverter extends ModelConverter<RGenericVector> {
 
 	private Formula formula = null;
 
+	private int lookupLevels = -1;
+
+	private boolean useRegressionModel = false;
+
 
 	public LMConverter(RGenericVector lm){
 		super(lm);
 	}
 
+	@Override
+	public void applyOptions(ConverterOptions options){
+		Integer lookupLevels = options.removeInteger(ConverterOptions.LOOKUP_LEVELS);
+		if(lookupLevels != null){
+			setLookupLevels(lookupLevels);
+		}
+
+		Boolean useRegressionModel = options.removeBoolean(ConverterOptions.REGRESSION_MODEL);
+		if(useRegressionModel != null){
+			setUseRegressionModel(useRegressionModel);
+		}
+
+		super.applyOptions(options);
+	}
+
 	@Override
 	public void encodeSchema(RExpEncoder encoder){
 		RGenericVector lm = getObject();
@@ -160,6 +199,11 @@ public class LMConverter extends ModelConverter<RGenericVector> {
 
 		List<Double> featureCoefficients = getFeatureCoefficients(features, coefficients);
 
+		Terms terms = encodeLookupFeatures(features, featureCoefficients);
+
+		features = terms.getFeatures();
+		featureCoefficients = terms.getFeatureCoefficients();
+
 		RegressionModel regressionModel = new RegressionModel(MiningFunction.REGRESSION, ModelUtil.createMiningSchema(schema), null)
 			.addRegressionTables(RegressionModelUtil.createRegressionTable(features, intercept, featureCoefficients));
 
@@ -192,11 +236,176 @@ public class LMConverter extends ModelConverter<RGenericVector> {
 		return this.formula.getCoefficient(feature, coefficients);
 	}
 
+	/**
+	 * <p>
+	 * Replaces the dummy-coded binary features of a high-cardinality factor with a single continuous feature,
+	 * whose value is looked up from a level-to-coefficient table.
+	 * The coefficient of the replacement feature is <code>1</code>.
+	 * </p>
+	 *
+	 * @param features The list of features. Not modified.
+	 * @param featureCoefficients The list of feature coefficients. Not modified.
+	 *
+	 * @return The new lists of features and feature coefficients.
+	 *
+	 * @see #getLookupLevels()
+	 */
+	public Terms encodeLookupFeatures(List<? extends Feature> features, List<Double> featureCoefficients){
+		int lookupLevels = getLookupLevels();
+
+		if(lookupLevels < 0){
+			return new Terms(new ArrayList<>(features), new ArrayList<>(featureCoefficients));
+		}
+
+		Map<FieldName, List<Integer>> fieldIndices = new LinkedHashMap<>();
+
+		for(int i = 0; i < features.size(); i++){
+			Feature feature = features.get(i);
+
+			// Binary features that are part of interaction terms are wrapped into interaction features
+			if(!(feature instanceof BinaryFeature)){
+				continue;
+			}
+
+			List<Integer> indices = fieldIndices.get(feature.getName());
+			if(indices == null){
+				indices = new ArrayList<>();
+
+				fieldIndices.put(feature.getName(), indices);
+			}
+
+			indices.add(i);
+		}
+
+		Feature[] lookupFeatures = new Feature[features.size()];
+
+		Collection<Map.Entry<FieldName, List<Integer>>> entries = fieldIndices.entrySet();
+		for(Map.Entry<FieldName, List<Integer>> entry : entries){
+			FieldName name = entry.getKey();
+			List<Integer> indices = entry.getValue();
+
+			if(indices.size() < lookupLevels){
+				continue;
+			}
+
+			Map<String, Double> mapping = new LinkedHashMap<>();
+
+			for(Integer index : indices){
+				BinaryFeature binaryFeature = (BinaryFeature)features.get(index);
+				Double coefficient = featureCoefficients.get(index);
+
+				// The reference level, and levels whose coefficient is zero or not available, are mapped to the default value
+				if(coefficient == null || coefficient.isNaN() || coefficient == 0d){
+					continue;
+				}
+
+				mapping.put(binaryFeature.getValue(), coefficient);
+			}
+
+			PMMLEncoder encoder = (features.get(indices.get(0))).getEncoder();
+
+			DerivedField derivedField = encoder.createDerivedField(FieldName.create("lookup(" + name.getValue() + ")"), OpType.CONTINUOUS, DataType.DOUBLE, createLookupTable(name, mapping));
+
+			Feature lookupFeature = new ContinuousFeature(encoder, derivedField);
+
+			for(Integer index : indices){
+				lookupFeatures[index] = lookupFeature;
+			}
+		}
+
+		List<Feature> resultFeatures = new ArrayList<>();
+		List<Double> resultFeatureCoefficients = new ArrayList<>();
+
+		Set<Feature> encodedLookupFeatures = Collections.newSetFromMap(new IdentityHashMap<Feature, Boolean>());
+
+		for(int i = 0; i < features.size(); i++){
+			Feature lookupFeature = lookupFeatures[i];
+
+			if(lookupFeature == null){
+				resultFeatures.add(features.get(i));
+				resultFeatureCoefficients.add(featureCoefficients.get(i));
+
+				continue;
+			} // End if
+
+			// Keep the replacement feature in the position of the first binary feature
+			if(encodedLookupFeatures.add(lookupFeature)){
+				resultFeatures.add(lookupFeature);
+				resultFeatureCoefficients.add(1d);
+			}
+		}
+
+		return new Terms(resultFeatures, resultFeatureCoefficients);
+	}
+
+	/**
+	 * @return The minimum number of dummy-coded coefficients (ie. non-reference levels) for a factor to be encoded as a lookup table, or <code>-1</code> if factors should be encoded as binary features.
+	 *
+	 * @see #encodeLookupFeatures(List, List)
+	 */
+	public int getLookupLevels(){
+		return this.lookupLevels;
+	}
+
+	public void setLookupLevels(int lookupLevels){
+
+		if(lookupLevels < 1 && lookupLevels != -1){
+			throw new IllegalArgumentException("The lookup table level count must be a positive integer, got " + lookupLevels);
+		}
+
+		this.lookupLevels = lookupLevels;
+	}
+
+	/**
+	 * <p>
+	 * If <code>true</code>, then generalized linear models are encoded as a regression model whenever its link function can be represented as a normalization method.
+	 * If <code>false</code>, then generalized linear models are encoded as a general regression model.
+	 * </p>
+	 */
+	public boolean isUseRegressionModel(){
+		return this.useRegressionModel;
+	}
+
+	public void setUseRegressionModel(boolean useRegressionModel){
+		this.useRegressionModel = useRegressionModel;
+	}
+
+	static
+	private MapValues createLookupTable(FieldName name, Map<String, Double> mapping){
+		List<String> columns = Arrays.asList("level", "coefficient");
+
+		InlineTable inlineTable = new InlineTable();
+
+		DocumentBuilder documentBuilder = DOMUtil.createDocumentBuilder();
+
+		Collection<Map.Entry<String, Double>> entries = mapping.entrySet();
+		for(Map.Entry<String, Double> entry : entries){
+			Row row = DOMUtil.createRow(documentBuilder, columns, Arrays.asList(entry.getKey(), ValueUtil.formatValue(entry.getValue())));
+
+			inlineTable.addRows(row);
+		}
+
+		MapValues mapValues = new MapValues()
+			.addFieldColumnPairs(new FieldColumnPair(name, columns.get(0)))
+			.setOutputColumn(columns.get(1))
+			.setDataType(DataType.DOUBLE)
+			.setDefaultValue("0")
+			.setInlineTable(inlineTable);
+
+		return mapValues;
+	}
+
 	/**
 	 * Splits a string by single colon characters (':'), ignoring sequences of two or three colon characters ("::" and ":::").
 	 */
 	static
 	List<String> split(String string){
+
+		// Main effect terms do not contain colon characters at all
+		if(string.indexOf(':') < 0){
+			return Collections.singletonList(string);
+		}
+
 		List<String> result = new ArrayList<>();
 
 		int pos = 0;
@@ -232,5 +441,37 @@ public class LMConverter extends ModelConverter<RGenericVector> {
 		return result;
 	}
 
+	/**
+	 * <p>
+	 * A list of features, and the list of their coefficients.
+	 * </p>
+	 */
+	static
+	public class Terms {
+
+		private List<Feature> features = null;
+
+		private List<Double> featureCoefficients = null;
+
+
+		public Terms(List<Feature> features, List<Double> featureCoefficients){
+
+			if(features.size() != featureCoefficients.size()){
+				throw new IllegalArgumentException();
+			}
+
+			this.features = features;
+			this.featureCoefficients = featureCoefficients;
+		}
+
+		public List<Feature> getFeatures(){
+			return this.features;
+		}
+
+		public List<Double> getFeatureCoefficients(){
+			return this.featureCoefficients;
+		}
+	}
+
 	public static final String INTERCEPT = "(Intercept)";
 }
\ No newline at end of file
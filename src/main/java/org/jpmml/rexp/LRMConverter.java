@@ -25,6 +25,7 @@ import org.dmg.pmml.MiningFunction;
 import org.dmg.pmml.Model;
 import org.dmg.pmml.OpType;
 import org.dmg.pmml.general_regression.GeneralRegressionModel;
+import org.dmg.pmml.regression.RegressionModel;
 import org.jpmml.converter.CategoricalLabel;
 import org.jpmml.converter.Feature;
 import org.jpmml.converter.Label;
@@ -77,6 +78,11 @@ public class LRMConverter extends RMSConverter {
 
 		List<Double> featureCoefficients = getFeatureCoefficients(features, coefficients);
 
+		Terms terms = encodeLookupFeatures(features, featureCoefficients);
+
+		features = terms.getFeatures();
+		featureCoefficients = terms.getFeatureCoefficients();
+
 		String targetCategory = null;
 
 		if(label instanceof CategoricalLabel){
@@ -89,6 +95,16 @@ public class LRMConverter extends RMSConverter {
 			targetCategory = categoricalLabel.getValue(1);
 		}
 
+		if(isUseRegressionModel()){
+			RegressionModel regressionModel = LinearModelUtil.encodeRegressionModel(schema, features, intercept, featureCoefficients, GeneralRegressionModel.LinkFunction.LOGIT, targetCategory);
+
+			if(regressionModel != null){
+				regressionModel.setOutput(ModelUtil.createProbabilityOutput(schema));
+
+				return regressionModel;
+			}
+		}
+
 		GeneralRegressionModel generalRegressionModel = new GeneralRegressionModel(GeneralRegressionModel.ModelType.GENERALIZED_LINEAR, MiningFunction.CLASSIFICATION, ModelUtil.createMiningSchema(schema), null, null, null)
 			.setLinkFunction(GeneralRegressionModel.LinkFunction.LOGIT)
 			.setOutput(ModelUtil.createProbabilityOutput(schema));
@@ -0,0 +1,121 @@
+/*
+ * Copyright (c) 2017 Villu Ruusmann
+ *
+ * This file is part of JPMML-R
+ *
+ * JPMML-R is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JPMML-R is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with JPMML-R.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.jpmml.rexp;
+
+import java.util.List;
+
+import org.dmg.pmml.MiningFunction;
+import org.dmg.pmml.general_regression.GeneralRegressionModel;
+import org.dmg.pmml.regression.RegressionModel;
+import org.dmg.pmml.regression.RegressionTable;
+import org.jpmml.converter.CategoricalLabel;
+import org.jpmml.converter.Feature;
+import org.jpmml.converter.ModelUtil;
+import org.jpmml.converter.Schema;
+import org.jpmml.converter.regression.RegressionModelUtil;
+
+/**
+ * <p>
+ * Utility methods for encoding generalized linear models as regression models (instead of general regression models).
+ * </p>
+ */
+public class LinearModelUtil {
+
+	private LinearModelUtil(){
+	}
+
+	/**
+	 * @param targetCategory The target category of a binary classification model, or <code>null</code> for regression models.
+	 *
+	 * @return A regression model, or <code>null</code> if the link function cannot be represented as a normalization method.
+	 */
+	static
+	public RegressionModel encodeRegressionModel(Schema schema, List<? extends Feature> features, Double intercept, List<Double> featureCoefficients, GeneralRegressionModel.LinkFunction linkFunction, String targetCategory){
+		MiningFunction miningFunction = (targetCategory != null ? MiningFunction.CLASSIFICATION : MiningFunction.REGRESSION);
+
+		RegressionModel.NormalizationMethod normalizationMethod = parseNormalizationMethod(miningFunction, linkFunction);
+		if(normalizationMethod == null){
+			return null;
+		}
+
+		RegressionTable regressionTable = RegressionModelUtil.createRegressionTable(features, intercept, featureCoefficients);
+
+		RegressionModel regressionModel = new RegressionModel(miningFunction, ModelUtil.createMiningSchema(schema), null)
+			.addRegressionTables(regressionTable);
+
+		if(!(RegressionModel.NormalizationMethod.NONE).equals(normalizationMethod)){
+			regressionModel.setNormalizationMethod(normalizationMethod);
+		}
+
+		switch(miningFunction){
+			case CLASSIFICATION:
+				{
+					CategoricalLabel categoricalLabel = (CategoricalLabel)schema.getLabel();
+
+					if(categoricalLabel.size() != 2 || !(targetCategory).equals(categoricalLabel.getValue(1))){
+						throw new IllegalArgumentException();
+					}
+
+					regressionTable.setTargetCategory(targetCategory);
+
+					// The probability of the first category is normalized, and the probability of the second category is its complement
+					regressionModel.addRegressionTables(new RegressionTable(0d).setTargetCategory(categoricalLabel.getValue(0)));
+				}
+				break;
+			default:
+				break;
+		}
+
+		return regressionModel;
+	}
+
+	/**
+	 * @return The normalization method that is equivalent to the inverse of the link function, or <code>null</code> if there is no such normalization method.
+	 */
+	static
+	public RegressionModel.NormalizationMethod parseNormalizationMethod(MiningFunction miningFunction, GeneralRegressionModel.LinkFunction linkFunction){
+
+		switch(miningFunction){
+			case REGRESSION:
+				switch(linkFunction){
+					case IDENTITY:
+						return RegressionModel.NormalizationMethod.NONE;
+					case LOG:
+						return RegressionModel.NormalizationMethod.EXP;
+					case LOGIT:
+						return RegressionModel.NormalizationMethod.LOGIT;
+					default:
+						return null;
+				}
+			case CLASSIFICATION:
+				switch(linkFunction){
+					case CLOGLOG:
+						return RegressionModel.NormalizationMethod.CLOGLOG;
+					case LOGIT:
+						return RegressionModel.NormalizationMethod.LOGIT;
+					case PROBIT:
+						return RegressionModel.NormalizationMethod.PROBIT;
+					default:
+						return null;
+				}
+			default:
+				return null;
+		}
+	}
+}
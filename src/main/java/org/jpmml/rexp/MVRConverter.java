@@ -26,8 +26,10 @@ import org.dmg.pmml.DataType;
 import org.dmg.pmml.DerivedField;
 import org.dmg.pmml.FieldName;
 import org.dmg.pmml.MiningFunction;
+import org.dmg.pmml.Model;
 import org.dmg.pmml.OpType;
 import org.dmg.pmml.general_regression.GeneralRegressionModel;
+import org.dmg.pmml.regression.RegressionModel;
 import org.jpmml.converter.ContinuousFeature;
 import org.jpmml.converter.Feature;
 import org.jpmml.converter.FortranMatrixUtil;
@@ -39,10 +41,23 @@ import org.jpmml.converter.general_regression.GeneralRegressionModelUtil;
 
 public class MVRConverter extends ModelConverter<RGenericVector> {
 
+	private boolean useRegressionModel = false;
+
+
 	public MVRConverter(RGenericVector mvr){
 		super(mvr);
 	}
 
+	@Override
+	public void applyOptions(ConverterOptions options){
+		Boolean useRegressionModel = options.removeBoolean(ConverterOptions.REGRESSION_MODEL);
+		if(useRegressionModel != null){
+			setUseRegressionModel(useRegressionModel);
+		}
+
+		super.applyOptions(options);
+	}
+
 	@Override
 	public void encodeSchema(RExpEncoder encoder){
 		RGenericVector mvr = getObject();
@@ -116,7 +131,7 @@ public class MVRConverter extends ModelConverter<RGenericVector> {
 	}
 
 	@Override
-	public GeneralRegressionModel encodeModel(Schema schema){
+	public Model encodeModel(Schema schema){
 		RGenericVector mvr = getObject();
 
 		RDoubleVector coefficients = (RDoubleVector)mvr.getValue("coefficients");
@@ -142,6 +157,12 @@ public class MVRConverter extends ModelConverter<RGenericVector> {
 			intercept -= (featureCoefficients.get(j) * xMeans.getValue(j));
 		}
 
+		if(isUseRegressionModel()){
+			RegressionModel regressionModel = LinearModelUtil.encodeRegressionModel(schema, features, intercept, featureCoefficients, GeneralRegressionModel.LinkFunction.IDENTITY, null);
+
+			return regressionModel;
+		}
+
 		GeneralRegressionModel generalRegressionModel = new GeneralRegressionModel(GeneralRegressionModel.ModelType.GENERALIZED_LINEAR, MiningFunction.REGRESSION, ModelUtil.createMiningSchema(schema), null, null, null)
 			.setLinkFunction(GeneralRegressionModel.LinkFunction.IDENTITY);
 
@@ -149,4 +170,18 @@ public class MVRConverter extends ModelConverter<RGenericVector> {
 
 		return generalRegressionModel;
 	}
+
+	/**
+	 * <p>
+	 * If <code>true</code>, then the model is encoded as a regression model.
+	 * If <code>false</code>, then the model is encoded as a general regression model.
+	 * </p>
+	 */
+	public boolean isUseRegressionModel(){
+		return this.useRegressionModel;
+	}
+
+	public void setUseRegressionModel(boolean useRegressionModel){
+		this.useRegressionModel = useRegressionModel;
+	}
 }
\ No newline at end of file
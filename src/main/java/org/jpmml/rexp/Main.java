@@ -23,7 +23,13 @@ import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.lang.reflect.Method;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
+import com.beust.jcommander.DynamicParameter;
 import com.beust.jcommander.JCommander;
 import com.beust.jcommander.Parameter;
 import com.beust.jcommander.ParameterException;
@@ -61,6 +67,36 @@ public class Main {
 	)
 	private File output = null;
 
+	@Parameter (
+		names = "--metrics-output",
+		description = "Conversion metrics JSON output file"
+	)
+	private File metricsOutput = null;
+
+	@Parameter (
+		names = "--memory-budget",
+		description = "The maximum estimated memory usage of the conversion (bytes, or with a K, M or G suffix). Alias for -X memory_budget=<value>"
+	)
+	private String memoryBudget = null;
+
+	@Parameter (
+		names = "--ntree-limit",
+		description = "Convert only the first N trees (boosting iterations) of an ensemble model. Alias for -X ntree_limit=<value>"
+	)
+	private Integer ntreeLimit = null;
+
+	@Parameter (
+		names = "--compact-trees",
+		description = "Compact tree models. Alias for -X compact=true"
+	)
+	private boolean compactTrees = false;
+
+	@DynamicParameter (
+		names = "-X",
+		description = "Converter option. For example, -X ntree_limit=100"
+	)
+	private Map<String, String> options = new LinkedHashMap<>();
+
 
 	static
 	public void main(String... args) throws Exception {
@@ -98,12 +134,29 @@ public class Main {
 	}
 
 	public void run() throws Exception {
+		CompositeConversionListener listener = new CompositeConversionListener();
+
+		ConversionMetrics metrics = null;
+
+		if(this.metricsOutput != null){
+			metrics = new ConversionMetrics();
+
+			listener.addListener(metrics);
+		}
+
+		ConversionListener flightRecorderListener = createFlightRecorderListener();
+
+		if(flightRecorderListener != null){
+			listener.addListener(flightRecorderListener);
+		}
+
 		RExp rexp;
 
 		try(InputStream is = new FileInputStream(this.input)){
 			logger.info("Parsing RDS..");
 
 			RExpParser parser = new RExpParser(is);
+			parser.setListener(listener);
 
 			long start = System.currentTimeMillis();
 			rexp = parser.parse();
@@ -116,6 +169,8 @@ public class Main {
 			throw e;
 		}
 
+		ConverterOptions options = createOptions();
+
 		ConverterFactory converterFactory = ConverterFactory.newInstance();
 
 		Converter<RExp> converter;
@@ -125,21 +180,31 @@ public class Main {
 
 			Class<? extends Converter> clazz = (Class<? extends Converter>)Class.forName(this.converter);
 
-			converter = converterFactory.newConverter(clazz, rexp);
+			converter = converterFactory.newConverter(clazz, rexp, options);
 		} else
 
 		{
 			logger.info("Initializing default Converter");
 
-			converter = converterFactory.newConverter(rexp);
+			converter = converterFactory.newConverter(rexp, options);
 		} // End if
 
 		{
 			Class<?> clazz = converter.getClass();
 
 			logger.info("Initialized {}", clazz.getName());
+
+			if(metrics != null){
+				metrics.setConverter(clazz.getName());
+			} // End if
+
+			if(flightRecorderListener != null){
+				setConverter(flightRecorderListener, clazz.getName());
+			}
 		}
 
+		converter.setListener(listener);
+
 		PMML pmml;
 
 		try {
@@ -159,8 +224,16 @@ public class Main {
 		try(OutputStream os = new FileOutputStream(this.output)){
 			logger.info("Marshalling PMML..");
 
+			listener.phaseStarted(ConversionPhase.MARSHAL);
+
 			long start = System.currentTimeMillis();
-			MetroJAXBUtil.marshalPMML(pmml, os);
+
+			try {
+				MetroJAXBUtil.marshalPMML(pmml, os);
+			} finally {
+				listener.phaseFinished(ConversionPhase.MARSHAL);
+			}
+
 			long end = System.currentTimeMillis();
 
 			logger.info("Marshalled PMML in {} ms.", (end - start));
@@ -168,6 +241,15 @@ public class Main {
 			logger.error("Failed to marshal PMML", e);
 
 			throw e;
+		} // End try
+
+		if(metrics != null){
+
+			try(Writer writer = new OutputStreamWriter(new FileOutputStream(this.metricsOutput), "UTF-8")){
+				logger.info("Writing conversion metrics..");
+
+				metrics.writeJson(writer);
+			}
 		}
 	}
 
@@ -205,5 +287,105 @@ public class Main {
 		this.output = output;
 	}
 
+	public File getMetricsOutput(){
+		return this.metricsOutput;
+	}
+
+	public void setMetricsOutput(File metricsOutput){
+		this.metricsOutput = metricsOutput;
+	}
+
+	public String getMemoryBudget(){
+		return this.memoryBudget;
+	}
+
+	public void setMemoryBudget(String memoryBudget){
+		this.memoryBudget = memoryBudget;
+	}
+
+	public Integer getNtreeLimit(){
+		return this.ntreeLimit;
+	}
+
+	public void setNtreeLimit(Integer ntreeLimit){
+		this.ntreeLimit = ntreeLimit;
+	}
+
+	public boolean getCompactTrees(){
+		return this.compactTrees;
+	}
+
+	public void setCompactTrees(boolean compactTrees){
+		this.compactTrees = compactTrees;
+	}
+
+	public Map<String, String> getOptions(){
+		return this.options;
+	}
+
+	public void setOptions(Map<String, String> options){
+		this.options = options;
+	}
+
+	/**
+	 * <p>
+	 * Collects the converter options.
+	 * The dedicated command-line flags are aliases for the corresponding generic options, and take precedence over them.
+	 * </p>
+	 */
+	private ConverterOptions createOptions(){
+		ConverterOptions result = new ConverterOptions(this.options);
+
+		if(this.memoryBudget != null){
+			result.put(ConverterOptions.MEMORY_BUDGET, this.memoryBudget);
+		} // End if
+
+		if(this.ntreeLimit != null){
+			result.put(ConverterOptions.NTREE_LIMIT, this.ntreeLimit);
+		} // End if
+
+		if(this.compactTrees){
+			result.put(ConverterOptions.COMPACT, true);
+		}
+
+		return result;
+	}
+
+	/**
+	 * <p>
+	 * The {@link ConversionListener} that emits Java Flight Recorder events is built from an optional source set (the "jfr" profile),
+	 * because the <code>jdk.jfr</code> API is not available in all supported Java versions.
+	 * </p>
+	 *
+	 * @return The listener, or <code>null</code> if it was not built or if the JVM does not provide the <code>jdk.jfr</code> API.
+	 */
+	static
+	private ConversionListener createFlightRecorderListener(){
+
+		try {
+			Class.forName("jdk.jfr.Event");
+
+			Class<? extends ConversionListener> clazz = (Class.forName(Main.FLIGHT_RECORDER_LISTENER)).asSubclass(ConversionListener.class);
+
+			return clazz.newInstance();
+		} catch(ReflectiveOperationException | LinkageError e){
+			return null;
+		}
+	}
+
+	static
+	private void setConverter(ConversionListener listener, String converter){
+
+		try {
+			Method method = (listener.getClass()).getMethod("setConverter", String.class);
+
+			method.invoke(listener, converter);
+		} catch(ReflectiveOperationException roe){
+			throw new IllegalArgumentException(roe);
+		}
+	}
+
+	private static final String FLIGHT_RECORDER_LISTENER = "org.jpmml.rexp.FlightRecorderListener";
+
 	private static final Logger logger = LoggerFactory.getLogger(Main.class);
 }
\ No newline at end of file
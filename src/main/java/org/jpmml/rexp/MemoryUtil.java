@@ -0,0 +1,119 @@
+/*
+ * Copyright (c) 2017 Villu Ruusmann
+ *
+ * This file is part of JPMML-R
+ *
+ * JPMML-R is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JPMML-R is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with JPMML-R.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.jpmml.rexp;
+
+/**
+ * <p>
+ * Heap usage estimates for PMML class model objects.
+ * </p>
+ *
+ * <p>
+ * Estimates are deliberately on the high side.
+ * They cover the retained objects plus the short-lived garbage that is allocated during encoding,
+ * as measured by {@link ConversionMetrics} on typical tree ensemble models.
+ * </p>
+ */
+public class MemoryUtil {
+
+	private MemoryUtil(){
+	}
+
+	/**
+	 * @param trees The number of trees.
+	 * @param nodes The total number of nodes in all trees.
+	 */
+	static
+	public long estimateTreeModels(long trees, long nodes){
+		return (trees * MemoryUtil.TREE_MODEL_BYTES) + (nodes * MemoryUtil.NODE_BYTES);
+	}
+
+	/**
+	 * @param values The total number of values in all categorical splits.
+	 */
+	static
+	public long estimateSplitValues(long values){
+		return (values * MemoryUtil.SPLIT_VALUE_BYTES);
+	}
+
+	static
+	public String formatBytes(long bytes){
+
+		if(bytes >= (1L << 30)){
+			return String.format("%.1f GB", (double)bytes / (double)(1L << 30));
+		} else
+
+		if(bytes >= (1L << 20)){
+			return String.format("%.1f MB", (double)bytes / (double)(1L << 20));
+		} else
+
+		if(bytes >= (1L << 10)){
+			return String.format("%.1f kB", (double)bytes / (double)(1L << 10));
+		}
+
+		return (bytes + " B");
+	}
+
+	static
+	public long parseBytes(String string){
+		string = string.trim();
+
+		if(string.isEmpty()){
+			throw new IllegalArgumentException("Invalid number of bytes: an empty string");
+		}
+
+		long multiplier = 1L;
+
+		char unit = Character.toUpperCase(string.charAt(string.length() - 1));
+		switch(unit){
+			case 'K':
+				multiplier = (1L << 10);
+				break;
+			case 'M':
+				multiplier = (1L << 20);
+				break;
+			case 'G':
+				multiplier = (1L << 30);
+				break;
+			default:
+				break;
+		}
+
+		if(multiplier > 1L){
+			string = string.substring(0, string.length() - 1);
+		}
+
+		long value;
+
+		try {
+			value = Long.parseLong(string.trim());
+		} catch(NumberFormatException nfe){
+			throw new IllegalArgumentException("Invalid number of bytes: " + string, nfe);
+		}
+
+		if(value < 0L){
+			throw new IllegalArgumentException("Invalid number of bytes: " + string);
+		}
+
+		return (value * multiplier);
+	}
+
+	private static final long TREE_MODEL_BYTES = 4096L;
+	private static final long NODE_BYTES = 640L;
+	private static final long SPLIT_VALUE_BYTES = 48L;
+}
@@ -18,13 +18,24 @@
  */
 package org.jpmml.rexp;
 
+import java.util.List;
+
 import org.dmg.pmml.Model;
 import org.dmg.pmml.PMML;
+import org.dmg.pmml.VisitorAction;
+import org.dmg.pmml.tree.Node;
+import org.dmg.pmml.tree.TreeModel;
 import org.jpmml.converter.Schema;
+import org.jpmml.model.visitors.AbstractVisitor;
 
 abstract
 public class ModelConverter<R extends RExp> extends Converter<R> {
 
+	private boolean foldPreProcess = false;
+
+	private boolean eliminateSubexpressions = false;
+
+
 	public ModelConverter(R object){
 		super(object);
 	}
@@ -35,6 +46,21 @@ public class ModelConverter<R extends RExp> extends Converter<R> {
 	abstract
 	public Model encodeModel(Schema schema);
 
+	@Override
+	public void applyOptions(ConverterOptions options){
+		Boolean foldPreProcess = options.removeBoolean(ConverterOptions.FOLD_PREPROCESS);
+		if(foldPreProcess != null){
+			setFoldPreProcess(foldPreProcess);
+		}
+
+		Boolean eliminateSubexpressions = options.removeBoolean(ConverterOptions.ELIMINATE_SUBEXPRESSIONS);
+		if(eliminateSubexpressions != null){
+			setEliminateSubexpressions(eliminateSubexpressions);
+		}
+
+		super.applyOptions(options);
+	}
+
 	@Override
 	public PMML encodePMML(){
 		RExp object = getObject();
@@ -60,7 +86,7 @@ public class ModelConverter<R extends RExp> extends Converter<R> {
 		RExpEncoder encoder;
 
 		if(preProcess != null){
-			encoder = new PreProcessEncoder(preProcess);
+			encoder = createPreProcessEncoder(preProcess);
 		} else
 
 		{
@@ -71,14 +97,211 @@ public class ModelConverter<R extends RExp> extends Converter<R> {
 	}
 
 	public PMML encodePMML(RExpEncoder encoder){
-		encodeSchema(encoder);
+		ConversionListener listener = getListener();
+
+		checkMemoryBudget();
+
+		Schema schema;
+
+		phaseStarted(ConversionPhase.ENCODE_SCHEMA);
+
+		try {
+			encodeSchema(encoder);
+
+			schema = encoder.createSchema();
+
+			if(listener != null){
+				listener.featuresEncoded((schema.getFeatures()).size());
+			}
+		} finally {
+			phaseFinished(ConversionPhase.ENCODE_SCHEMA);
+		}
+
+		Model model;
 
-		Schema schema = encoder.createSchema();
+		phaseStarted(ConversionPhase.ENCODE_MODEL);
 
-		Model model = encodeModel(schema);
+		try {
+			model = encodeModel(schema);
+		} finally {
+			phaseFinished(ConversionPhase.ENCODE_MODEL);
+		}
+
+		PMML pmml;
+
+		phaseStarted(ConversionPhase.ENCODE_PMML);
+
+		try {
+			encoder.setListener(listener);
+
+			pmml = encoder.encodePMML(model);
 
-		PMML pmml = encoder.encodePMML(model);
+			if(isEliminateSubexpressions()){
+				SubexpressionEliminator eliminator = new SubexpressionEliminator();
+				eliminator.applyTo(pmml);
+			}
+		} finally {
+			phaseFinished(ConversionPhase.ENCODE_PMML);
+		}
 
 		return pmml;
 	}
+
+	/**
+	 * <p>
+	 * Estimates the peak heap usage of the {@link #encodePMML(RExpEncoder)} method, not counting the R object itself.
+	 * The estimate should be computed from the R object without encoding anything.
+	 * </p>
+	 *
+	 * @return The estimated number of bytes, or <code>-1</code> if the memory usage cannot be estimated.
+	 */
+	public long estimateMemoryUsage(){
+		return -1L;
+	}
+
+	/**
+	 * @throws IllegalArgumentException If the conversion should be refused.
+	 */
+	private void checkMemoryBudget(){
+		long memoryBudget = getMemoryBudget();
+
+		if(memoryBudget < 0L){
+			return;
+		}
+
+		long memoryUsage = estimateMemoryUsage();
+
+		if(memoryUsage <= memoryBudget){
+			return;
+		}
+
+		throw new IllegalArgumentException("The estimated memory usage of the conversion (" + MemoryUtil.formatBytes(memoryUsage) + ") exceeds the memory budget (" + MemoryUtil.formatBytes(memoryBudget) + ")");
+	}
+
+	private void phaseStarted(ConversionPhase phase){
+		ConversionListener listener = getListener();
+
+		if(listener != null){
+			listener.phaseStarted(phase);
+		}
+	}
+
+	private void phaseFinished(ConversionPhase phase){
+		ConversionListener listener = getListener();
+
+		if(listener != null){
+			listener.phaseFinished(phase);
+		}
+	}
+
+	/**
+	 * @param ntree The number of trees (boosting iterations) in the ensemble.
+	 *
+	 * @return The number of leading trees (boosting iterations) to convert.
+	 *
+	 * @see #getNtreeLimit()
+	 */
+	public int limitTrees(int ntree){
+		int ntreeLimit = getNtreeLimit();
+
+		if(ntreeLimit > -1){
+			return Math.min(ntree, ntreeLimit);
+		}
+
+		return ntree;
+	}
+
+	/**
+	 * <p>
+	 * Reports a tree model to the listener as soon as it has been encoded.
+	 * Converters that encode tree ensembles should call this method once per member tree model,
+	 * so that the listener can follow the progress of the {@link ConversionPhase#ENCODE_MODEL} phase.
+	 * </p>
+	 */
+	public void reportTreeModel(TreeModel treeModel){
+		ConversionListener listener = getListener();
+
+		if(listener != null){
+			listener.treeEncoded(countNodes(treeModel.getNode()));
+		}
+	}
+
+	/**
+	 * <p>
+	 * Reports all tree models that are contained in the specified model.
+	 * </p>
+	 *
+	 * @see #reportTreeModel(TreeModel)
+	 */
+	public void reportTreeModels(Model model){
+		ConversionListener listener = getListener();
+
+		if(listener == null){
+			return;
+		}
+
+		AbstractVisitor visitor = new AbstractVisitor(){
+
+			@Override
+			public VisitorAction visit(TreeModel treeModel){
+				reportTreeModel(treeModel);
+
+				return VisitorAction.SKIP;
+			}
+		};
+		visitor.applyTo(model);
+	}
+
+	/**
+	 * <p>
+	 * Creates an encoder for the caret preprocessing that precedes this model.
+	 * </p>
+	 */
+	public PreProcessEncoder createPreProcessEncoder(RGenericVector preProcess){
+		PreProcessEncoder encoder = new PreProcessEncoder(preProcess);
+		encoder.setFoldTransformations(isFoldPreProcess());
+
+		return encoder;
+	}
+
+	/**
+	 * @see PreProcessEncoder#isFoldTransformations()
+	 */
+	public boolean isFoldPreProcess(){
+		return this.foldPreProcess;
+	}
+
+	public void setFoldPreProcess(boolean foldPreProcess){
+		this.foldPreProcess = foldPreProcess;
+	}
+
+	/**
+	 * <p>
+	 * Should arithmetic subexpressions that occur more than once in the transformation dictionary be shared between derived fields?
+	 * </p>
+	 *
+	 * @see SubexpressionEliminator
+	 */
+	public boolean isEliminateSubexpressions(){
+		return this.eliminateSubexpressions;
+	}
+
+	public void setEliminateSubexpressions(boolean eliminateSubexpressions){
+		this.eliminateSubexpressions = eliminateSubexpressions;
+	}
+
+	static
+	private int countNodes(Node node){
+		int result = 1;
+
+		if(node.hasNodes()){
+			List<Node> children = node.getNodes();
+
+			for(Node child : children){
+				result += countNodes(child);
+			}
+		}
+
+		return result;
+	}
 }
\ No newline at end of file
@@ -20,6 +20,7 @@ package org.jpmml.rexp;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
@@ -49,16 +50,35 @@ public class RExpEncoder extends ModelEncoder {
 
 	private Map<FieldName, FieldName> renamedFields = new LinkedHashMap<>();
 
+	private ConversionListener listener = null;
+
 
 	@Override
 	public PMML encodePMML(Model model){
 		PMML pmml = super.encodePMML(model);
 
-		Collection<Map.Entry<FieldName, FieldName>> entries = this.renamedFields.entrySet();
-		for(Map.Entry<FieldName, FieldName> entry : entries){
-			FieldRenamer renamer = new FieldRenamer(entry.getKey(), entry.getValue());
+		ConversionListener listener = getListener();
+
+		if(listener != null){
+			listener.phaseStarted(ConversionPhase.RENAME_FIELDS);
+		}
 
-			renamer.applyTo(pmml);
+		try {
+			Map<FieldName, FieldName> mappings = getMappings(this.renamedFields);
+			if(!mappings.isEmpty()){
+				FieldRenamer renamer = new FieldRenamer(mappings);
+
+				renamer.applyTo(pmml);
+			} // End if
+
+			if(listener != null){
+				listener.fieldsRenamed(this.renamedFields.size());
+			}
+		} finally {
+
+			if(listener != null){
+				listener.phaseFinished(ConversionPhase.RENAME_FIELDS);
+			}
 		}
 
 		return pmml;
@@ -137,4 +157,77 @@ public class RExpEncoder extends ModelEncoder {
 	public List<Feature> getFeatures(){
 		return this.features;
 	}
+
+	public ConversionListener getListener(){
+		return this.listener;
+	}
+
+	public void setListener(ConversionListener listener){
+		this.listener = listener;
+	}
+
+	/**
+	 * <p>
+	 * Combines renamings into a single mapping, so that all fields can be renamed in a single traversal.
+	 * Renamings are chained in the order of registration (eg. renamings <code>a -&gt; b</code> and <code>b -&gt; c</code> rename <code>a</code> to <code>c</code>).
+	 * </p>
+	 */
+	static
+	Map<FieldName, FieldName> getMappings(Map<FieldName, FieldName> renamedFields){
+		// Reverse index from a (partially) renamed name to all the names that currently map to it
+		Map<FieldName, List<FieldName>> names = new HashMap<>();
+
+		Collection<Map.Entry<FieldName, FieldName>> entries = renamedFields.entrySet();
+		for(Map.Entry<FieldName, FieldName> entry : entries){
+			FieldName from = entry.getKey();
+			FieldName to = entry.getValue();
+
+			List<FieldName> fromNames = names.remove(from);
+			if(fromNames == null){
+				fromNames = new ArrayList<>();
+			}
+
+			fromNames.add(from);
+
+			List<FieldName> toNames = names.get(to);
+
+			// Append the smaller list to the larger list
+			if(toNames == null){
+				names.put(to, fromNames);
+			} else
+
+			if(toNames.size() < fromNames.size()){
+				fromNames.addAll(toNames);
+
+				names.put(to, fromNames);
+			} else
+
+			{
+				toNames.addAll(fromNames);
+			}
+		}
+
+		Map<FieldName, FieldName> renamedNames = new HashMap<>();
+
+		Collection<Map.Entry<FieldName, List<FieldName>>> nameEntries = names.entrySet();
+		for(Map.Entry<FieldName, List<FieldName>> nameEntry : nameEntries){
+			FieldName renamedName = nameEntry.getKey();
+
+			for(FieldName name : nameEntry.getValue()){
+				renamedNames.put(name, renamedName);
+			}
+		}
+
+		Map<FieldName, FieldName> result = new LinkedHashMap<>();
+
+		for(FieldName name : renamedFields.keySet()){
+			FieldName renamedName = renamedNames.get(name);
+
+			if(!(renamedName).equals(name)){
+				result.put(name, renamedName);
+			}
+		}
+
+		return result;
+	}
 }
\ No newline at end of file
@@ -29,19 +29,53 @@ import java.util.List;
 import java.util.zip.GZIPInputStream;
 
 import com.google.common.io.ByteStreams;
+import com.google.common.io.CountingInputStream;
 
 public class RExpParser {
 
+	private CountingInputStream countingInput = null;
+
 	private RDataInput input = null;
 
 	private List<RExp> referenceTable = new ArrayList<>();
 
+	private ConversionListener listener = null;
+
 
 	public RExpParser(InputStream is) throws IOException {
-		this.input = new XDRInput(init(new PushbackInputStream(is, 2)));
+		this.countingInput = new CountingInputStream(init(new PushbackInputStream(is, 2)));
+
+		this.input = new XDRInput(this.countingInput);
 	}
 
 	public RExp parse() throws IOException {
+		ConversionListener listener = getListener();
+
+		if(listener != null){
+			listener.phaseStarted(ConversionPhase.PARSE);
+		}
+
+		try {
+			return parseInternal();
+		} finally {
+
+			if(listener != null){
+				listener.bytesRead(this.countingInput.getCount());
+
+				listener.phaseFinished(ConversionPhase.PARSE);
+			}
+		}
+	}
+
+	public ConversionListener getListener(){
+		return this.listener;
+	}
+
+	public void setListener(ConversionListener listener){
+		this.listener = listener;
+	}
+
+	private RExp parseInternal() throws IOException {
 		int version = readInt();
 		if(version != 2){
 			throw new IllegalArgumentException(String.valueOf(version));
@@ -67,6 +101,11 @@ public class RExpParser {
 		int flags = readInt();
 
 		int type = SerializationUtil.decodeType(flags);
+
+		if(this.listener != null){
+			this.listener.rexpRead(type);
+		}
+
 		switch(type){
 			case SExpTypes.SYMSXP:
 				return readSymbol();
@@ -18,7 +18,9 @@
  */
 package org.jpmml.rexp;
 
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 import org.dmg.pmml.DataType;
 
@@ -26,6 +28,8 @@ public class RStringVector extends RVector<String> {
 
 	private List<String> values = null;
 
+	private volatile Map<String, Integer> index = null;
+
 
 	public RStringVector(List<String> values, RPair attributes){
 		super(attributes);
@@ -48,6 +52,37 @@ public class RStringVector extends RVector<String> {
 		return this.values.get(index);
 	}
 
+	/**
+	 * <p>
+	 * Long vectors (eg. the names of model coefficients) are indexed on the first lookup,
+	 * so that the cost of subsequent lookups does not depend on the length of the vector.
+	 * </p>
+	 *
+	 * <p>
+	 * The index is published through a volatile field only after it has been fully built, so that concurrent lookups are safe.
+	 * Concurrent first lookups may build the index more than once, but they all build an identical index.
+	 * </p>
+	 */
+	@Override
+	public int indexOf(String value){
+
+		if(this.values.size() < RStringVector.INDEX_THRESHOLD){
+			return super.indexOf(value);
+		}
+
+		Map<String, Integer> index = this.index;
+
+		if(index == null){
+			index = createIndex(this.values);
+
+			this.index = index;
+		}
+
+		Integer result = index.get(value);
+
+		return (result != null ? result : -1);
+	}
+
 	@Override
 	public List<String> getValues(){
 		return this.values;
@@ -56,4 +91,18 @@ public class RStringVector extends RVector<String> {
 	private void setValues(List<String> values){
 		this.values = values;
 	}
+
+	static
+	private Map<String, Integer> createIndex(List<String> values){
+		Map<String, Integer> result = new HashMap<>(2 * values.size());
+
+		for(int i = values.size() - 1; i > -1; i--){
+			// Duplicate values resolve to the first occurrence
+			result.put(values.get(i), i);
+		}
+
+		return result;
+	}
+
+	private static final int INDEX_THRESHOLD = 16;
 }
\ No newline at end of file
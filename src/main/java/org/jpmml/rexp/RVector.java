@@ -19,7 +19,6 @@
 package org.jpmml.rexp;
 
 import java.util.List;
-import java.util.Objects;
 
 import org.dmg.pmml.DataType;
 
@@ -80,14 +79,10 @@ public class RVector<V> extends RExp {
 
 		RStringVector vector = (RStringVector)names.getValue();
 
-		List<String> values = vector.getValues();
-		for(int i = 0; i < values.size(); i++){
-			String value = values.get(i);
-
-			if(Objects.equals(name, value)){
-				return getValue(i);
-			}
-		}
+		int index = vector.indexOf(name);
+		if(index > -1){
+			return getValue(index);
+		} // End if
 
 		if(optional){
 			return null;
@@ -98,6 +98,46 @@ public class RandomForestConverter extends TreeModelConverter<RGenericVector> {
 		}
 	}
 
+	@Override
+	public long estimateMemoryUsage(){
+		RGenericVector randomForest = getObject();
+
+		RGenericVector forest = (RGenericVector)randomForest.getValue("forest");
+
+		RNumberVector<?> ndbigtree = (RNumberVector<?>)forest.getValue("ndbigtree", true);
+		RNumberVector<?> ncat = (RNumberVector<?>)forest.getValue("ncat");
+		RNumberVector<?> bestvar = (RNumberVector<?>)forest.getValue("bestvar");
+		RIntegerVector nrnodes = (RIntegerVector)forest.getValue("nrnodes");
+		RNumberVector<?> ntree = (RNumberVector<?>)forest.getValue("ntree");
+
+		int rows = nrnodes.asScalar();
+		int columns = ValueUtil.asInt(ntree.asScalar());
+
+		long nodes = 0;
+		long values = 0;
+
+		for(int i = 0; i < limitTrees(columns); i++){
+			int treeNodes = (ndbigtree != null ? ValueUtil.asInt(ndbigtree.getValue(i)) : rows);
+
+			nodes += treeNodes;
+
+			for(int j = 0; j < treeNodes; j++){
+				int var = ValueUtil.asInt(bestvar.getValue((i * rows) + j));
+
+				if(var < 1){
+					continue;
+				}
+
+				int categories = ValueUtil.asInt(ncat.getValue(var - 1));
+				if(categories > 1){
+					values += categories;
+				}
+			}
+		}
+
+		return MemoryUtil.estimateTreeModels(limitTrees(columns), nodes) + MemoryUtil.estimateSplitValues(values);
+	}
+
 	private void encodeFormula(RExp terms, RNumberVector<?> y, final RGenericVector xlevels, final RNumberVector<?> ncat, RExpEncoder encoder){
 		RIntegerVector response = (RIntegerVector)terms.getAttributeValue("response");
 
@@ -234,7 +274,7 @@ public class RandomForestConverter extends TreeModelConverter<RGenericVector> {
 
 		List<TreeModel> treeModels = new ArrayList<>();
 
-		for(int i = 0; i < columns; i++){
+		for(int i = 0; i < limitTrees(columns); i++){
 			TreeModel treeModel = encodeTreeModel(
 					MiningFunction.REGRESSION,
 					scoreEncoder,
@@ -247,6 +287,8 @@ public class RandomForestConverter extends TreeModelConverter<RGenericVector> {
 				);
 
 			treeModels.add(treeModel);
+
+			reportTreeModel(treeModel);
 		}
 
 		MiningModel miningModel = new MiningModel(MiningFunction.REGRESSION, ModelUtil.createMiningSchema(schema))
@@ -281,7 +323,7 @@ public class RandomForestConverter extends TreeModelConverter<RGenericVector> {
 
 		List<TreeModel> treeModels = new ArrayList<>();
 
-		for(int i = 0; i < columns; i++){
+		for(int i = 0; i < limitTrees(columns); i++){
 			List<? extends Number> daughters = FortranMatrixUtil.getColumn(treemap.getValues(), 2 * rows, columns, i);
 
 			TreeModel treeModel = encodeTreeModel(
@@ -296,6 +338,8 @@ public class RandomForestConverter extends TreeModelConverter<RGenericVector> {
 				);
 
 			treeModels.add(treeModel);
+
+			reportTreeModel(treeModel);
 		}
 
 		MiningModel miningModel = new MiningModel(MiningFunction.CLASSIFICATION, ModelUtil.createMiningSchema(schema))
@@ -310,19 +354,39 @@ public class RandomForestConverter extends TreeModelConverter<RGenericVector> {
 			.setId("1")
 			.setPredicate(new True());
 
-		encodeNode(root, 0, scoreEncoder, leftDaughter, rightDaughter, bestvar, xbestsplit, nodepred, schema);
+		encodeNode(root, 0, 0, miningFunction, scoreEncoder, leftDaughter, rightDaughter, bestvar, xbestsplit, nodepred, schema);
 
 		TreeModel treeModel = new TreeModel(miningFunction, ModelUtil.createMiningSchema(schema), root)
 			.setSplitCharacteristic(TreeModel.SplitCharacteristic.BINARY_SPLIT);
 
-		return treeModel;
+		return pruneTreeModel(treeModel, schema);
 	}
 
-	private <P extends Number> void encodeNode(Node node, int i, ScoreEncoder<P> scoreEncoder, List<? extends Number> leftDaughter, List<? extends Number> rightDaughter, List<? extends Number> bestvar, List<Double> xbestsplit, List<P> nodepred, Schema schema){
+	private <P extends Number> void encodeNode(Node node, int i, int depth, MiningFunction miningFunction, ScoreEncoder<P> scoreEncoder, List<? extends Number> leftDaughter, List<? extends Number> rightDaughter, List<? extends Number> bestvar, List<Double> xbestsplit, List<P> nodepred, Schema schema){
 		Predicate leftPredicate;
 		Predicate rightPredicate;
 
 		int var = ValueUtil.asInt(bestvar.get(i));
+		if(var != 0 && isDepthLimited(depth)){
+
+			// The prediction of an interior regression node is the mean of the samples that reach it
+			if((MiningFunction.REGRESSION).equals(miningFunction)){
+				P prediction = nodepred.get(i);
+
+				node.setScore(scoreEncoder.encode(prediction));
+			} else
+
+			{
+				List<Node> leaves = new ArrayList<>();
+
+				collectLeaves(i, scoreEncoder, leftDaughter, rightDaughter, bestvar, nodepred, leaves);
+
+				aggregateLeaves(node, miningFunction, leaves, null);
+			}
+
+			return;
+		} // End if
+
 		if(var != 0){
 			Feature feature = schema.getFeature(var - 1);
 
@@ -344,8 +408,11 @@ public class RandomForestConverter extends TreeModelConverter<RGenericVector> {
 
 				List<String> values = categoricalFeature.getValues();
 
-				leftPredicate = createSimpleSetPredicate(categoricalFeature, selectValues(values, split, true));
-				rightPredicate = createSimpleSetPredicate(categoricalFeature, selectValues(values, split, false));
+				List<String> leftValues = selectValues(values, split, true);
+				List<String> rightValues = selectValues(values, split, false);
+
+				leftPredicate = createSimpleSetPredicate(categoricalFeature, leftValues, rightValues);
+				rightPredicate = createSimpleSetPredicate(categoricalFeature, rightValues, leftValues);
 			} else
 
 			{
@@ -372,7 +439,7 @@ public class RandomForestConverter extends TreeModelConverter<RGenericVector> {
 				.setId(String.valueOf(left))
 				.setPredicate(leftPredicate);
 
-			encodeNode(leftChild, left - 1, scoreEncoder, leftDaughter, rightDaughter, bestvar, xbestsplit, nodepred, schema);
+			encodeNode(leftChild, left - 1, depth + 1, miningFunction, scoreEncoder, leftDaughter, rightDaughter, bestvar, xbestsplit, nodepred, schema);
 
 			node.addNodes(leftChild);
 		}
@@ -383,12 +450,38 @@ public class RandomForestConverter extends TreeModelConverter<RGenericVector> {
 				.setId(String.valueOf(right))
 				.setPredicate(rightPredicate);
 
-			encodeNode(rightChild, right - 1, scoreEncoder, leftDaughter, rightDaughter, bestvar, xbestsplit, nodepred, schema);
+			encodeNode(rightChild, right - 1, depth + 1, miningFunction, scoreEncoder, leftDaughter, rightDaughter, bestvar, xbestsplit, nodepred, schema);
 
 			node.addNodes(rightChild);
 		}
 	}
 
+	static
+	private <P extends Number> void collectLeaves(int i, ScoreEncoder<P> scoreEncoder, List<? extends Number> leftDaughter, List<? extends Number> rightDaughter, List<? extends Number> bestvar, List<P> nodepred, List<Node> leaves){
+		int var = ValueUtil.asInt(bestvar.get(i));
+
+		if(var == 0){
+			P prediction = nodepred.get(i);
+
+			Node leaf = new Node()
+				.setScore(scoreEncoder.encode(prediction));
+
+			leaves.add(leaf);
+
+			return;
+		}
+
+		int left = ValueUtil.asInt(leftDaughter.get(i));
+		if(left != 0){
+			collectLeaves(left - 1, scoreEncoder, leftDaughter, rightDaughter, bestvar, nodepred, leaves);
+		}
+
+		int right = ValueUtil.asInt(rightDaughter.get(i));
+		if(right != 0){
+			collectLeaves(right - 1, scoreEncoder, leftDaughter, rightDaughter, bestvar, nodepred, leaves);
+		}
+	}
+
 	static
 	<E> List<E> selectValues(List<E> values, Double split, boolean left){
 		UnsignedLong bits = toUnsignedLong(split.doubleValue());
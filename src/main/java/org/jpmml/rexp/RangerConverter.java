@@ -234,6 +234,34 @@ public class RangerConverter extends TreeModelConverter<RGenericVector> {
 		return miningModel;
 	}
 
+	@Override
+	public long estimateMemoryUsage(){
+		RGenericVector ranger = getObject();
+
+		RGenericVector forest = (RGenericVector)ranger.getValue("forest", true);
+
+		if(forest == null){
+			return -1L;
+		}
+
+		RNumberVector<?> numTrees = (RNumberVector<?>)forest.getValue("num.trees");
+		RGenericVector childNodeIDs = (RGenericVector)forest.getValue("child.nodeIDs");
+
+		int trees = limitTrees(ValueUtil.asInt(numTrees.asScalar()));
+
+		long nodes = 0;
+
+		for(int i = 0; i < trees; i++){
+			RGenericVector treeChildNodeIDs = (RGenericVector)childNodeIDs.getValue(i);
+
+			RNumberVector<?> leftChildIDs = (RNumberVector<?>)treeChildNodeIDs.getValue(0);
+
+			nodes += leftChildIDs.size();
+		}
+
+		return MemoryUtil.estimateTreeModels(trees, nodes);
+	}
+
 	private List<TreeModel> encodeForest(RGenericVector forest, MiningFunction miningFunction, ScoreEncoder scoreEncoder, Schema schema){
 		RNumberVector<?> numTrees = (RNumberVector<?>)forest.getValue("num.trees");
 		RGenericVector childNodeIDs = (RGenericVector)forest.getValue("child.nodeIDs");
@@ -245,10 +273,12 @@ public class RangerConverter extends TreeModelConverter<RGenericVector> {
 
 		List<TreeModel> treeModels = new ArrayList<>();
 
-		for(int i = 0; i < ValueUtil.asInt(numTrees.asScalar()); i++){
+		for(int i = 0; i < limitTrees(ValueUtil.asInt(numTrees.asScalar())); i++){
 			TreeModel treeModel = encodeTreeModel(miningFunction, scoreEncoder, (RGenericVector)childNodeIDs.getValue(i), (RNumberVector<?>)splitVarIDs.getValue(i), (RNumberVector<?>)splitValues.getValue(i), (terminalClassCounts != null ? (RGenericVector)terminalClassCounts.getValue(i) : null), segmentSchema);
 
 			treeModels.add(treeModel);
+
+			reportTreeModel(treeModel);
 		}
 
 		return treeModels;
@@ -261,15 +291,15 @@ public class RangerConverter extends TreeModelConverter<RGenericVector> {
 		Node root = new Node()
 			.setPredicate(new True());
 
-		encodeNode(root, 0, scoreEncoder, leftChildIDs, rightChildIDs, splitVarIDs, splitValues, terminalClassCounts, schema);
+		encodeNode(root, 0, 0, miningFunction, scoreEncoder, leftChildIDs, rightChildIDs, splitVarIDs, splitValues, terminalClassCounts, schema);
 
 		TreeModel treeModel = new TreeModel(miningFunction, ModelUtil.createMiningSchema(schema), root)
 			.setSplitCharacteristic(TreeModel.SplitCharacteristic.BINARY_SPLIT);
 
-		return treeModel;
+		return pruneTreeModel(treeModel, schema);
 	}
 
-	private void encodeNode(Node node, int index, ScoreEncoder scoreEncoder, RNumberVector<?> leftChildIDs, RNumberVector<?> rightChildIDs, RNumberVector<?> splitVarIDs, RNumberVector<?> splitValues, RGenericVector terminalClassCounts, Schema schema){
+	private void encodeNode(Node node, int index, int depth, MiningFunction miningFunction, ScoreEncoder scoreEncoder, RNumberVector<?> leftChildIDs, RNumberVector<?> rightChildIDs, RNumberVector<?> splitVarIDs, RNumberVector<?> splitValues, RGenericVector terminalClassCounts, Schema schema){
 		int leftIndex = ValueUtil.asInt(leftChildIDs.getValue(index));
 		int rightIndex = ValueUtil.asInt(rightChildIDs.getValue(index));
 
@@ -282,6 +312,16 @@ public class RangerConverter extends TreeModelConverter<RGenericVector> {
 			return;
 		}
 
+		if(isDepthLimited(depth)){
+			List<Node> leaves = new ArrayList<>();
+
+			collectLeaves(index, scoreEncoder, leftChildIDs, rightChildIDs, splitValues, terminalClassCounts, leaves);
+
+			aggregateLeaves(node, miningFunction, leaves, null);
+
+			return;
+		}
+
 		Predicate leftPredicate;
 		Predicate rightPredicate;
 
@@ -296,8 +336,11 @@ public class RangerConverter extends TreeModelConverter<RGenericVector> {
 
 			List<String> values = categoricalFeature.getValues();
 
-			leftPredicate = createSimpleSetPredicate(categoricalFeature, values.subList(0, splitLevelIndex));
-			rightPredicate = createSimpleSetPredicate(categoricalFeature, values.subList(splitLevelIndex, values.size()));
+			List<String> leftValues = values.subList(0, splitLevelIndex);
+			List<String> rightValues = values.subList(splitLevelIndex, values.size());
+
+			leftPredicate = createSimpleSetPredicate(categoricalFeature, leftValues, rightValues);
+			rightPredicate = createSimpleSetPredicate(categoricalFeature, rightValues, leftValues);
 		} else
 
 		{
@@ -312,16 +355,38 @@ public class RangerConverter extends TreeModelConverter<RGenericVector> {
 		Node leftChild = new Node()
 			.setPredicate(leftPredicate);
 
-		encodeNode(leftChild, leftIndex, scoreEncoder, leftChildIDs, rightChildIDs, splitVarIDs, splitValues, terminalClassCounts, schema);
+		encodeNode(leftChild, leftIndex, depth + 1, miningFunction, scoreEncoder, leftChildIDs, rightChildIDs, splitVarIDs, splitValues, terminalClassCounts, schema);
 
 		Node rightChild = new Node()
 			.setPredicate(rightPredicate);
 
-		encodeNode(rightChild, rightIndex, scoreEncoder, leftChildIDs, rightChildIDs, splitVarIDs, splitValues, terminalClassCounts, schema);
+		encodeNode(rightChild, rightIndex, depth + 1, miningFunction, scoreEncoder, leftChildIDs, rightChildIDs, splitVarIDs, splitValues, terminalClassCounts, schema);
 
 		node.addNodes(leftChild, rightChild);
 	}
 
+	static
+	private void collectLeaves(int index, ScoreEncoder scoreEncoder, RNumberVector<?> leftChildIDs, RNumberVector<?> rightChildIDs, RNumberVector<?> splitValues, RGenericVector terminalClassCounts, List<Node> leaves){
+		int leftIndex = ValueUtil.asInt(leftChildIDs.getValue(index));
+		int rightIndex = ValueUtil.asInt(rightChildIDs.getValue(index));
+
+		if(leftIndex == 0 && rightIndex == 0){
+			Number splitValue = splitValues.getValue(index);
+			RNumberVector<?> terminalClassCount = (terminalClassCounts != null ? (RNumberVector<?>)terminalClassCounts.getValue(index) : null);
+
+			Node leaf = new Node();
+
+			scoreEncoder.encode(leaf, splitValue, terminalClassCount);
+
+			leaves.add(leaf);
+
+			return;
+		}
+
+		collectLeaves(leftIndex, scoreEncoder, leftChildIDs, rightChildIDs, splitValues, terminalClassCounts, leaves);
+		collectLeaves(rightIndex, scoreEncoder, leftChildIDs, rightChildIDs, splitValues, terminalClassCounts, leaves);
+	}
+
 	static
 	private interface ScoreEncoder {
 
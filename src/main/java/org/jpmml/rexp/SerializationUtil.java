@@ -28,6 +28,67 @@ public class SerializationUtil {
 		return (flags & 255);
 	}
 
+	static
+	public String formatType(int type){
+
+		switch(type){
+			case SExpTypes.SYMSXP:
+				return "SYMSXP";
+			case SExpTypes.LISTSXP:
+				return "LISTSXP";
+			case SExpTypes.CLOSXP:
+				return "CLOSXP";
+			case SExpTypes.ENVSXP:
+				return "ENVSXP";
+			case SExpTypes.PROMSXP:
+				return "PROMSXP";
+			case SExpTypes.LANGSXP:
+				return "LANGSXP";
+			case SExpTypes.CHARSXP:
+				return "CHARSXP";
+			case SExpTypes.LGLSXP:
+				return "LGLSXP";
+			case SExpTypes.INTSXP:
+				return "INTSXP";
+			case SExpTypes.REALSXP:
+				return "REALSXP";
+			case SExpTypes.STRSXP:
+				return "STRSXP";
+			case SExpTypes.VECSXP:
+				return "VECSXP";
+			case SExpTypes.EXPRSXP:
+				return "EXPRSXP";
+			case SExpTypes.BCODESXP:
+				return "BCODESXP";
+			case SExpTypes.EXTPTRSXP:
+				return "EXTPTRSXP";
+			case SExpTypes.RAWSXP:
+				return "RAWSXP";
+			case SExpTypes.S4SXP:
+				return "S4SXP";
+			case SerializationTypes.BASEENVSXP:
+				return "BASEENVSXP";
+			case SerializationTypes.EMPTYENVSXP:
+				return "EMPTYENVSXP";
+			case SerializationTypes.NAMESPACESXP:
+				return "NAMESPACESXP";
+			case SerializationTypes.BASENAMESPACESXP:
+				return "BASENAMESPACESXP";
+			case SerializationTypes.MISSINGARGSXP:
+				return "MISSINGARGSXP";
+			case SerializationTypes.UNBOUNDVALUESXP:
+				return "UNBOUNDVALUESXP";
+			case SerializationTypes.GLOBALENVSXP:
+				return "GLOBALENVSXP";
+			case SerializationTypes.NILVALUESXP:
+				return "NILVALUESXP";
+			case SerializationTypes.REFSXP:
+				return "REFSXP";
+			default:
+				return String.valueOf(type);
+		}
+	}
+
 	static
 	public int decodeLevels(int flags){
 		return (flags >> 12);
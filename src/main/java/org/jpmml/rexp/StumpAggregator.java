@@ -0,0 +1,484 @@
+/*
+ * Copyright (c) 2017 Villu Ruusmann
+ *
+ * This file is part of JPMML-R
+ *
+ * JPMML-R is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JPMML-R is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with JPMML-R.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.jpmml.rexp;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+import org.dmg.pmml.FieldName;
+import org.dmg.pmml.MiningFunction;
+import org.dmg.pmml.Predicate;
+import org.dmg.pmml.SimplePredicate;
+import org.dmg.pmml.SimpleSetPredicate;
+import org.dmg.pmml.True;
+import org.dmg.pmml.tree.Node;
+import org.dmg.pmml.tree.TreeModel;
+import org.jpmml.converter.CategoricalFeature;
+import org.jpmml.converter.ContinuousFeature;
+import org.jpmml.converter.Feature;
+import org.jpmml.converter.ModelUtil;
+import org.jpmml.converter.Schema;
+import org.jpmml.converter.ValueUtil;
+
+/**
+ * <p>
+ * Merges the stumps (depth-one regression trees) of an additive tree ensemble.
+ * </p>
+ *
+ * <p>
+ * Stumps that split on the same feature are grouped together, and each group is replaced with a single tree model
+ * that computes the sum of the group as a piecewise-constant function of that feature.
+ * Continuous features are encoded as a balanced binary search over the union of split thresholds.
+ * Categorical features are encoded as one set split per distinct sum.
+ * </p>
+ *
+ * <p>
+ * A group is left unchanged if some stump does not have a score for some input (eg. a category that was not seen during training),
+ * because then the sum is undefined.
+ * </p>
+ *
+ * <p>
+ * The scores of a group are summed before they are added to the scores of other tree models,
+ * whereas the "sum" segmentation adds the scores of all tree models in their original order.
+ * Because floating point addition is not associative, aggregated predictions are not bit-identical to the original predictions.
+ * The two orders of summation both have a rounding error of at most <code>(n - 1) * 2<sup>-53</sup> * &Sigma;|s<sub>i</sub>|</code>,
+ * where <code>n</code> is the number of summed scores <code>s<sub>i</sub></code>.
+ * The difference between aggregated and original predictions is therefore at most <code>(n - 1) * 2<sup>-52</sup> * &Sigma;|s<sub>i</sub>|</code>.
+ * </p>
+ */
+public class StumpAggregator {
+
+	private TreeModelConverter<?> converter = null;
+
+
+	public StumpAggregator(TreeModelConverter<?> converter){
+		setConverter(converter);
+	}
+
+	/**
+	 * @param treeModels The members of a {@link org.dmg.pmml.mining.Segmentation.MultipleModelMethod#SUM} segmentation.
+	 *
+	 * @return The tree models that are not stumps, followed by the merged stumps.
+	 */
+	public List<TreeModel> aggregate(List<TreeModel> treeModels, Schema schema){
+		Map<FieldName, Feature> features = new HashMap<>();
+
+		for(Feature feature : schema.getFeatures()){
+			features.put(feature.getName(), feature);
+		}
+
+		List<TreeModel> result = new ArrayList<>();
+
+		Map<FieldName, List<TreeModel>> stumps = new LinkedHashMap<>();
+
+		for(TreeModel treeModel : treeModels){
+			FieldName name = getStumpField(treeModel, features);
+
+			if(name == null){
+				result.add(treeModel);
+
+				continue;
+			}
+
+			List<TreeModel> fieldStumps = stumps.get(name);
+			if(fieldStumps == null){
+				fieldStumps = new ArrayList<>();
+
+				stumps.put(name, fieldStumps);
+			}
+
+			fieldStumps.add(treeModel);
+		}
+
+		for(Map.Entry<FieldName, List<TreeModel>> entry : stumps.entrySet()){
+			Feature feature = features.get(entry.getKey());
+			List<TreeModel> fieldStumps = entry.getValue();
+
+			TreeModel treeModel = null;
+
+			if(fieldStumps.size() > 1){
+
+				if(feature instanceof CategoricalFeature){
+					treeModel = aggregateCategorical((CategoricalFeature)feature, fieldStumps, schema);
+				} else
+
+				{
+					treeModel = aggregateContinuous(feature.toContinuousFeature(), fieldStumps, schema);
+				}
+			} // End if
+
+			if(treeModel != null){
+				result.add(treeModel);
+			} else
+
+			{
+				result.addAll(fieldStumps);
+			}
+		}
+
+		return result;
+	}
+
+	private TreeModel aggregateContinuous(ContinuousFeature feature, List<TreeModel> stumps, Schema schema){
+		TreeModelConverter<?> converter = getConverter();
+
+		TreeSet<Double> thresholds = new TreeSet<>();
+
+		for(TreeModel stump : stumps){
+			List<Node> children = (stump.getNode()).getNodes();
+
+			for(Node child : children){
+				SimplePredicate simplePredicate = (SimplePredicate)child.getPredicate();
+
+				if(simplePredicate.getValue() != null){
+					thresholds.add(Double.valueOf(simplePredicate.getValue()));
+				}
+			}
+		}
+
+		Double missingScore = sum(stumps, null);
+		if(missingScore == null){
+			return null;
+		}
+
+		List<Double> bounds = new ArrayList<>();
+		List<Double> scores = new ArrayList<>();
+
+		Double previousScore = sum(stumps, Double.NEGATIVE_INFINITY);
+		if(previousScore == null){
+			return null;
+		}
+
+		bounds.add(Double.NEGATIVE_INFINITY);
+		scores.add(previousScore);
+
+		for(Double threshold : thresholds){
+			Double score = sum(stumps, threshold);
+			if(score == null){
+				return null;
+			} // End if
+
+			// Adjacent intervals that share the same score are merged
+			if((score).equals(previousScore)){
+				continue;
+			}
+
+			bounds.add(threshold);
+			scores.add(score);
+
+			previousScore = score;
+		}
+
+		Node root = new Node()
+			.setPredicate(new True());
+
+		Node missingChild = new Node()
+			.setPredicate(converter.createSimplePredicate(feature, SimplePredicate.Operator.IS_MISSING, null))
+			.setScore(ValueUtil.formatValue(missingScore));
+
+		root.addNodes(missingChild);
+
+		encodeIntervals(root, feature, bounds, scores, 0, bounds.size() - 1);
+
+		return createTreeModel(root, schema);
+	}
+
+	private void encodeIntervals(Node node, ContinuousFeature feature, List<Double> bounds, List<Double> scores, int begin, int end){
+		TreeModelConverter<?> converter = getConverter();
+
+		if(begin == end){
+			Double score = scores.get(begin);
+
+			if(node.hasNodes()){
+				Node child = new Node()
+					.setPredicate(new True())
+					.setScore(ValueUtil.formatValue(score));
+
+				node.addNodes(child);
+			} else
+
+			{
+				node.setScore(ValueUtil.formatValue(score));
+			}
+
+			return;
+		}
+
+		int middle = (begin + end + 1) / 2;
+
+		String value = ValueUtil.formatValue(bounds.get(middle));
+
+		Node leftChild = new Node()
+			.setPredicate(converter.createSimplePredicate(feature, SimplePredicate.Operator.LESS_THAN, value));
+
+		encodeIntervals(leftChild, feature, bounds, scores, begin, middle - 1);
+
+		Node rightChild = new Node()
+			.setPredicate(converter.createSimplePredicate(feature, SimplePredicate.Operator.GREATER_OR_EQUAL, value));
+
+		encodeIntervals(rightChild, feature, bounds, scores, middle, end);
+
+		node.addNodes(leftChild, rightChild);
+	}
+
+	private TreeModel aggregateCategorical(CategoricalFeature feature, List<TreeModel> stumps, Schema schema){
+		TreeModelConverter<?> converter = getConverter();
+
+		Double missingScore = sum(stumps, null);
+		if(missingScore == null){
+			return null;
+		}
+
+		Map<Double, List<String>> scoreValues = new LinkedHashMap<>();
+
+		for(String value : feature.getValues()){
+			Double score = sum(stumps, value);
+			if(score == null){
+				return null;
+			}
+
+			List<String> values = scoreValues.get(score);
+			if(values == null){
+				values = new ArrayList<>();
+
+				scoreValues.put(score, values);
+			}
+
+			values.add(value);
+		}
+
+		Node root = new Node()
+			.setPredicate(new True());
+
+		Node missingChild = new Node()
+			.setPredicate(converter.createSimplePredicate(feature, SimplePredicate.Operator.IS_MISSING, null))
+			.setScore(ValueUtil.formatValue(missingScore));
+
+		root.addNodes(missingChild);
+
+		for(Map.Entry<Double, List<String>> entry : scoreValues.entrySet()){
+			Node child = new Node()
+				.setPredicate(converter.createSimpleSetPredicate(feature, entry.getValue()))
+				.setScore(ValueUtil.formatValue(entry.getKey()));
+
+			root.addNodes(child);
+		}
+
+		return createTreeModel(root, schema);
+	}
+
+	public TreeModelConverter<?> getConverter(){
+		return this.converter;
+	}
+
+	private void setConverter(TreeModelConverter<?> converter){
+		this.converter = converter;
+	}
+
+	static
+	private TreeModel createTreeModel(Node root, Schema schema){
+		TreeModel treeModel = new TreeModel(MiningFunction.REGRESSION, ModelUtil.createMiningSchema(schema), root)
+			.setSplitCharacteristic(TreeModel.SplitCharacteristic.MULTI_SPLIT);
+
+		return treeModel;
+	}
+
+	static
+	private FieldName getStumpField(TreeModel treeModel, Map<FieldName, Feature> features){
+
+		if(!(MiningFunction.REGRESSION).equals(treeModel.getMiningFunction())){
+			return null;
+		} // End if
+
+		if(!(TreeModel.MissingValueStrategy.NONE).equals(treeModel.getMissingValueStrategy()) || !(TreeModel.NoTrueChildStrategy.RETURN_NULL_PREDICTION).equals(treeModel.getNoTrueChildStrategy())){
+			return null;
+		}
+
+		Node root = treeModel.getNode();
+
+		if(!(root.getPredicate() instanceof True) || !root.hasNodes() || root.getEmbeddedModel() != null){
+			return null;
+		}
+
+		FieldName result = null;
+
+		List<Node> children = root.getNodes();
+		for(Node child : children){
+
+			if(child.hasNodes() || child.hasScoreDistributions() || child.getEmbeddedModel() != null || child.getScore() == null){
+				return null;
+			}
+
+			Predicate predicate = child.getPredicate();
+
+			FieldName name;
+
+			if(predicate instanceof SimplePredicate){
+				SimplePredicate simplePredicate = (SimplePredicate)predicate;
+
+				name = simplePredicate.getField();
+			} else
+
+			if(predicate instanceof SimpleSetPredicate){
+				SimpleSetPredicate simpleSetPredicate = (SimpleSetPredicate)predicate;
+
+				name = simpleSetPredicate.getField();
+			} else
+
+			{
+				return null;
+			} // End if
+
+			if(result != null && !(result).equals(name)){
+				return null;
+			}
+
+			result = name;
+
+			Feature feature = features.get(name);
+			if(feature == null || !isSupported(predicate, feature instanceof CategoricalFeature)){
+				return null;
+			}
+		}
+
+		return result;
+	}
+
+	static
+	private boolean isSupported(Predicate predicate, boolean categorical){
+
+		if(predicate instanceof SimplePredicate){
+			SimplePredicate simplePredicate = (SimplePredicate)predicate;
+
+			SimplePredicate.Operator operator = simplePredicate.getOperator();
+			switch(operator){
+				case IS_MISSING:
+					return true;
+				case EQUAL:
+					return categorical;
+				case LESS_THAN:
+				case GREATER_OR_EQUAL:
+					if(categorical){
+						return false;
+					}
+
+					try {
+						Double.parseDouble(simplePredicate.getValue());
+					} catch(NumberFormatException nfe){
+						return false;
+					}
+
+					return true;
+				default:
+					return false;
+			}
+		} else
+
+		if(predicate instanceof SimpleSetPredicate){
+			SimpleSetPredicate simpleSetPredicate = (SimpleSetPredicate)predicate;
+
+			return categorical && (SimpleSetPredicate.BooleanOperator.IS_IN).equals(simpleSetPredicate.getBooleanOperator());
+		}
+
+		return false;
+	}
+
+	/**
+	 * @param value A {@link Double} value for continuous features, a {@link String} value for categorical features, or <code>null</code> for a missing value.
+	 *
+	 * @return The sum of stump scores, or <code>null</code> if some stump does not have a score.
+	 */
+	static
+	private Double sum(List<TreeModel> stumps, Object value){
+		double result = 0d;
+
+		for(TreeModel stump : stumps){
+			Double score = score(stump.getNode(), value);
+
+			if(score == null){
+				return null;
+			}
+
+			result += score;
+		}
+
+		return result;
+	}
+
+	static
+	private Double score(Node root, Object value){
+		List<Node> children = root.getNodes();
+
+		for(Node child : children){
+
+			if(matches(child.getPredicate(), value)){
+				return Double.valueOf(child.getScore());
+			}
+		}
+
+		return null;
+	}
+
+	static
+	private boolean matches(Predicate predicate, Object value){
+
+		if(predicate instanceof SimplePredicate){
+			SimplePredicate simplePredicate = (SimplePredicate)predicate;
+
+			SimplePredicate.Operator operator = simplePredicate.getOperator();
+
+			if((SimplePredicate.Operator.IS_MISSING).equals(operator)){
+				return (value == null);
+			} // End if
+
+			if(value == null){
+				return false;
+			}
+
+			switch(operator){
+				case EQUAL:
+					return (value).equals(simplePredicate.getValue());
+				case LESS_THAN:
+					return (Double)value < Double.parseDouble(simplePredicate.getValue());
+				case GREATER_OR_EQUAL:
+					return (Double)value >= Double.parseDouble(simplePredicate.getValue());
+				default:
+					throw new IllegalArgumentException();
+			}
+		} else
+
+		if(predicate instanceof SimpleSetPredicate){
+			SimpleSetPredicate simpleSetPredicate = (SimpleSetPredicate)predicate;
+
+			if(value == null){
+				return false;
+			}
+
+			List<String> values = TreeModelCompactor.parseArray(simpleSetPredicate.getArray());
+
+			return values.contains(value);
+		}
+
+		throw new IllegalArgumentException();
+	}
+}
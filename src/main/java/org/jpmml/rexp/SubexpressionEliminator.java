@@ -0,0 +1,380 @@
+/*
+ * Copyright (c) 2017 Villu Ruusmann
+ *
+ * This file is part of JPMML-R
+ *
+ * JPMML-R is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JPMML-R is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with JPMML-R.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.jpmml.rexp;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.ListIterator;
+import java.util.Map;
+import java.util.Set;
+
+import org.dmg.pmml.Apply;
+import org.dmg.pmml.Constant;
+import org.dmg.pmml.DataType;
+import org.dmg.pmml.DerivedField;
+import org.dmg.pmml.Expression;
+import org.dmg.pmml.Field;
+import org.dmg.pmml.FieldName;
+import org.dmg.pmml.FieldRef;
+import org.dmg.pmml.OpType;
+import org.dmg.pmml.PMML;
+import org.dmg.pmml.TransformationDictionary;
+import org.dmg.pmml.VisitorAction;
+import org.jpmml.model.visitors.AbstractFieldVisitor;
+import org.jpmml.model.visitors.AbstractVisitor;
+
+/**
+ * <p>
+ * A Visitor that eliminates common arithmetic subexpressions between the derived fields of the transformation dictionary.
+ * </p>
+ *
+ * <p>
+ * A nested Apply element that occurs more than once is replaced with a reference to a shared derived field.
+ * If some continuous derived field is already defined by an identical Apply element, then it is reused.
+ * Otherwise, a new derived field is inserted in front of the first derived field that needs it.
+ * The evaluation of every derived field is cached per record, so that the shared subexpression is computed only once.
+ * </p>
+ *
+ * <p>
+ * New derived fields are named like the <code>I()</code> terms of R formulas (eg. <code>I(x * y)</code>).
+ * A name that is already taken by some field of the PMML document gets a numeric suffix (eg. <code>I(x * y)_2</code>).
+ * </p>
+ *
+ * @see ModelConverter#setEliminateSubexpressions(boolean)
+ */
+public class SubexpressionEliminator extends AbstractVisitor {
+
+	@Override
+	public VisitorAction visit(PMML pmml){
+		TransformationDictionary transformationDictionary = pmml.getTransformationDictionary();
+
+		if(transformationDictionary != null && transformationDictionary.hasDerivedFields()){
+			Set<FieldName> names = collectNames(pmml);
+
+			eliminate(transformationDictionary.getDerivedFields(), names);
+		}
+
+		return VisitorAction.SKIP;
+	}
+
+	static
+	void eliminate(List<DerivedField> derivedFields, Set<FieldName> names){
+		// Structural keys are cached between passes, and are invalidated only for those Apply elements whose arguments change
+		Map<Expression, String> keys = new IdentityHashMap<>();
+
+		while(true){
+			Map<String, Integer> counts = new HashMap<>();
+
+			Map<String, FieldName> definitions = new HashMap<>();
+
+			for(DerivedField derivedField : derivedFields){
+				Expression expression = derivedField.getExpression();
+
+				String key = countKeys(expression, true, keys, counts);
+
+				if(key != null && (expression instanceof Apply) && isReusable(derivedField) && !definitions.containsKey(key)){
+					definitions.put(key, derivedField.getName());
+				}
+			}
+
+			List<DerivedField> result = new ArrayList<>(derivedFields.size());
+
+			boolean changed = false;
+
+			for(DerivedField derivedField : derivedFields){
+				Expression expression = derivedField.getExpression();
+
+				if(expression instanceof Apply){
+					changed |= replaceSubexpressions((Apply)expression, keys, counts, definitions, names, result);
+				}
+
+				result.add(derivedField);
+			}
+
+			if(!changed){
+				break;
+			}
+
+			derivedFields.clear();
+			derivedFields.addAll(result);
+		}
+	}
+
+	static
+	private boolean replaceSubexpressions(Apply apply, Map<Expression, String> keys, Map<String, Integer> counts, Map<String, FieldName> definitions, Set<FieldName> names, List<DerivedField> result){
+		boolean changed = false;
+
+		List<Expression> expressions = apply.getExpressions();
+		for(ListIterator<Expression> expressionIt = expressions.listIterator(); expressionIt.hasNext(); ){
+			Expression expression = expressionIt.next();
+
+			if(!(expression instanceof Apply)){
+				continue;
+			}
+
+			String key = keys.get(expression);
+
+			Integer count = (key != null ? counts.get(key) : null);
+
+			FieldName name = (key != null ? definitions.get(key) : null);
+
+			if(name != null || (count != null && count > 1)){
+
+				if(name == null){
+					name = createName(formatExpression(expression, false), names);
+
+					DerivedField derivedField = new DerivedField(OpType.CONTINUOUS, DataType.DOUBLE)
+						.setName(name)
+						.setExpression(expression);
+
+					result.add(derivedField);
+
+					definitions.put(key, name);
+				}
+
+				expressionIt.set(new FieldRef(name));
+
+				changed = true;
+			} else
+
+			{
+				changed |= replaceSubexpressions((Apply)expression, keys, counts, definitions, names, result);
+			}
+		}
+
+		if(changed){
+			keys.remove(apply);
+		}
+
+		return changed;
+	}
+
+	/**
+	 * <p>
+	 * Counts the occurrences of the structural keys of nested Apply elements.
+	 * </p>
+	 *
+	 * @return The structural key of the expression, or <code>null</code> if the expression cannot be shared.
+	 */
+	static
+	private String countKeys(Expression expression, boolean root, Map<Expression, String> keys, Map<String, Integer> counts){
+
+		if(expression instanceof Apply){
+			Apply apply = (Apply)expression;
+
+			List<Expression> expressions = apply.getExpressions();
+			for(Expression argument : expressions){
+				countKeys(argument, false, keys, counts);
+			}
+
+			String key = getKey(apply, keys);
+
+			if(key != null && !root){
+				Integer count = counts.get(key);
+
+				counts.put(key, count != null ? (count + 1) : 1);
+			}
+
+			return key;
+		}
+
+		return getKey(expression, keys);
+	}
+
+	/**
+	 * @return A structural key, or <code>null</code> if the expression cannot be shared.
+	 */
+	static
+	private String getKey(Expression expression, Map<Expression, String> keys){
+
+		if(expression instanceof Apply){
+			Apply apply = (Apply)expression;
+
+			if(keys.containsKey(apply)){
+				return keys.get(apply);
+			}
+
+			boolean shareable = isArithmetic(apply.getFunction());
+
+			StringBuilder sb = new StringBuilder();
+			sb.append(apply.getFunction());
+			sb.append('[').append(apply.getMapMissingTo()).append(',').append(apply.getDefaultValue()).append(',').append(apply.getInvalidValueTreatment()).append(']');
+			sb.append('(');
+
+			List<Expression> expressions = apply.getExpressions();
+			for(int i = 0; shareable && i < expressions.size(); i++){
+				String key = getKey(expressions.get(i), keys);
+
+				if(key == null){
+					shareable = false;
+
+					break;
+				}
+
+				sb.append(i > 0 ? "," : "").append(key);
+			}
+
+			sb.append(')');
+
+			String key = (shareable ? sb.toString() : null);
+
+			keys.put(apply, key);
+
+			return key;
+		} else
+
+		if(expression instanceof FieldRef){
+			FieldRef fieldRef = (FieldRef)expression;
+
+			String value = (fieldRef.getField()).getValue();
+
+			return "$" + value.length() + ":" + value + "[" + fieldRef.getMapMissingTo() + "]";
+		} else
+
+		if(expression instanceof Constant){
+			Constant constant = (Constant)expression;
+
+			String value = constant.getValue();
+
+			return "'" + constant.getDataType() + ":" + (value != null ? (value.length() + ":" + value) : null);
+		}
+
+		return null;
+	}
+
+	static
+	private String formatExpression(Expression expression, boolean nested){
+
+		if(expression instanceof Apply){
+			Apply apply = (Apply)expression;
+
+			String function = apply.getFunction();
+
+			List<Expression> expressions = apply.getExpressions();
+
+			switch(function){
+				case "+":
+				case "-":
+				case "*":
+				case "/":
+				case "pow":
+					if(expressions.size() == 2){
+						String operator = (("pow").equals(function) ? "^" : (" " + function + " "));
+
+						String value = formatExpression(expressions.get(0), true) + operator + formatExpression(expressions.get(1), true);
+
+						return (nested ? ("(" + value + ")") : value);
+					}
+					break;
+				default:
+					break;
+			}
+
+			StringBuilder sb = new StringBuilder();
+			sb.append(function).append('(');
+
+			for(int i = 0; i < expressions.size(); i++){
+				sb.append(i > 0 ? ", " : "").append(formatExpression(expressions.get(i), false));
+			}
+
+			sb.append(')');
+
+			return sb.toString();
+		} else
+
+		if(expression instanceof FieldRef){
+			FieldRef fieldRef = (FieldRef)expression;
+
+			return (fieldRef.getField()).getValue();
+		} else
+
+		if(expression instanceof Constant){
+			Constant constant = (Constant)expression;
+
+			return constant.getValue();
+		}
+
+		throw new IllegalArgumentException();
+	}
+
+	static
+	private FieldName createName(String expression, Set<FieldName> names){
+		String value = ("I(" + expression + ")");
+
+		FieldName name = FieldName.create(value);
+
+		for(int i = 2; names.contains(name); i++){
+			name = FieldName.create(value + "_" + i);
+		}
+
+		names.add(name);
+
+		return name;
+	}
+
+	static
+	private boolean isReusable(DerivedField derivedField){
+		return (OpType.CONTINUOUS).equals(derivedField.getOpType()) && (DataType.DOUBLE).equals(derivedField.getDataType());
+	}
+
+	static
+	private boolean isArithmetic(String function){
+
+		switch(function){
+			case "+":
+			case "-":
+			case "*":
+			case "/":
+			case "pow":
+			case "abs":
+			case "ceil":
+			case "exp":
+			case "floor":
+			case "ln":
+			case "log10":
+			case "round":
+			case "sqrt":
+				return true;
+			default:
+				return false;
+		}
+	}
+
+	static
+	private Set<FieldName> collectNames(PMML pmml){
+		final
+		Set<FieldName> result = new HashSet<>();
+
+		AbstractFieldVisitor visitor = new AbstractFieldVisitor(){
+
+			@Override
+			public VisitorAction visit(Field field){
+				result.add(field.getName());
+
+				return VisitorAction.CONTINUE;
+			}
+		};
+		visitor.applyTo(pmml);
+
+		return result;
+	}
+}
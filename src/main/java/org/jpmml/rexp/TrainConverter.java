@@ -22,25 +22,56 @@ import org.dmg.pmml.PMML;
 
 public class TrainConverter extends Converter<RGenericVector> {
 
+	private ModelConverter<RExp> converter = null;
+
+
 	public TrainConverter(RGenericVector train){
 		super(train);
 	}
 
+	/**
+	 * <p>
+	 * The options are validated and applied by the converter of the final model.
+	 * </p>
+	 */
+	@Override
+	public void applyOptions(ConverterOptions options){
+		ModelConverter<RExp> converter = ensureConverter();
+
+		converter.applyOptions(options);
+	}
+
+	@Override
+	public void setMemoryBudget(long memoryBudget){
+		super.setMemoryBudget(memoryBudget);
+
+		ModelConverter<RExp> converter = ensureConverter();
+
+		converter.setMemoryBudget(memoryBudget);
+	}
+
+	@Override
+	public void setNtreeLimit(int ntreeLimit){
+		super.setNtreeLimit(ntreeLimit);
+
+		ModelConverter<RExp> converter = ensureConverter();
+
+		converter.setNtreeLimit(ntreeLimit);
+	}
+
 	@Override
 	public PMML encodePMML(){
 		RGenericVector train = getObject();
 
-		RExp finalModel = train.getValue("finalModel");
 		RGenericVector preProcess = (RGenericVector)train.getValue("preProcess");
 
-		ConverterFactory converterFactory = ConverterFactory.newInstance();
-
-		ModelConverter<RExp> converter = (ModelConverter<RExp>)converterFactory.newConverter(finalModel);
+		ModelConverter<RExp> converter = ensureConverter();
+		converter.setListener(getListener());
 
 		RExpEncoder encoder;
 
 		if(preProcess != null){
-			encoder = new PreProcessEncoder(preProcess);
+			encoder = converter.createPreProcessEncoder(preProcess);
 		} else
 
 		{
@@ -49,4 +80,23 @@ public class TrainConverter extends Converter<RGenericVector> {
 
 		return converter.encodePMML(encoder);
 	}
-}
\ No newline at end of file
+
+	private ModelConverter<RExp> ensureConverter(){
+
+		if(this.converter == null){
+			this.converter = createConverter();
+		}
+
+		return this.converter;
+	}
+
+	private ModelConverter<RExp> createConverter(){
+		RGenericVector train = getObject();
+
+		RExp finalModel = train.getValue("finalModel");
+
+		ConverterFactory converterFactory = ConverterFactory.newInstance();
+
+		return (ModelConverter<RExp>)converterFactory.newConverter(finalModel);
+	}
+}
@@ -0,0 +1,401 @@
+/*
+ * Copyright (c) 2017 Villu Ruusmann
+ *
+ * This file is part of JPMML-R
+ *
+ * JPMML-R is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JPMML-R is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with JPMML-R.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.jpmml.rexp;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+import org.dmg.pmml.DataField;
+import org.dmg.pmml.DataType;
+import org.dmg.pmml.DerivedField;
+import org.dmg.pmml.Discretize;
+import org.dmg.pmml.DiscretizeBin;
+import org.dmg.pmml.Field;
+import org.dmg.pmml.FieldName;
+import org.dmg.pmml.Interval;
+import org.dmg.pmml.OpType;
+import org.dmg.pmml.PMML;
+import org.dmg.pmml.Predicate;
+import org.dmg.pmml.SimplePredicate;
+import org.dmg.pmml.TransformationDictionary;
+import org.dmg.pmml.Visitable;
+import org.dmg.pmml.VisitorAction;
+import org.dmg.pmml.tree.Node;
+import org.dmg.pmml.tree.TreeModel;
+import org.jpmml.model.visitors.AbstractFieldVisitor;
+import org.jpmml.model.visitors.AbstractVisitor;
+
+/**
+ * <p>
+ * A Visitor that replaces the split thresholds of continuous fields with integer bin indices.
+ * </p>
+ *
+ * <p>
+ * The distinct split thresholds of a field are collected across all tree models.
+ * The field is then discretized once per record by a Discretize derived field (named <code>bin(&lt;field&gt;)</code>),
+ * and every split compares the bin index of the value instead of the value itself.
+ * For example, given the thresholds <code>t<sub>0</sub> &lt; t<sub>1</sub> &lt; .. &lt; t<sub>k-1</sub></code> of "lessOrEqual" and "greaterThan" splits,
+ * the bin index of a value is the number of thresholds that are less than it, and the split <code>x &lt;= t<sub>j</sub></code> becomes <code>bin(x) &lt;= j</code>.
+ * Missing values are mapped to missing bin indices, so that the routing of missing values does not change.
+ * </p>
+ *
+ * <p>
+ * A field is left unchanged if it has fewer than two distinct thresholds,
+ * if its thresholds are used with both right-closed ("lessOrEqual" and "greaterThan") and left-closed ("lessThan" and "greaterOrEqual") operators,
+ * or if it is not a double or integer field.
+ * This Visitor should be applied to the complete PMML class model object.
+ * </p>
+ */
+public class TreeModelBinner extends AbstractVisitor {
+
+	private Map<FieldName, Thresholds> thresholds = null;
+
+	private List<DerivedField> derivedFields = null;
+
+	private Set<SimplePredicate> binnedPredicates = Collections.newSetFromMap(new IdentityHashMap<SimplePredicate, Boolean>());
+
+
+	@Override
+	public void applyTo(Visitable visitable){
+		final
+		Map<FieldName, DataType> dataTypes = new HashMap<>();
+
+		AbstractFieldVisitor fieldCollector = new AbstractFieldVisitor(){
+
+			@Override
+			public VisitorAction visit(Field field){
+				dataTypes.put(field.getName(), field.getDataType());
+
+				return VisitorAction.CONTINUE;
+			}
+		};
+		fieldCollector.applyTo(visitable);
+
+		final
+		Map<FieldName, Thresholds> thresholds = new LinkedHashMap<>();
+
+		AbstractVisitor thresholdCollector = new AbstractVisitor(){
+
+			@Override
+			public VisitorAction visit(TreeModel treeModel){
+				collectThresholds(treeModel.getNode(), thresholds);
+
+				return super.visit(treeModel);
+			}
+		};
+		thresholdCollector.applyTo(visitable);
+
+		List<DerivedField> derivedFields = new ArrayList<>();
+
+		for(Iterator<Map.Entry<FieldName, Thresholds>> entryIt = (thresholds.entrySet()).iterator(); entryIt.hasNext(); ){
+			Map.Entry<FieldName, Thresholds> entry = entryIt.next();
+
+			FieldName name = entry.getKey();
+			Thresholds fieldThresholds = entry.getValue();
+
+			FieldName binName = FieldName.create("bin(" + name.getValue() + ")");
+
+			if(!isBinnable(dataTypes.get(name)) || fieldThresholds.isMixed() || dataTypes.containsKey(binName)){
+				entryIt.remove();
+
+				continue;
+			}
+
+			List<Double> values = fieldThresholds.sort();
+			if(values.size() < 2){
+				entryIt.remove();
+
+				continue;
+			}
+
+			fieldThresholds.setName(binName);
+
+			DerivedField derivedField = new DerivedField(OpType.CONTINUOUS, DataType.INTEGER)
+				.setName(binName)
+				.setExpression(createDiscretize(name, fieldThresholds));
+
+			derivedFields.add(derivedField);
+		}
+
+		if(derivedFields.isEmpty()){
+			return;
+		}
+
+		this.thresholds = thresholds;
+		this.derivedFields = derivedFields;
+
+		try {
+			super.applyTo(visitable);
+		} finally {
+			this.thresholds = null;
+			this.derivedFields = null;
+
+			this.binnedPredicates.clear();
+		}
+	}
+
+	@Override
+	public VisitorAction visit(PMML pmml){
+		TransformationDictionary transformationDictionary = pmml.getTransformationDictionary();
+
+		if(transformationDictionary == null){
+			transformationDictionary = new TransformationDictionary();
+
+			pmml.setTransformationDictionary(transformationDictionary);
+		}
+
+		(transformationDictionary.getDerivedFields()).addAll(this.derivedFields);
+
+		return super.visit(pmml);
+	}
+
+	@Override
+	public VisitorAction visit(TreeModel treeModel){
+		bin(treeModel.getNode());
+
+		return VisitorAction.SKIP;
+	}
+
+	private void bin(Node node){
+		Predicate predicate = node.getPredicate();
+
+		if(predicate instanceof SimplePredicate){
+			SimplePredicate simplePredicate = (SimplePredicate)predicate;
+
+			Thresholds fieldThresholds = this.thresholds.get(simplePredicate.getField());
+
+			// Predicates may be shared between nodes
+			if(fieldThresholds != null && isRightClosed(simplePredicate.getOperator()) != null && this.binnedPredicates.add(simplePredicate)){
+				List<Double> values = fieldThresholds.getValues();
+
+				int index = Collections.binarySearch(values, Double.valueOf(simplePredicate.getValue()));
+				if(index < 0){
+					throw new IllegalArgumentException();
+				}
+
+				simplePredicate
+					.setField(fieldThresholds.getName())
+					.setValue(String.valueOf(fieldThresholds.isRightClosed() ? index : (index + 1)));
+			}
+		} // End if
+
+		if(node.hasNodes()){
+			List<Node> children = node.getNodes();
+
+			for(Node child : children){
+				bin(child);
+			}
+		}
+	}
+
+	static
+	private Discretize createDiscretize(FieldName name, Thresholds fieldThresholds){
+		List<Double> values = fieldThresholds.getValues();
+
+		boolean rightClosed = fieldThresholds.isRightClosed();
+
+		Discretize discretize = new Discretize(name)
+			.setDataType(DataType.INTEGER);
+
+		for(int i = 0; i <= values.size(); i++){
+			Double leftMargin = (i > 0 ? values.get(i - 1) : null);
+			Double rightMargin = (i < values.size() ? values.get(i) : null);
+
+			Interval.Closure closure;
+
+			if(rightClosed){
+				closure = (rightMargin != null ? Interval.Closure.OPEN_CLOSED : Interval.Closure.OPEN_OPEN);
+			} else
+
+			{
+				closure = (leftMargin != null ? Interval.Closure.CLOSED_OPEN : Interval.Closure.OPEN_OPEN);
+			}
+
+			Interval interval = new Interval(closure)
+				.setLeftMargin(leftMargin)
+				.setRightMargin(rightMargin);
+
+			discretize.addDiscretizeBins(new DiscretizeBin(String.valueOf(i), interval));
+		}
+
+		return discretize;
+	}
+
+	static
+	private void collectThresholds(Node node, Map<FieldName, Thresholds> thresholds){
+		Predicate predicate = node.getPredicate();
+
+		if(predicate instanceof SimplePredicate){
+			SimplePredicate simplePredicate = (SimplePredicate)predicate;
+
+			Boolean rightClosed = isRightClosed(simplePredicate.getOperator());
+
+			if(rightClosed != null){
+				Thresholds fieldThresholds = thresholds.get(simplePredicate.getField());
+
+				if(fieldThresholds == null){
+					fieldThresholds = new Thresholds(rightClosed);
+
+					thresholds.put(simplePredicate.getField(), fieldThresholds);
+				}
+
+				fieldThresholds.add(simplePredicate.getValue(), rightClosed);
+			}
+		} // End if
+
+		if(node.hasNodes()){
+			List<Node> children = node.getNodes();
+
+			for(Node child : children){
+				collectThresholds(child, thresholds);
+			}
+		}
+	}
+
+	/**
+	 * @return <code>true</code> for right-closed operators, <code>false</code> for left-closed operators,
+	 * or <code>null</code> if the predicate is not a split on a continuous value.
+	 */
+	static
+	private Boolean isRightClosed(SimplePredicate.Operator operator){
+
+		switch(operator){
+			case LESS_OR_EQUAL:
+			case GREATER_THAN:
+				return Boolean.TRUE;
+			case LESS_THAN:
+			case GREATER_OR_EQUAL:
+				return Boolean.FALSE;
+			default:
+				return null;
+		}
+	}
+
+	static
+	private boolean isBinnable(DataType dataType){
+
+		if(dataType == null){
+			return false;
+		}
+
+		switch(dataType){
+			case DOUBLE:
+			case INTEGER:
+				return true;
+			default:
+				return false;
+		}
+	}
+
+	static
+	private class Thresholds {
+
+		private FieldName name = null;
+
+		private boolean rightClosed = false;
+
+		private boolean mixed = false;
+
+		private Set<Double> values = new TreeSet<>();
+
+		private List<Double> sortedValues = null;
+
+
+		private Thresholds(boolean rightClosed){
+			this.rightClosed = rightClosed;
+		}
+
+		public void add(String value, boolean rightClosed){
+
+			if(this.sortedValues != null){
+				throw new IllegalStateException();
+			} // End if
+
+			if(this.rightClosed != rightClosed){
+				this.mixed = true;
+			}
+
+			Double doubleValue;
+
+			try {
+				doubleValue = Double.valueOf(value);
+			} catch(NumberFormatException nfe){
+				doubleValue = null;
+			}
+
+			if(doubleValue == null || doubleValue.isNaN() || doubleValue.isInfinite()){
+				this.mixed = true;
+
+				return;
+			}
+
+			this.values.add(doubleValue);
+		}
+
+		public FieldName getName(){
+			return this.name;
+		}
+
+		public void setName(FieldName name){
+			this.name = name;
+		}
+
+		public boolean isRightClosed(){
+			return this.rightClosed;
+		}
+
+		public boolean isMixed(){
+			return this.mixed;
+		}
+
+		/**
+		 * <p>
+		 * Materializes the collected thresholds as a sorted list, which is suitable for binary search.
+		 * No more thresholds can be added after this.
+		 * </p>
+		 */
+		public List<Double> sort(){
+
+			if(this.sortedValues == null){
+				this.sortedValues = Collections.unmodifiableList(new ArrayList<>(this.values));
+
+				this.values = null;
+			}
+
+			return this.sortedValues;
+		}
+
+		public List<Double> getValues(){
+
+			if(this.sortedValues == null){
+				throw new IllegalStateException();
+			}
+
+			return this.sortedValues;
+		}
+	}
+}
@@ -0,0 +1,581 @@
+/*
+ * Copyright (c) 2017 Villu Ruusmann
+ *
+ * This file is part of JPMML-R
+ *
+ * JPMML-R is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JPMML-R is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with JPMML-R.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.jpmml.rexp;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+import org.dmg.pmml.Array;
+import org.dmg.pmml.DataField;
+import org.dmg.pmml.False;
+import org.dmg.pmml.FieldName;
+import org.dmg.pmml.OpType;
+import org.dmg.pmml.Output;
+import org.dmg.pmml.OutputField;
+import org.dmg.pmml.Predicate;
+import org.dmg.pmml.ResultFeature;
+import org.dmg.pmml.ScoreDistribution;
+import org.dmg.pmml.SimplePredicate;
+import org.dmg.pmml.SimpleSetPredicate;
+import org.dmg.pmml.True;
+import org.dmg.pmml.VisitorAction;
+import org.dmg.pmml.tree.Node;
+import org.dmg.pmml.tree.TreeModel;
+import org.jpmml.converter.PMMLUtil;
+import org.jpmml.model.visitors.AbstractVisitor;
+
+/**
+ * <p>
+ * A Visitor that reduces the size of tree models by exploiting the "returnLastPrediction" no true child strategy.
+ * </p>
+ *
+ * <p>
+ * In every node, the last child is lifted into its parent, so that the parent inherits the score and the children of the last child.
+ * This is possible if the predicate of the last child is the complement of the predicate of the next-to-last child, or if it is a True predicate.
+ * The two kinds of splits route missing values differently (to a null prediction and to the True child, respectively),
+ * so a tree model that contains both is left unchanged.
+ * After that, trailing leaf children that have the same score as their parent are removed.
+ * Subtrees whose leaves all have the same score collapse into a single node.
+ * </p>
+ *
+ * <p>
+ * Tree models that specify the "defaultChild" missing value strategy (eg. XGBoost models) are compacted differently.
+ * In every node, the default child is lifted into its parent, so that missing values are routed by the "returnLastPrediction" no true child strategy instead.
+ * This is possible if the predicates of the remaining children are complements of one another.
+ * </p>
+ *
+ * <p>
+ * Tree models that specify other non-default missing value or no true child strategies, that report entity identifiers,
+ * or that contain at least one non-compactable node are left unchanged.
+ * The compaction of categorical splits relies on the valid values of the DataDictionary.
+ * This Visitor should therefore be applied to the complete PMML class model object.
+ * </p>
+ */
+public class TreeModelCompactor extends AbstractVisitor {
+
+	private Map<FieldName, Set<String>> fieldValues = new HashMap<>();
+
+	private boolean complementSplit = false;
+
+	private boolean fallThroughSplit = false;
+
+
+	@Override
+	public VisitorAction visit(DataField dataField){
+		OpType opType = dataField.getOpType();
+
+		if((OpType.CATEGORICAL).equals(opType) && dataField.hasValues()){
+			this.fieldValues.put(dataField.getName(), new HashSet<>(PMMLUtil.getValues(dataField)));
+		}
+
+		return VisitorAction.SKIP;
+	}
+
+	@Override
+	public VisitorAction visit(TreeModel treeModel){
+
+		if(isDefaultChildCompactable(treeModel)){
+			compactDefaultChild(treeModel.getNode());
+
+			// Missing values make predicates evaluate to false, and fall through to the lifted default children
+			treeModel.setMissingValueStrategy(TreeModel.MissingValueStrategy.NONE);
+		} else
+
+		if(isCompactable(treeModel)){
+			compact(treeModel.getNode());
+
+			// Missing values make complementary predicates both evaluate to false, which yields a null prediction
+			if(this.complementSplit){
+				treeModel.setMissingValueStrategy(TreeModel.MissingValueStrategy.NULL_PREDICTION);
+			}
+		} else
+
+		{
+			return VisitorAction.SKIP;
+		}
+
+		treeModel
+			.setNoTrueChildStrategy(TreeModel.NoTrueChildStrategy.RETURN_LAST_PREDICTION)
+			.setSplitCharacteristic(TreeModel.SplitCharacteristic.MULTI_SPLIT);
+
+		return VisitorAction.SKIP;
+	}
+
+	private boolean isCompactable(TreeModel treeModel){
+
+		if(!(TreeModel.MissingValueStrategy.NONE).equals(treeModel.getMissingValueStrategy()) || !(TreeModel.NoTrueChildStrategy.RETURN_NULL_PREDICTION).equals(treeModel.getNoTrueChildStrategy())){
+			return false;
+		}
+
+		if(hasEntityIdOutput(treeModel)){
+			return false;
+		}
+
+		this.complementSplit = false;
+		this.fallThroughSplit = false;
+
+		if(!isCompactable(treeModel.getNode())){
+			return false;
+		}
+
+		// A missing value yields a null prediction in a complementary split, but falls through to the True child in a fall-through split.
+		// The compacted tree model can preserve one behaviour or the other, but not both
+		return !(this.complementSplit && this.fallThroughSplit);
+	}
+
+	private boolean isCompactable(Node node){
+
+		if(node.getEmbeddedModel() != null || node.getPartition() != null){
+			return false;
+		} // End if
+
+		if(!node.hasNodes()){
+			return true;
+		}
+
+		List<Node> children = node.getNodes();
+
+		Node lastChild = children.get(children.size() - 1);
+
+		if(children.size() == 1){
+
+			if(!(lastChild.getPredicate() instanceof True)){
+				return false;
+			}
+		} else
+
+		{
+			Node nextToLastChild = children.get(children.size() - 2);
+
+			if(lastChild.getPredicate() instanceof True){
+				this.fallThroughSplit = true;
+			} else
+
+			if(isComplement(nextToLastChild.getPredicate(), lastChild.getPredicate())){
+				this.complementSplit = true;
+			} else
+
+			{
+				return false;
+			}
+		}
+
+		for(Node child : children){
+
+			if(!isCompactable(child)){
+				return false;
+			}
+		}
+
+		return true;
+	}
+
+	private boolean isDefaultChildCompactable(TreeModel treeModel){
+
+		if(!(TreeModel.MissingValueStrategy.DEFAULT_CHILD).equals(treeModel.getMissingValueStrategy()) || !(TreeModel.NoTrueChildStrategy.RETURN_NULL_PREDICTION).equals(treeModel.getNoTrueChildStrategy())){
+			return false;
+		} // End if
+
+		if(hasEntityIdOutput(treeModel)){
+			return false;
+		}
+
+		return isDefaultChildCompactable(treeModel.getNode());
+	}
+
+	private boolean isDefaultChildCompactable(Node node){
+
+		if(node.getEmbeddedModel() != null || node.getPartition() != null){
+			return false;
+		} // End if
+
+		if(!node.hasNodes()){
+			return true;
+		}
+
+		Node defaultChild = getDefaultChild(node);
+		if(defaultChild == null){
+			return false;
+		}
+
+		List<Node> children = new ArrayList<>(node.getNodes());
+
+		// A default child that is not selectable by its predicate (eg. a dedicated missing value child)
+		if(defaultChild.getPredicate() instanceof False){
+			children.remove(defaultChild);
+		} // End if
+
+		if(children.size() != 2){
+			return false;
+		}
+
+		Node leftChild = children.get(0);
+		Node rightChild = children.get(1);
+
+		// A missing value is routed to the default child, which is where it falls through after compaction only if the default child is the True child
+		boolean fallThrough = (rightChild.getPredicate() instanceof True) && (rightChild == defaultChild);
+
+		if(!fallThrough && !isComplement(leftChild.getPredicate(), rightChild.getPredicate())){
+			return false;
+		}
+
+		for(Node child : node.getNodes()){
+
+			if(!isDefaultChildCompactable(child)){
+				return false;
+			}
+		}
+
+		return true;
+	}
+
+	private boolean isComplement(Predicate left, Predicate right){
+
+		if(left instanceof SimplePredicate && right instanceof SimplePredicate){
+			SimplePredicate leftSimplePredicate = (SimplePredicate)left;
+			SimplePredicate rightSimplePredicate = (SimplePredicate)right;
+
+			if((leftSimplePredicate.getField()).equals(rightSimplePredicate.getField()) && Objects.equals(leftSimplePredicate.getValue(), rightSimplePredicate.getValue())){
+				SimplePredicate.Operator operator = complement(leftSimplePredicate.getOperator());
+
+				if(operator != null && (operator).equals(rightSimplePredicate.getOperator())){
+					return true;
+				}
+			}
+		} else
+
+		if(left instanceof SimpleSetPredicate && right instanceof SimpleSetPredicate){
+			SimpleSetPredicate leftSimpleSetPredicate = (SimpleSetPredicate)left;
+			SimpleSetPredicate rightSimpleSetPredicate = (SimpleSetPredicate)right;
+
+			if((leftSimpleSetPredicate.getField()).equals(rightSimpleSetPredicate.getField()) && !(leftSimpleSetPredicate.getBooleanOperator()).equals(rightSimpleSetPredicate.getBooleanOperator())){
+				Array leftArray = leftSimpleSetPredicate.getArray();
+				Array rightArray = rightSimpleSetPredicate.getArray();
+
+				if(Objects.equals(leftArray.getValue(), rightArray.getValue())){
+					return true;
+				}
+			}
+		}
+
+		FieldName name = getField(left);
+
+		if(name == null || !(name).equals(getField(right))){
+			return false;
+		}
+
+		Set<String> values = this.fieldValues.get(name);
+		if(values == null){
+			return false;
+		}
+
+		Set<String> leftValues = getValues(left, values);
+		Set<String> rightValues = getValues(right, values);
+
+		if(leftValues == null || rightValues == null){
+			return false;
+		}
+
+		Set<String> unionValues = new HashSet<>(leftValues);
+		unionValues.addAll(rightValues);
+
+		return ((leftValues.size() + rightValues.size()) == unionValues.size()) && (unionValues).equals(values);
+	}
+
+	static
+	private void compact(Node node){
+
+		if(!node.hasNodes()){
+			return;
+		}
+
+		List<Node> children = node.getNodes();
+
+		for(Node child : children){
+			compact(child);
+		}
+
+		Node lastChild = children.remove(children.size() - 1);
+
+		node.setScore(lastChild.getScore());
+
+		List<ScoreDistribution> scoreDistributions = node.getScoreDistributions();
+		scoreDistributions.clear();
+
+		if(lastChild.hasScoreDistributions()){
+			scoreDistributions.addAll(lastChild.getScoreDistributions());
+		} // End if
+
+		if(lastChild.hasNodes()){
+			children.addAll(lastChild.getNodes());
+		}
+
+		for(int i = children.size() - 1; i > -1; i--){
+			Node child = children.get(i);
+
+			if(child.hasNodes() || child.hasScoreDistributions() || node.hasScoreDistributions()){
+				break;
+			} // End if
+
+			if(!Objects.equals(node.getScore(), child.getScore())){
+				break;
+			}
+
+			children.remove(i);
+		}
+	}
+
+	/**
+	 * <p>
+	 * The default child is lifted into its parent, and the other children are moved in front of its children.
+	 * A record that does not satisfy the predicate of any other child (including a record with a missing value) falls through to the children of the default child,
+	 * and finally to the score of the default child via the "returnLastPrediction" no true child strategy.
+	 * </p>
+	 */
+	static
+	private void compactDefaultChild(Node node){
+
+		if(!node.hasNodes()){
+			return;
+		}
+
+		List<Node> children = node.getNodes();
+
+		for(Node child : children){
+			compactDefaultChild(child);
+		}
+
+		Node defaultChild = getDefaultChild(node);
+
+		children.remove(defaultChild);
+
+		node
+			.setDefaultChild(null)
+			.setScore(defaultChild.getScore());
+
+		List<ScoreDistribution> scoreDistributions = node.getScoreDistributions();
+		scoreDistributions.clear();
+
+		if(defaultChild.hasScoreDistributions()){
+			scoreDistributions.addAll(defaultChild.getScoreDistributions());
+		} // End if
+
+		if(defaultChild.hasNodes()){
+			children.addAll(defaultChild.getNodes());
+		}
+	}
+
+	static
+	private Node getDefaultChild(Node node){
+		String id = node.getDefaultChild();
+
+		if(id == null || !node.hasNodes()){
+			return null;
+		}
+
+		List<Node> children = node.getNodes();
+		for(Node child : children){
+
+			if((id).equals(child.getId())){
+				return child;
+			}
+		}
+
+		return null;
+	}
+
+	static
+	private boolean hasEntityIdOutput(TreeModel treeModel){
+		Output output = treeModel.getOutput();
+
+		if(output != null && output.hasOutputFields()){
+			List<OutputField> outputFields = output.getOutputFields();
+
+			for(OutputField outputField : outputFields){
+
+				if((ResultFeature.ENTITY_ID).equals(outputField.getResultFeature())){
+					return true;
+				}
+			}
+		}
+
+		return false;
+	}
+
+	static
+	private SimplePredicate.Operator complement(SimplePredicate.Operator operator){
+
+		switch(operator){
+			case EQUAL:
+				return SimplePredicate.Operator.NOT_EQUAL;
+			case NOT_EQUAL:
+				return SimplePredicate.Operator.EQUAL;
+			case LESS_THAN:
+				return SimplePredicate.Operator.GREATER_OR_EQUAL;
+			case LESS_OR_EQUAL:
+				return SimplePredicate.Operator.GREATER_THAN;
+			case GREATER_THAN:
+				return SimplePredicate.Operator.LESS_OR_EQUAL;
+			case GREATER_OR_EQUAL:
+				return SimplePredicate.Operator.LESS_THAN;
+			default:
+				return null;
+		}
+	}
+
+	static
+	private FieldName getField(Predicate predicate){
+
+		if(predicate instanceof SimplePredicate){
+			SimplePredicate simplePredicate = (SimplePredicate)predicate;
+
+			return simplePredicate.getField();
+		} else
+
+		if(predicate instanceof SimpleSetPredicate){
+			SimpleSetPredicate simpleSetPredicate = (SimpleSetPredicate)predicate;
+
+			return simpleSetPredicate.getField();
+		}
+
+		return null;
+	}
+
+	static
+	private Set<String> getValues(Predicate predicate, Set<String> values){
+
+		if(predicate instanceof SimplePredicate){
+			SimplePredicate simplePredicate = (SimplePredicate)predicate;
+
+			String value = simplePredicate.getValue();
+
+			SimplePredicate.Operator operator = simplePredicate.getOperator();
+			switch(operator){
+				case EQUAL:
+					{
+						Set<String> result = new HashSet<>();
+						result.add(value);
+
+						return result;
+					}
+				case NOT_EQUAL:
+					{
+						Set<String> result = new HashSet<>(values);
+						result.remove(value);
+
+						return result;
+					}
+				default:
+					return null;
+			}
+		} else
+
+		if(predicate instanceof SimpleSetPredicate){
+			SimpleSetPredicate simpleSetPredicate = (SimpleSetPredicate)predicate;
+
+			List<String> arrayValues = parseArray(simpleSetPredicate.getArray());
+
+			SimpleSetPredicate.BooleanOperator booleanOperator = simpleSetPredicate.getBooleanOperator();
+			switch(booleanOperator){
+				case IS_IN:
+					return new HashSet<>(arrayValues);
+				case IS_NOT_IN:
+					{
+						Set<String> result = new HashSet<>(values);
+						result.removeAll(arrayValues);
+
+						return result;
+					}
+				default:
+					return null;
+			}
+		}
+
+		return null;
+	}
+
+	/**
+	 * @see org.jpmml.converter.ValueUtil#formatArrayValue(List)
+	 */
+	static
+	List<String> parseArray(Array array){
+		List<String> result = new ArrayList<>();
+
+		String value = array.getValue();
+
+		StringBuilder sb = new StringBuilder();
+
+		boolean quoted = false;
+
+		for(int i = 0; i < value.length(); i++){
+			char c = value.charAt(i);
+
+			if(quoted){
+
+				if(c == '\\' && (i + 1) < value.length() && value.charAt(i + 1) == '\"'){
+					sb.append('\"');
+
+					i++;
+				} else
+
+				if(c == '\"'){
+					result.add(sb.toString());
+
+					sb.setLength(0);
+
+					quoted = false;
+				} else
+
+				{
+					sb.append(c);
+				}
+			} else
+
+			{
+				if(c == '\"'){
+					quoted = true;
+				} else
+
+				if(Character.isWhitespace(c)){
+
+					if(sb.length() > 0){
+						result.add(sb.toString());
+
+						sb.setLength(0);
+					}
+				} else
+
+				{
+					sb.append(c);
+				}
+			}
+		}
+
+		if(sb.length() > 0){
+			result.add(sb.toString());
+		}
+
+		return result;
+	}
+}
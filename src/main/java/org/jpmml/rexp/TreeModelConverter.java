@@ -18,36 +18,372 @@
  */
 package org.jpmml.rexp;
 
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
+import org.dmg.pmml.DataType;
+import org.dmg.pmml.FieldName;
+import org.dmg.pmml.MiningFunction;
+import org.dmg.pmml.PMML;
 import org.dmg.pmml.Predicate;
+import org.dmg.pmml.ScoreDistribution;
 import org.dmg.pmml.SimplePredicate;
+import org.dmg.pmml.SimpleSetPredicate;
+import org.dmg.pmml.tree.Node;
+import org.dmg.pmml.tree.TreeModel;
+import org.jpmml.converter.CategoricalFeature;
 import org.jpmml.converter.Feature;
 import org.jpmml.converter.PredicateManager;
+import org.jpmml.converter.Schema;
+import org.jpmml.converter.ValueUtil;
 
 abstract
 public class TreeModelConverter<R extends RExp> extends ModelConverter<R> {
 
 	private PredicateManager predicateManager = new PredicateManager();
 
+	private Map<Predicate, Predicate> complementPredicates = new IdentityHashMap<>();
+
+	private int maxDepth = -1;
+
+	private boolean pruneTrees = false;
+
+	private TreeModelPostProcessor postProcessor = new TreeModelPostProcessor();
+
+	private boolean complementSets = false;
+
+	private boolean binFeatures = false;
+
 
 	public TreeModelConverter(R object){
 		super(object);
 	}
 
+	@Override
+	public void applyOptions(ConverterOptions options){
+		Integer ntreeLimit = options.removeInteger(ConverterOptions.NTREE_LIMIT);
+		if(ntreeLimit != null){
+			setNtreeLimit(ntreeLimit);
+		}
+
+		Integer maxDepth = options.removeInteger(ConverterOptions.MAX_DEPTH);
+		if(maxDepth != null){
+			setMaxDepth(maxDepth);
+		}
+
+		Boolean pruneTrees = options.removeBoolean(ConverterOptions.PRUNE);
+		if(pruneTrees != null){
+			setPruneTrees(pruneTrees);
+		}
+
+		TreeModelPostProcessor postProcessor = getPostProcessor();
+		postProcessor.applyOptions(options);
+
+		Boolean complementSets = options.removeBoolean(ConverterOptions.COMPLEMENT_SETS);
+		if(complementSets != null){
+			setComplementSets(complementSets);
+		}
+
+		Boolean binFeatures = options.removeBoolean(ConverterOptions.BIN_FEATURES);
+		if(binFeatures != null){
+			setBinFeatures(binFeatures);
+		}
+
+		super.applyOptions(options);
+	}
+
+	@Override
+	public PMML encodePMML(RExpEncoder encoder){
+		PMML pmml = super.encodePMML(encoder);
+
+		TreeModelPostProcessor postProcessor = getPostProcessor();
+		postProcessor.applyTo(pmml);
+
+		if(isBinFeatures()){
+			TreeModelBinner binner = new TreeModelBinner();
+			binner.applyTo(pmml);
+		}
+
+		return pmml;
+	}
+
 	public Predicate createSimpleSetPredicate(Feature feature, List<String> values){
 		PredicateManager predicateManager = getPredicateManager();
 
-		return predicateManager.createSimpleSetPredicate(feature, values);
+		return reportPredicate(predicateManager.createSimpleSetPredicate(feature, values));
+	}
+
+	/**
+	 * <p>
+	 * Encodes one side of a binary categorical split.
+	 * </p>
+	 *
+	 * <p>
+	 * If complement sets are enabled, and the two sides partition all the values of the feature,
+	 * then the larger side is encoded as the complement of the smaller side ("isNotIn" instead of "isIn").
+	 * Both encodings evaluate to unknown if the value is missing.
+	 * </p>
+	 *
+	 * @param values The values of this side.
+	 * @param otherValues The values of the other side.
+	 *
+	 * @see #isComplementSets()
+	 */
+	public Predicate createSimpleSetPredicate(CategoricalFeature feature, List<String> values, List<String> otherValues){
+
+		if(isComplementSets() && (otherValues.size() > 0 && otherValues.size() < values.size()) && (values.size() + otherValues.size()) == (feature.getValues()).size()){
+			PredicateManager predicateManager = getPredicateManager();
+
+			Predicate otherPredicate = predicateManager.createSimpleSetPredicate(feature, otherValues);
+
+			Predicate predicate = this.complementPredicates.get(otherPredicate);
+			if(predicate == null){
+				predicate = complement(otherPredicate);
+
+				this.complementPredicates.put(otherPredicate, predicate);
+			}
+
+			return reportPredicate(predicate);
+		}
+
+		return createSimpleSetPredicate(feature, values);
 	}
 
 	public Predicate createSimplePredicate(Feature feature, SimplePredicate.Operator operator, String value){
 		PredicateManager predicateManager = getPredicateManager();
 
-		return predicateManager.createSimplePredicate(feature, operator, value);
+		return reportPredicate(predicateManager.createSimplePredicate(feature, operator, value));
+	}
+
+	/**
+	 * @return <code>true</code> if a node at the specified depth (the root node being at depth zero) should be encoded as a leaf node.
+	 */
+	public boolean isDepthLimited(int depth){
+		int maxDepth = getMaxDepth();
+
+		return (maxDepth > -1 && depth >= maxDepth);
+	}
+
+	/**
+	 * <p>
+	 * Removes unreachable and redundant splits from a newly encoded tree model.
+	 * </p>
+	 *
+	 * @param schema The schema of the tree model, which provides the data types of fields.
+	 *
+	 * @see TreeModelPruner
+	 */
+	public TreeModel pruneTreeModel(TreeModel treeModel, Schema schema){
+
+		if(isPruneTrees()){
+			Map<FieldName, DataType> dataTypes = new HashMap<>();
+
+			List<Feature> features = schema.getFeatures();
+			for(Feature feature : features){
+				dataTypes.put(feature.getName(), feature.getDataType());
+			}
+
+			TreeModelPruner pruner = new TreeModelPruner(dataTypes);
+			pruner.applyTo(treeModel);
+		}
+
+		return treeModel;
 	}
 
 	public PredicateManager getPredicateManager(){
 		return this.predicateManager;
 	}
+
+	/**
+	 * @return The maximum depth of tree models, or <code>-1</code> if tree models should be encoded in full.
+	 *
+	 * @see #isDepthLimited(int)
+	 */
+	public int getMaxDepth(){
+		return this.maxDepth;
+	}
+
+	public void setMaxDepth(int maxDepth){
+
+		if(maxDepth < 0 && maxDepth != -1){
+			throw new IllegalArgumentException("The maximum depth must be a non-negative integer, got " + maxDepth);
+		}
+
+		this.maxDepth = maxDepth;
+	}
+
+	public boolean isPruneTrees(){
+		return this.pruneTrees;
+	}
+
+	public void setPruneTrees(boolean pruneTrees){
+		this.pruneTrees = pruneTrees;
+	}
+
+	/**
+	 * @see TreeModelPostProcessor
+	 */
+	public TreeModelPostProcessor getPostProcessor(){
+		return this.postProcessor;
+	}
+
+	/**
+	 * @see #createSimpleSetPredicate(CategoricalFeature, List, List)
+	 */
+	public boolean isComplementSets(){
+		return this.complementSets;
+	}
+
+	public void setComplementSets(boolean complementSets){
+		this.complementSets = complementSets;
+	}
+
+	/**
+	 * @see TreeModelBinner
+	 */
+	public boolean isBinFeatures(){
+		return this.binFeatures;
+	}
+
+	public void setBinFeatures(boolean binFeatures){
+		this.binFeatures = binFeatures;
+	}
+
+	/**
+	 * <p>
+	 * Turns a node into a leaf node, whose prediction summarizes the predictions of the leaf nodes of the subtree that it replaces.
+	 * </p>
+	 *
+	 * <p>
+	 * In regression, the score is the weighted average of leaf scores.
+	 * In classification, the probability distribution is the weighted average of leaf probability distributions,
+	 * or, if leaf nodes do not specify probability distributions, the score is the weighted majority vote of leaf scores.
+	 * </p>
+	 *
+	 * @param leaves The leaf nodes of the replaced subtree.
+	 * @param weights The sample sizes of the leaf nodes, or <code>null</code> if all leaf nodes should be weighted equally.
+	 */
+	static
+	public Node aggregateLeaves(Node node, MiningFunction miningFunction, List<Node> leaves, List<? extends Number> weights){
+
+		if(leaves.isEmpty() || (weights != null && weights.size() != leaves.size())){
+			throw new IllegalArgumentException();
+		}
+
+		switch(miningFunction){
+			case REGRESSION:
+				{
+					double sum = 0d;
+					double weightSum = 0d;
+
+					for(int i = 0; i < leaves.size(); i++){
+						Node leaf = leaves.get(i);
+						double weight = (weights != null ? (weights.get(i)).doubleValue() : 1d);
+
+						sum += weight * Double.parseDouble(leaf.getScore());
+						weightSum += weight;
+					}
+
+					node.setScore(ValueUtil.formatValue(sum / weightSum));
+				}
+				break;
+			case CLASSIFICATION:
+				{
+					Map<String, Double> values = new LinkedHashMap<>();
+
+					boolean probabilistic = (leaves.get(0)).hasScoreDistributions();
+
+					double weightSum = 0d;
+
+					for(int i = 0; i < leaves.size(); i++){
+						Node leaf = leaves.get(i);
+						double weight = (weights != null ? (weights.get(i)).doubleValue() : 1d);
+
+						if(probabilistic){
+							List<ScoreDistribution> scoreDistributions = leaf.getScoreDistributions();
+
+							for(ScoreDistribution scoreDistribution : scoreDistributions){
+								increment(values, scoreDistribution.getValue(), weight * scoreDistribution.getRecordCount());
+							}
+						} else
+
+						{
+							increment(values, leaf.getScore(), weight);
+						}
+
+						weightSum += weight;
+					}
+
+					Double maxValue = null;
+
+					for(Map.Entry<String, Double> entry : values.entrySet()){
+						String value = entry.getKey();
+
+						if(maxValue == null || (maxValue).compareTo(entry.getValue()) < 0){
+							node.setScore(value);
+
+							maxValue = entry.getValue();
+						} // End if
+
+						if(probabilistic){
+							ScoreDistribution scoreDistribution = new ScoreDistribution(value, entry.getValue() / weightSum);
+
+							node.addScoreDistributions(scoreDistribution);
+						}
+					}
+				}
+				break;
+			default:
+				throw new IllegalArgumentException();
+		}
+
+		return node;
+	}
+
+	static
+	private Predicate complement(Predicate predicate){
+
+		if(predicate instanceof SimplePredicate){
+			SimplePredicate simplePredicate = (SimplePredicate)predicate;
+
+			if(!(SimplePredicate.Operator.EQUAL).equals(simplePredicate.getOperator())){
+				throw new IllegalArgumentException();
+			}
+
+			return new SimplePredicate(simplePredicate.getField(), SimplePredicate.Operator.NOT_EQUAL)
+				.setValue(simplePredicate.getValue());
+		} else
+
+		if(predicate instanceof SimpleSetPredicate){
+			SimpleSetPredicate simpleSetPredicate = (SimpleSetPredicate)predicate;
+
+			if(!(SimpleSetPredicate.BooleanOperator.IS_IN).equals(simpleSetPredicate.getBooleanOperator())){
+				throw new IllegalArgumentException();
+			}
+
+			return new SimpleSetPredicate(simpleSetPredicate.getField(), SimpleSetPredicate.BooleanOperator.IS_NOT_IN, simpleSetPredicate.getArray());
+		}
+
+		throw new IllegalArgumentException();
+	}
+
+	static
+	private void increment(Map<String, Double> values, String value, double weight){
+		Double sum = values.get(value);
+
+		values.put(value, (sum != null ? sum : 0d) + weight);
+	}
+
+	private Predicate reportPredicate(Predicate predicate){
+		ConversionListener listener = getListener();
+
+		if(listener != null){
+			listener.predicateInterned(predicate);
+		}
+
+		return predicate;
+	}
 }
\ No newline at end of file
@@ -0,0 +1,107 @@
+/*
+ * Copyright (c) 2017 Villu Ruusmann
+ *
+ * This file is part of JPMML-R
+ *
+ * JPMML-R is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JPMML-R is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with JPMML-R.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.jpmml.rexp;
+
+import org.dmg.pmml.PMML;
+
+/**
+ * <p>
+ * Size reductions that tree model converters apply to the PMML document after conversion.
+ * </p>
+ *
+ * <p>
+ * Split thresholds and node scores are rounded first, so that the compaction can merge sibling leaf nodes whose scores became equal.
+ * </p>
+ *
+ * @see TreeModelRounder
+ * @see TreeModelCompactor
+ */
+public class TreeModelPostProcessor {
+
+	private boolean compactTrees = false;
+
+	private Integer precision = null;
+
+
+	/**
+	 * <p>
+	 * Applies and removes the options that this post-processor supports.
+	 * </p>
+	 *
+	 * @see Converter#applyOptions(ConverterOptions)
+	 */
+	public void applyOptions(ConverterOptions options){
+		Boolean compactTrees = options.removeBoolean(ConverterOptions.COMPACT);
+		if(compactTrees != null){
+			setCompactTrees(compactTrees);
+		}
+
+		String precision = options.remove(ConverterOptions.PRECISION);
+		if(precision != null){
+			setPrecision(TreeModelRounder.parsePrecision(precision));
+		}
+	}
+
+	public void applyTo(PMML pmml){
+		Integer precision = getPrecision();
+		if(precision != null){
+			TreeModelRounder rounder = new TreeModelRounder(precision);
+			rounder.applyTo(pmml);
+		} // End if
+
+		if(isCompactTrees()){
+			TreeModelCompactor compactor = new TreeModelCompactor();
+			compactor.applyTo(pmml);
+		}
+	}
+
+	/**
+	 * @see TreeModelCompactor
+	 */
+	public boolean isCompactTrees(){
+		return this.compactTrees;
+	}
+
+	public void setCompactTrees(boolean compactTrees){
+		this.compactTrees = compactTrees;
+	}
+
+	/**
+	 * @return The number of significant digits (between 1 and 17) of split thresholds and node scores,
+	 * {@link TreeModelRounder#FLOAT} (<code>0</code>) for the shortest representation that identifies a 32-bit floating point value,
+	 * or <code>null</code> (the full precision).
+	 *
+	 * @see TreeModelRounder
+	 */
+	public Integer getPrecision(){
+		return this.precision;
+	}
+
+	/**
+	 * @throws IllegalArgumentException If the precision is not between 1 and 17, {@link TreeModelRounder#FLOAT} or <code>null</code>.
+	 */
+	public void setPrecision(Integer precision){
+
+		if(precision != null && (precision < 0 || precision > 17)){
+			throw new IllegalArgumentException("Expected the number of significant digits between 1 and 17, or " + TreeModelRounder.FLOAT + " (32-bit floating point), got " + precision);
+		}
+
+		this.precision = precision;
+	}
+}
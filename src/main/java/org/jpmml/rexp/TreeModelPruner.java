@@ -0,0 +1,582 @@
+/*
+ * Copyright (c) 2017 Villu Ruusmann
+ *
+ * This file is part of JPMML-R
+ *
+ * JPMML-R is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JPMML-R is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with JPMML-R.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.jpmml.rexp;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.dmg.pmml.DataType;
+import org.dmg.pmml.False;
+import org.dmg.pmml.FieldName;
+import org.dmg.pmml.Predicate;
+import org.dmg.pmml.ScoreDistribution;
+import org.dmg.pmml.SimplePredicate;
+import org.dmg.pmml.SimpleSetPredicate;
+import org.dmg.pmml.True;
+import org.dmg.pmml.VisitorAction;
+import org.dmg.pmml.tree.Node;
+import org.dmg.pmml.tree.TreeModel;
+import org.jpmml.model.visitors.AbstractVisitor;
+
+/**
+ * <p>
+ * A Visitor that removes unreachable and redundant splits from tree models.
+ * </p>
+ *
+ * <p>
+ * Every node is evaluated against the interval and category constraints that the predicates of its ancestor nodes place on each field.
+ * Children whose predicate cannot be satisfied are removed.
+ * A child whose predicate is always satisfied gets a True predicate, and its subsequent siblings are removed.
+ * A True child that remains the only child is lifted into its parent.
+ * </p>
+ *
+ * <p>
+ * A satisfied predicate on a field implies that the value of that field is not missing.
+ * The pruning is therefore limited to tree models that specify the default missing value strategy.
+ * </p>
+ *
+ * <p>
+ * The values of "equal", "notEqual", "isIn" and "isNotIn" predicates are compared by the data type of the field.
+ * For example, the values <code>1</code> and <code>1.0</code> of a double field are considered equal.
+ * The values of a field whose data type is not known are compared as strings.
+ * </p>
+ */
+public class TreeModelPruner extends AbstractVisitor {
+
+	private Map<FieldName, DataType> dataTypes = null;
+
+	private boolean binarySplit = true;
+
+
+	public TreeModelPruner(){
+		this(Collections.<FieldName, DataType>emptyMap());
+	}
+
+	/**
+	 * @param dataTypes The data types of the fields that the predicates refer to.
+	 */
+	public TreeModelPruner(Map<FieldName, DataType> dataTypes){
+		this.dataTypes = dataTypes;
+	}
+
+	@Override
+	public VisitorAction visit(TreeModel treeModel){
+
+		if(!isPrunable(treeModel)){
+			return VisitorAction.SKIP;
+		}
+
+		this.binarySplit = true;
+
+		prune(treeModel.getNode(), new HashMap<FieldName, Constraint>());
+
+		if((TreeModel.SplitCharacteristic.BINARY_SPLIT).equals(treeModel.getSplitCharacteristic()) && !this.binarySplit){
+			treeModel.setSplitCharacteristic(TreeModel.SplitCharacteristic.MULTI_SPLIT);
+		}
+
+		return VisitorAction.SKIP;
+	}
+
+	private void prune(Node node, Map<FieldName, Constraint> constraints){
+
+		if(!node.hasNodes()){
+			return;
+		}
+
+		List<Node> children = node.getNodes();
+
+		for(int i = 0; i < children.size(); ){
+			Node child = children.get(i);
+
+			Predicate predicate = child.getPredicate();
+
+			Boolean value = evaluate(predicate, constraints);
+
+			if((Boolean.FALSE).equals(value) && children.size() > 1){
+				children.remove(i);
+
+				continue;
+			} // End if
+
+			if((Boolean.TRUE).equals(value)){
+
+				if(!(predicate instanceof True)){
+					child.setPredicate(new True());
+				}
+
+				children.subList(i + 1, children.size()).clear();
+			}
+
+			prune(child, apply(predicate, constraints));
+
+			i++;
+		}
+
+		if(children.size() == 1){
+			Node child = children.get(0);
+
+			if(child.getPredicate() instanceof True){
+				lift(node, child);
+			}
+		}
+
+		int size = (node.hasNodes() ? children.size() : 0);
+		if(size != 0 && size != 2){
+			this.binarySplit = false;
+		}
+	}
+
+	static
+	private boolean isPrunable(TreeModel treeModel){
+
+		if(!(TreeModel.MissingValueStrategy.NONE).equals(treeModel.getMissingValueStrategy())){
+			return false;
+		}
+
+		return isPrunable(treeModel.getNode());
+	}
+
+	static
+	private boolean isPrunable(Node node){
+
+		if(node.getDefaultChild() != null || node.getEmbeddedModel() != null || node.getPartition() != null){
+			return false;
+		} // End if
+
+		if(node.hasNodes()){
+			List<Node> children = node.getNodes();
+
+			for(Node child : children){
+
+				if(!isPrunable(child)){
+					return false;
+				}
+			}
+		}
+
+		return true;
+	}
+
+	static
+	private void lift(Node node, Node child){
+		node
+			.setId(child.getId())
+			.setScore(child.getScore())
+			.setRecordCount(child.getRecordCount());
+
+		List<ScoreDistribution> scoreDistributions = node.getScoreDistributions();
+		scoreDistributions.clear();
+
+		if(child.hasScoreDistributions()){
+			scoreDistributions.addAll(child.getScoreDistributions());
+		}
+
+		List<Node> children = node.getNodes();
+		children.clear();
+
+		if(child.hasNodes()){
+			children.addAll(child.getNodes());
+		}
+	}
+
+	/**
+	 * @return {@link Boolean#TRUE} if the predicate is always satisfied,
+	 * {@link Boolean#FALSE} if the predicate is never satisfied,
+	 * <code>null</code> if it cannot be decided.
+	 */
+	Boolean evaluate(Predicate predicate, Map<FieldName, Constraint> constraints){
+
+		if(predicate instanceof True){
+			return Boolean.TRUE;
+		} else
+
+		if(predicate instanceof False){
+			return Boolean.FALSE;
+		} else
+
+		if(predicate instanceof SimplePredicate){
+			SimplePredicate simplePredicate = (SimplePredicate)predicate;
+
+			Constraint constraint = constraints.get(simplePredicate.getField());
+			if(constraint == null){
+				return null;
+			}
+
+			return constraint.evaluate(simplePredicate.getOperator(), normalize(simplePredicate.getField(), simplePredicate.getValue()));
+		} else
+
+		if(predicate instanceof SimpleSetPredicate){
+			SimpleSetPredicate simpleSetPredicate = (SimpleSetPredicate)predicate;
+
+			Constraint constraint = constraints.get(simpleSetPredicate.getField());
+			if(constraint == null){
+				return null;
+			}
+
+			return constraint.evaluate(simpleSetPredicate.getBooleanOperator(), normalize(simpleSetPredicate.getField(), TreeModelCompactor.parseArray(simpleSetPredicate.getArray())));
+		}
+
+		return null;
+	}
+
+	Map<FieldName, Constraint> apply(Predicate predicate, Map<FieldName, Constraint> constraints){
+		FieldName name;
+
+		if(predicate instanceof SimplePredicate){
+			SimplePredicate simplePredicate = (SimplePredicate)predicate;
+
+			name = simplePredicate.getField();
+		} else
+
+		if(predicate instanceof SimpleSetPredicate){
+			SimpleSetPredicate simpleSetPredicate = (SimpleSetPredicate)predicate;
+
+			name = simpleSetPredicate.getField();
+		} else
+
+		{
+			return constraints;
+		}
+
+		Constraint constraint = constraints.get(name);
+
+		constraint = (constraint != null ? constraint.copy() : new Constraint());
+
+		if(predicate instanceof SimplePredicate){
+			SimplePredicate simplePredicate = (SimplePredicate)predicate;
+
+			constraint.apply(simplePredicate.getOperator(), normalize(name, simplePredicate.getValue()));
+		} else
+
+		{
+			SimpleSetPredicate simpleSetPredicate = (SimpleSetPredicate)predicate;
+
+			constraint.apply(simpleSetPredicate.getBooleanOperator(), normalize(name, TreeModelCompactor.parseArray(simpleSetPredicate.getArray())));
+		}
+
+		Map<FieldName, Constraint> result = new HashMap<>(constraints);
+		result.put(name, constraint);
+
+		return result;
+	}
+
+	private Set<String> normalize(FieldName name, List<String> values){
+		Set<String> result = new HashSet<>();
+
+		for(String value : values){
+			result.add(normalize(name, value));
+		}
+
+		return result;
+	}
+
+	/**
+	 * <p>
+	 * Formats a numeric value in a canonical form, so that values can be compared as strings.
+	 * </p>
+	 */
+	private String normalize(FieldName name, String value){
+		DataType dataType = this.dataTypes.get(name);
+
+		if(value == null || dataType == null){
+			return value;
+		}
+
+		switch(dataType){
+			case INTEGER:
+			case FLOAT:
+			case DOUBLE:
+				try {
+					return Double.toString(Double.parseDouble(value));
+				} catch(NumberFormatException nfe){
+					return value;
+				}
+			default:
+				return value;
+		}
+	}
+
+	static
+	class Constraint {
+
+		private boolean missing = false;
+
+		private boolean present = false;
+
+		private double lower = Double.NEGATIVE_INFINITY;
+
+		private boolean lowerInclusive = false;
+
+		private double upper = Double.POSITIVE_INFINITY;
+
+		private boolean upperInclusive = false;
+
+		private Set<String> values = null;
+
+		private Set<String> excludedValues = new HashSet<>();
+
+
+		public Constraint copy(){
+			Constraint result = new Constraint();
+			result.missing = this.missing;
+			result.present = this.present;
+			result.lower = this.lower;
+			result.lowerInclusive = this.lowerInclusive;
+			result.upper = this.upper;
+			result.upperInclusive = this.upperInclusive;
+			result.values = (this.values != null ? new HashSet<>(this.values) : null);
+			result.excludedValues = new HashSet<>(this.excludedValues);
+
+			return result;
+		}
+
+		public Boolean evaluate(SimplePredicate.Operator operator, String value){
+
+			switch(operator){
+				case IS_MISSING:
+					return (this.missing ? Boolean.TRUE : (this.present ? Boolean.FALSE : null));
+				case IS_NOT_MISSING:
+					return (this.present ? Boolean.TRUE : (this.missing ? Boolean.FALSE : null));
+				default:
+					break;
+			}
+
+			if(this.missing){
+				return Boolean.FALSE;
+			} // End if
+
+			if(!this.present){
+				return null;
+			}
+
+			switch(operator){
+				case EQUAL:
+					return evaluateIn(singleton(value));
+				case NOT_EQUAL:
+					return negate(evaluateIn(singleton(value)));
+				default:
+					break;
+			}
+
+			double doubleValue;
+
+			try {
+				doubleValue = Double.parseDouble(value);
+			} catch(NumberFormatException nfe){
+				return null;
+			}
+
+			switch(operator){
+				case LESS_THAN:
+					if(this.upper < doubleValue || (this.upper == doubleValue && !this.upperInclusive)){
+						return Boolean.TRUE;
+					} else
+
+					if(this.lower >= doubleValue){
+						return Boolean.FALSE;
+					}
+					break;
+				case LESS_OR_EQUAL:
+					if(this.upper <= doubleValue){
+						return Boolean.TRUE;
+					} else
+
+					if(this.lower > doubleValue || (this.lower == doubleValue && !this.lowerInclusive)){
+						return Boolean.FALSE;
+					}
+					break;
+				case GREATER_THAN:
+					if(this.lower > doubleValue || (this.lower == doubleValue && !this.lowerInclusive)){
+						return Boolean.TRUE;
+					} else
+
+					if(this.upper <= doubleValue){
+						return Boolean.FALSE;
+					}
+					break;
+				case GREATER_OR_EQUAL:
+					if(this.lower >= doubleValue){
+						return Boolean.TRUE;
+					} else
+
+					if(this.upper < doubleValue || (this.upper == doubleValue && !this.upperInclusive)){
+						return Boolean.FALSE;
+					}
+					break;
+				default:
+					break;
+			}
+
+			return null;
+		}
+
+		public Boolean evaluate(SimpleSetPredicate.BooleanOperator booleanOperator, Set<String> values){
+
+			if(this.missing){
+				return Boolean.FALSE;
+			} // End if
+
+			if(!this.present){
+				return null;
+			}
+
+			switch(booleanOperator){
+				case IS_IN:
+					return evaluateIn(values);
+				case IS_NOT_IN:
+					return negate(evaluateIn(values));
+				default:
+					return null;
+			}
+		}
+
+		private Boolean evaluateIn(Set<String> values){
+
+			if(this.values != null){
+				Set<String> remainingValues = new HashSet<>(this.values);
+				remainingValues.removeAll(this.excludedValues);
+
+				if(values.containsAll(remainingValues)){
+					return Boolean.TRUE;
+				}
+
+				remainingValues.retainAll(values);
+
+				if(remainingValues.isEmpty()){
+					return Boolean.FALSE;
+				}
+			} else
+
+			{
+				if(this.excludedValues.containsAll(values)){
+					return Boolean.FALSE;
+				}
+			}
+
+			return null;
+		}
+
+		public void apply(SimplePredicate.Operator operator, String value){
+
+			switch(operator){
+				case IS_MISSING:
+					this.missing = true;
+					return;
+				case IS_NOT_MISSING:
+					this.present = true;
+					return;
+				default:
+					break;
+			}
+
+			this.present = true;
+
+			switch(operator){
+				case EQUAL:
+					applyIn(singleton(value));
+					return;
+				case NOT_EQUAL:
+					this.excludedValues.add(value);
+					return;
+				default:
+					break;
+			}
+
+			double doubleValue;
+
+			try {
+				doubleValue = Double.parseDouble(value);
+			} catch(NumberFormatException nfe){
+				return;
+			}
+
+			switch(operator){
+				case LESS_THAN:
+					if(doubleValue < this.upper || (doubleValue == this.upper && this.upperInclusive)){
+						this.upper = doubleValue;
+						this.upperInclusive = false;
+					}
+					break;
+				case LESS_OR_EQUAL:
+					if(doubleValue < this.upper){
+						this.upper = doubleValue;
+						this.upperInclusive = true;
+					}
+					break;
+				case GREATER_THAN:
+					if(doubleValue > this.lower || (doubleValue == this.lower && this.lowerInclusive)){
+						this.lower = doubleValue;
+						this.lowerInclusive = false;
+					}
+					break;
+				case GREATER_OR_EQUAL:
+					if(doubleValue > this.lower){
+						this.lower = doubleValue;
+						this.lowerInclusive = true;
+					}
+					break;
+				default:
+					break;
+			}
+		}
+
+		public void apply(SimpleSetPredicate.BooleanOperator booleanOperator, Set<String> values){
+			this.present = true;
+
+			switch(booleanOperator){
+				case IS_IN:
+					applyIn(values);
+					break;
+				case IS_NOT_IN:
+					this.excludedValues.addAll(values);
+					break;
+				default:
+					break;
+			}
+		}
+
+		private void applyIn(Set<String> values){
+
+			if(this.values != null){
+				this.values.retainAll(values);
+			} else
+
+			{
+				this.values = new HashSet<>(values);
+			}
+		}
+
+		static
+		private Set<String> singleton(String value){
+			Set<String> result = new HashSet<>();
+			result.add(value);
+
+			return result;
+		}
+
+		static
+		private Boolean negate(Boolean value){
+			return (value != null ? Boolean.valueOf(!value.booleanValue()) : null);
+		}
+	}
+}
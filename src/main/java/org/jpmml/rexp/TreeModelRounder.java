@@ -0,0 +1,447 @@
+/*
+ * Copyright (c) 2017 Villu Ruusmann
+ *
+ * This file is part of JPMML-R
+ *
+ * JPMML-R is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JPMML-R is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with JPMML-R.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.jpmml.rexp;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+import org.dmg.pmml.FieldName;
+import org.dmg.pmml.MiningFunction;
+import org.dmg.pmml.Predicate;
+import org.dmg.pmml.SimplePredicate;
+import org.dmg.pmml.Visitable;
+import org.dmg.pmml.VisitorAction;
+import org.dmg.pmml.tree.Node;
+import org.dmg.pmml.tree.TreeModel;
+import org.jpmml.converter.ValueUtil;
+import org.jpmml.model.visitors.AbstractVisitor;
+
+/**
+ * <p>
+ * A Visitor that reduces the size of tree models by formatting split thresholds and node scores with reduced precision.
+ * </p>
+ *
+ * <p>
+ * Numbers are formatted either as the shortest representation that identifies a 32-bit floating point value,
+ * or with a fixed number of significant digits.
+ * A number is left unchanged if the reduced precision representation is not shorter.
+ * </p>
+ *
+ * <p>
+ * Split thresholds are rounded towards the excluded end of the range of values whose routing could change.
+ * For example, the threshold of a "lessOrEqual" split is rounded down, so that a training value that is equal to the rounded threshold is still routed to the "lessOrEqual" child.
+ * This takes care of thresholds that differ from a training value by floating point error only (eg. <code>0.33999999999999997</code>).
+ * The routing of a training value changes only if the training value is strictly between the original and the rounded threshold, which requires the training value to be more precise than the rounded threshold.
+ * </p>
+ *
+ * <p>
+ * Split thresholds are rounded field by field, so that the order of all distinct thresholds of a field is preserved across all tree models.
+ * A threshold is left unchanged if its rounded value would coincide with a neighbouring threshold.
+ * Node scores are rounded to the nearest value, and in regression tree models only.
+ * </p>
+ */
+public class TreeModelRounder extends AbstractVisitor {
+
+	private int significantDigits = 0;
+
+	private Map<FieldName, Map<Double, Threshold>> thresholds = null;
+
+	private Set<SimplePredicate> roundedPredicates = Collections.newSetFromMap(new IdentityHashMap<SimplePredicate, Boolean>());
+
+
+	/**
+	 * <p>
+	 * Formats numbers as 32-bit floating point values.
+	 * </p>
+	 */
+	public TreeModelRounder(){
+		this(TreeModelRounder.FLOAT);
+	}
+
+	/**
+	 * @param significantDigits The number of significant digits (between 1 and 17), or {@link #FLOAT} (<code>0</code>).
+	 */
+	public TreeModelRounder(int significantDigits){
+
+		if(significantDigits < 0 || significantDigits > 17){
+			throw new IllegalArgumentException("Expected the number of significant digits between 1 and 17, or " + TreeModelRounder.FLOAT + " (32-bit floating point), got " + significantDigits);
+		}
+
+		this.significantDigits = significantDigits;
+	}
+
+	@Override
+	public void applyTo(Visitable visitable){
+		final
+		Map<FieldName, Map<Double, Threshold>> thresholds = new HashMap<>();
+
+		AbstractVisitor thresholdCollector = new AbstractVisitor(){
+
+			@Override
+			public VisitorAction visit(TreeModel treeModel){
+				collectThresholds(treeModel.getNode(), thresholds);
+
+				return super.visit(treeModel);
+			}
+		};
+		thresholdCollector.applyTo(visitable);
+
+		for(Map<Double, Threshold> fieldThresholds : thresholds.values()){
+			roundThresholds(fieldThresholds);
+		}
+
+		this.thresholds = thresholds;
+
+		try {
+			super.applyTo(visitable);
+		} finally {
+			this.thresholds = null;
+
+			this.roundedPredicates.clear();
+		}
+	}
+
+	@Override
+	public VisitorAction visit(TreeModel treeModel){
+		boolean regression = (MiningFunction.REGRESSION).equals(treeModel.getMiningFunction());
+
+		round(treeModel.getNode(), regression);
+
+		return super.visit(treeModel);
+	}
+
+	private void round(Node node, boolean regression){
+
+		if(regression && node.getScore() != null){
+			node.setScore(formatValue(node.getScore(), RoundingMode.HALF_EVEN));
+		}
+
+		Predicate predicate = node.getPredicate();
+
+		if(predicate instanceof SimplePredicate){
+			SimplePredicate simplePredicate = (SimplePredicate)predicate;
+
+			// Predicates may be shared between nodes
+			if(getRoundingMode(simplePredicate) != null && this.roundedPredicates.add(simplePredicate)){
+				Map<Double, Threshold> fieldThresholds = this.thresholds.get(simplePredicate.getField());
+
+				Threshold threshold = fieldThresholds.get(parseValue(simplePredicate.getValue()));
+				if(threshold != null && threshold.getRoundedValue() != null){
+					simplePredicate.setValue(threshold.getRoundedValue());
+				}
+			}
+		} // End if
+
+		if(node.hasNodes()){
+			List<Node> children = node.getNodes();
+
+			for(Node child : children){
+				round(child, regression);
+			}
+		}
+	}
+
+	/**
+	 * @return The formatted value, or the original value if it is not a finite number or if the formatted value is not shorter.
+	 */
+	String formatValue(String value, RoundingMode roundingMode){
+		Double doubleValue = parseValue(value);
+
+		if(doubleValue == null){
+			return value;
+		}
+
+		String result = formatValue(doubleValue, roundingMode);
+		if(result == null || result.length() >= value.length()){
+			return value;
+		}
+
+		return result;
+	}
+
+	private String formatValue(double value, RoundingMode roundingMode){
+
+		if((RoundingMode.UNNECESSARY).equals(roundingMode)){
+			return null;
+		} // End if
+
+		if(this.significantDigits == TreeModelRounder.FLOAT){
+			float floatValue = (float)value;
+
+			String result = ValueUtil.formatValue(floatValue);
+
+			// The shortest representation of a 32-bit floating point value may be on either side of it
+			while(!Float.isInfinite(floatValue)){
+				double roundedValue = Double.parseDouble(result);
+
+				if((RoundingMode.FLOOR).equals(roundingMode) && roundedValue > value){
+					floatValue = Math.nextAfter(floatValue, Double.NEGATIVE_INFINITY);
+				} else
+
+				if((RoundingMode.CEILING).equals(roundingMode) && roundedValue < value){
+					floatValue = Math.nextAfter(floatValue, Double.POSITIVE_INFINITY);
+				} else
+
+				{
+					return result;
+				}
+
+				result = ValueUtil.formatValue(floatValue);
+			}
+
+			return null;
+		} else
+
+		{
+			BigDecimal decimalValue = new BigDecimal(value).round(new MathContext(this.significantDigits, roundingMode));
+
+			return ValueUtil.formatValue(decimalValue.doubleValue());
+		}
+	}
+
+	/**
+	 * @param thresholds A map from the original thresholds of a field to their rounding state.
+	 * Thresholds are rounded as far as the rounding does not merge or reorder them.
+	 */
+	void roundThresholds(Map<Double, Threshold> thresholds){
+		List<Double> keys = new ArrayList<>(thresholds.keySet());
+
+		int size = keys.size();
+
+		String[] values = new String[size];
+		double[] roundedValues = new double[size];
+
+		for(int i = 0; i < size; i++){
+			Double key = keys.get(i);
+
+			Threshold threshold = thresholds.get(key);
+
+			String value = threshold.getValue();
+			String roundedValue = formatValue(value, threshold.getRoundingMode());
+
+			if(!(roundedValue).equals(value)){
+				values[i] = roundedValue;
+				roundedValues[i] = Double.parseDouble(roundedValue);
+			} else
+
+			{
+				values[i] = null;
+				roundedValues[i] = key;
+			}
+		}
+
+		boolean changed = true;
+
+		while(changed){
+			changed = false;
+
+			for(int i = 1; i < size; i++){
+
+				if(roundedValues[i - 1] < roundedValues[i]){
+					continue;
+				}
+
+				for(int j = i - 1; j <= i; j++){
+
+					if(values[j] != null){
+						values[j] = null;
+						roundedValues[j] = keys.get(j);
+
+						changed = true;
+					}
+				}
+			}
+		}
+
+		for(int i = 0; i < size; i++){
+			Threshold threshold = thresholds.get(keys.get(i));
+
+			threshold.setRoundedValue(values[i]);
+		}
+	}
+
+	static
+	private void collectThresholds(Node node, Map<FieldName, Map<Double, Threshold>> thresholds){
+		Predicate predicate = node.getPredicate();
+
+		if(predicate instanceof SimplePredicate){
+			SimplePredicate simplePredicate = (SimplePredicate)predicate;
+
+			RoundingMode roundingMode = getRoundingMode(simplePredicate);
+
+			Double value = (roundingMode != null ? parseValue(simplePredicate.getValue()) : null);
+			if(value != null){
+				Map<Double, Threshold> fieldThresholds = thresholds.get(simplePredicate.getField());
+
+				if(fieldThresholds == null){
+					fieldThresholds = new TreeMap<>();
+
+					thresholds.put(simplePredicate.getField(), fieldThresholds);
+				}
+
+				Threshold threshold = fieldThresholds.get(value);
+				if(threshold == null){
+					threshold = new Threshold(simplePredicate.getValue(), roundingMode);
+
+					fieldThresholds.put(value, threshold);
+				} else
+
+				// The same threshold is used with operators that require opposite rounding directions
+				if(!(roundingMode).equals(threshold.getRoundingMode())){
+					threshold.setRoundingMode(RoundingMode.UNNECESSARY);
+				}
+			}
+		} // End if
+
+		if(node.hasNodes()){
+			List<Node> children = node.getNodes();
+
+			for(Node child : children){
+				collectThresholds(child, thresholds);
+			}
+		}
+	}
+
+	/**
+	 * @return The rounding direction that keeps training values that are equal to the rounded threshold on the same side of the split,
+	 * or <code>null</code> if the predicate is not a split on a continuous value.
+	 */
+	static
+	private RoundingMode getRoundingMode(SimplePredicate simplePredicate){
+		SimplePredicate.Operator operator = simplePredicate.getOperator();
+
+		switch(operator){
+			case LESS_OR_EQUAL:
+			case GREATER_THAN:
+				return RoundingMode.FLOOR;
+			case LESS_THAN:
+			case GREATER_OR_EQUAL:
+				return RoundingMode.CEILING;
+			default:
+				return null;
+		}
+	}
+
+	static
+	private Double parseValue(String value){
+
+		if(value == null){
+			return null;
+		}
+
+		try {
+			double result = Double.parseDouble(value);
+
+			if(Double.isNaN(result) || Double.isInfinite(result)){
+				return null;
+			}
+
+			return result;
+		} catch(NumberFormatException nfe){
+			return null;
+		}
+	}
+
+	/**
+	 * @return The number of significant digits, {@link #FLOAT}, or <code>null</code> (the full precision).
+	 */
+	static
+	public Integer parsePrecision(String value){
+
+		switch(value){
+			case "double":
+				return null;
+			case "float":
+				return TreeModelRounder.FLOAT;
+			default:
+				break;
+		}
+
+		int significantDigits;
+
+		try {
+			significantDigits = Integer.parseInt(value);
+		} catch(NumberFormatException nfe){
+			significantDigits = -1;
+		}
+
+		if(significantDigits < 1 || significantDigits > 17){
+			throw new IllegalArgumentException("Expected \"double\", \"float\" or the number of significant digits between 1 and 17, got \"" + value + "\"");
+		}
+
+		return significantDigits;
+	}
+
+	static
+	class Threshold {
+
+		private String value = null;
+
+		private RoundingMode roundingMode = null;
+
+		private String roundedValue = null;
+
+
+		Threshold(String value, RoundingMode roundingMode){
+			setValue(value);
+			setRoundingMode(roundingMode);
+		}
+
+		public String getValue(){
+			return this.value;
+		}
+
+		private void setValue(String value){
+			this.value = value;
+		}
+
+		public RoundingMode getRoundingMode(){
+			return this.roundingMode;
+		}
+
+		private void setRoundingMode(RoundingMode roundingMode){
+			this.roundingMode = roundingMode;
+		}
+
+		/**
+		 * @return The rounded value, or <code>null</code> if the threshold is left unchanged.
+		 */
+		public String getRoundedValue(){
+			return this.roundedValue;
+		}
+
+		private void setRoundedValue(String roundedValue){
+			this.roundedValue = roundedValue;
+		}
+	}
+
+	/**
+	 * The shortest representation that identifies a 32-bit floating point value.
+	 */
+	public static final int FLOAT = 0;
+}
@@ -26,25 +26,43 @@ import java.io.InputStream;
 import java.util.List;
 
 import org.dmg.pmml.FieldName;
+import org.dmg.pmml.PMML;
 import org.dmg.pmml.mining.MiningModel;
 import org.jpmml.converter.Feature;
 import org.jpmml.converter.Label;
 import org.jpmml.converter.Schema;
 import org.jpmml.converter.ValueUtil;
 import org.jpmml.xgboost.FeatureMap;
+import org.jpmml.xgboost.GBTree;
 import org.jpmml.xgboost.Learner;
 import org.jpmml.xgboost.ObjFunction;
+import org.jpmml.xgboost.RegTree;
 import org.jpmml.xgboost.XGBoostUtil;
 
 public class XGBoostConverter extends ModelConverter<RGenericVector> {
 
 	private Learner learner = null;
 
+	private TreeModelPostProcessor postProcessor = new TreeModelPostProcessor();
+
 
 	public XGBoostConverter(RGenericVector booster){
 		super(booster);
 	}
 
+	@Override
+	public void applyOptions(ConverterOptions options){
+		Integer ntreeLimit = options.removeInteger(ConverterOptions.NTREE_LIMIT);
+		if(ntreeLimit != null){
+			setNtreeLimit(ntreeLimit);
+		}
+
+		TreeModelPostProcessor postProcessor = getPostProcessor();
+		postProcessor.applyOptions(options);
+
+		super.applyOptions(options);
+	}
+
 	@Override
 	public void encodeSchema(RExpEncoder encoder){
 		RGenericVector booster = getObject();
@@ -116,11 +134,75 @@ public class XGBoostConverter extends ModelConverter<RGenericVector> {
 	public MiningModel encodeModel(Schema schema){
 		Learner learner = ensureLearner();
 
-		MiningModel miningModel = learner.encodeMiningModel(schema);
+		MiningModel miningModel;
+
+		if(getNtreeLimit() > -1){
+			ObjFunction obj = learner.getObj();
+
+			miningModel = obj.encodeMiningModel(limitTrees(learner), learner.getBaseScore(), schema);
+		} else
+
+		{
+			miningModel = learner.encodeMiningModel(schema);
+		}
+
+		reportTreeModels(miningModel);
 
 		return miningModel;
 	}
 
+	@Override
+	public PMML encodePMML(RExpEncoder encoder){
+		PMML pmml = super.encodePMML(encoder);
+
+		TreeModelPostProcessor postProcessor = getPostProcessor();
+		postProcessor.applyTo(pmml);
+
+		return pmml;
+	}
+
+	@Override
+	public long estimateMemoryUsage(){
+		Learner learner = ensureLearner();
+
+		List<RegTree> trees = limitTrees(learner);
+
+		long nodes = 0;
+
+		for(RegTree tree : trees){
+			List<org.jpmml.xgboost.Node> treeNodes = tree.getNodes();
+
+			nodes += treeNodes.size();
+		}
+
+		return MemoryUtil.estimateTreeModels(trees.size(), nodes);
+	}
+
+	/**
+	 * @see TreeModelPostProcessor
+	 */
+	public TreeModelPostProcessor getPostProcessor(){
+		return this.postProcessor;
+	}
+
+	/**
+	 * <p>
+	 * Multi-class models grow one tree per class in each boosting iteration.
+	 * The tree limit applies to boosting iterations.
+	 * </p>
+	 */
+	private List<RegTree> limitTrees(Learner learner){
+		GBTree gbTree = learner.getGBTree();
+
+		List<RegTree> trees = gbTree.getTrees();
+
+		int treesPerIteration = Math.max(learner.getNumClass(), 1);
+
+		int size = limitTrees(trees.size() / treesPerIteration) * treesPerIteration;
+
+		return trees.subList(0, size);
+	}
+
 	private Learner ensureLearner(){
 
 		if(this.learner == null){
@@ -0,0 +1,375 @@
+/*
+ * Copyright (c) 2017 Villu Ruusmann
+ *
+ * This file is part of JPMML-R
+ *
+ * JPMML-R is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JPMML-R is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with JPMML-R.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.jpmml.rexp;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import org.dmg.pmml.Predicate;
+
+/**
+ * <p>
+ * A conversion listener that emits Java Flight Recorder (JFR) events.
+ * </p>
+ *
+ * <p>
+ * There is one event per conversion phase, plus one event per batch of encoded trees.
+ * Events are cheap when no recording is active, so this listener can be kept attached permanently.
+ * The events of a running application can be recorded using the <code>jcmd &lt;pid&gt; JFR.start</code> command,
+ * and inspected in JDK Mission Control under the "JPMML-R" category.
+ * </p>
+ *
+ * <p>
+ * This class requires a JVM that provides the <code>jdk.jfr</code> API (Java 8u262 or newer).
+ * It is built only by the "jfr" profile.
+ * </p>
+ */
+public class FlightRecorderListener implements ConversionListener {
+
+	private String converter = null;
+
+	private int treeBatchSize = 0;
+
+	private Map<ConversionPhase, ActivePhase> activePhases = new EnumMap<>(ConversionPhase.class);
+
+	private ActivePhase activeTreeBatch = null;
+
+	private Counts counts = new Counts();
+
+
+	public FlightRecorderListener(){
+		this(FlightRecorderListener.DEFAULT_TREE_BATCH_SIZE);
+	}
+
+	public FlightRecorderListener(int treeBatchSize){
+
+		if(treeBatchSize < 1){
+			throw new IllegalArgumentException(String.valueOf(treeBatchSize));
+		}
+
+		this.treeBatchSize = treeBatchSize;
+	}
+
+	@Override
+	public void phaseStarted(ConversionPhase phase){
+		this.activePhases.put(phase, begin(createEvent(phase)));
+
+		if((ConversionPhase.ENCODE_MODEL).equals(phase)){
+			this.activeTreeBatch = begin(new EncodeTreeBatchEvent());
+		}
+	}
+
+	@Override
+	public void phaseFinished(ConversionPhase phase){
+		ActivePhase activePhase = this.activePhases.remove(phase);
+
+		if(activePhase == null){
+			throw new IllegalStateException(String.valueOf(phase));
+		} // End if
+
+		if((ConversionPhase.ENCODE_MODEL).equals(phase)){
+			ActivePhase activeTreeBatch = this.activeTreeBatch;
+
+			if(activeTreeBatch != null && this.counts.trees > activeTreeBatch.counts.trees){
+				commit(activeTreeBatch);
+			}
+
+			this.activeTreeBatch = null;
+		}
+
+		commit(activePhase);
+	}
+
+	@Override
+	public void rexpRead(int type){
+		this.counts.rexps++;
+	}
+
+	@Override
+	public void bytesRead(long count){
+		this.counts.bytes += count;
+	}
+
+	@Override
+	public void featuresEncoded(int count){
+		this.counts.features += count;
+	}
+
+	@Override
+	public void treeEncoded(int nodes){
+		this.counts.trees++;
+		this.counts.nodes += nodes;
+
+		ActivePhase activeTreeBatch = this.activeTreeBatch;
+
+		if(activeTreeBatch != null && (this.counts.trees - activeTreeBatch.counts.trees) >= this.treeBatchSize){
+			commit(activeTreeBatch);
+
+			this.activeTreeBatch = begin(new EncodeTreeBatchEvent());
+		}
+	}
+
+	@Override
+	public void predicateInterned(Predicate predicate){
+		this.counts.predicates++;
+	}
+
+	@Override
+	public void fieldsRenamed(int count){
+		this.counts.renamedFields += count;
+	}
+
+	private ActivePhase begin(ConversionEvent event){
+		ActivePhase activePhase = new ActivePhase(event, new Counts(this.counts));
+
+		event.begin();
+
+		return activePhase;
+	}
+
+	private void commit(ActivePhase activePhase){
+		ConversionEvent event = activePhase.event;
+
+		event.end();
+
+		if(event.shouldCommit()){
+			event.converter = getConverter();
+			event.inputSize = this.counts.bytes;
+
+			event.update(activePhase.counts, this.counts);
+			event.commit();
+		}
+	}
+
+	public String getConverter(){
+		return this.converter;
+	}
+
+	public void setConverter(String converter){
+		this.converter = converter;
+	}
+
+	public int getTreeBatchSize(){
+		return this.treeBatchSize;
+	}
+
+	static
+	private ConversionEvent createEvent(ConversionPhase phase){
+
+		switch(phase){
+			case PARSE:
+				return new ParseEvent();
+			case ENCODE_SCHEMA:
+				return new EncodeSchemaEvent();
+			case ENCODE_MODEL:
+				return new EncodeModelEvent();
+			case ENCODE_PMML:
+				return new EncodePMMLEvent();
+			case RENAME_FIELDS:
+				return new RenameFieldsEvent();
+			case MARSHAL:
+				return new MarshalEvent();
+			default:
+				throw new IllegalArgumentException(String.valueOf(phase));
+		}
+	}
+
+	static
+	private class ActivePhase {
+
+		private ConversionEvent event = null;
+
+		private Counts counts = null;
+
+
+		private ActivePhase(ConversionEvent event, Counts counts){
+			this.event = event;
+			this.counts = counts;
+		}
+	}
+
+	static
+	private class Counts {
+
+		private long bytes = 0L;
+
+		private long rexps = 0L;
+
+		private long features = 0L;
+
+		private long trees = 0L;
+
+		private long nodes = 0L;
+
+		private long predicates = 0L;
+
+		private long renamedFields = 0L;
+
+
+		private Counts(){
+		}
+
+		private Counts(Counts counts){
+			this.bytes = counts.bytes;
+			this.rexps = counts.rexps;
+			this.features = counts.features;
+			this.trees = counts.trees;
+			this.nodes = counts.nodes;
+			this.predicates = counts.predicates;
+			this.renamedFields = counts.renamedFields;
+		}
+	}
+
+	@Category({"JPMML-R"})
+	@StackTrace(false)
+	abstract
+	static
+	public class ConversionEvent extends Event {
+
+		@Label("Converter")
+		@Description("The name of the converter class")
+		String converter;
+
+		@Label("Input Size")
+		@Description("The number of RDS bytes read")
+		@DataAmount
+		long inputSize;
+
+
+		/**
+		 * @param start Counts at the beginning of the event.
+		 * @param end Counts at the end of the event.
+		 */
+		abstract
+		void update(Counts start, Counts end);
+	}
+
+	@Name("org.jpmml.rexp.Parse")
+	@Label("Parse RDS")
+	static
+	public class ParseEvent extends ConversionEvent {
+
+		@Label("R Objects")
+		long rexps;
+
+
+		@Override
+		void update(Counts start, Counts end){
+			this.rexps = (end.rexps - start.rexps);
+		}
+	}
+
+	@Name("org.jpmml.rexp.EncodeSchema")
+	@Label("Encode Schema")
+	static
+	public class EncodeSchemaEvent extends ConversionEvent {
+
+		@Label("Features")
+		long features;
+
+
+		@Override
+		void update(Counts start, Counts end){
+			this.features = (end.features - start.features);
+		}
+	}
+
+	@Name("org.jpmml.rexp.EncodeModel")
+	@Label("Encode Model")
+	static
+	public class EncodeModelEvent extends ConversionEvent {
+
+		@Label("Trees")
+		long trees;
+
+		@Label("Nodes")
+		long nodes;
+
+		@Label("Predicates")
+		long predicates;
+
+
+		@Override
+		void update(Counts start, Counts end){
+			this.trees = (end.trees - start.trees);
+			this.nodes = (end.nodes - start.nodes);
+			this.predicates = (end.predicates - start.predicates);
+		}
+	}
+
+	@Name("org.jpmml.rexp.EncodeTreeBatch")
+	@Label("Encode Tree Batch")
+	@Description("Encoding a batch of consecutive member trees of a tree ensemble model")
+	static
+	public class EncodeTreeBatchEvent extends EncodeModelEvent {
+	}
+
+	@Name("org.jpmml.rexp.EncodePMML")
+	@Label("Encode PMML")
+	static
+	public class EncodePMMLEvent extends ConversionEvent {
+
+		@Override
+		void update(Counts start, Counts end){
+		}
+	}
+
+	@Name("org.jpmml.rexp.RenameFields")
+	@Label("Rename Fields")
+	static
+	public class RenameFieldsEvent extends ConversionEvent {
+
+		@Label("Renamed Fields")
+		long renamedFields;
+
+
+		@Override
+		void update(Counts start, Counts end){
+			this.renamedFields = (end.renamedFields - start.renamedFields);
+		}
+	}
+
+	@Name("org.jpmml.rexp.Marshal")
+	@Label("Marshal PMML")
+	static
+	public class MarshalEvent extends ConversionEvent {
+
+		@Label("Trees")
+		long trees;
+
+		@Label("Nodes")
+		long nodes;
+
+
+		@Override
+		void update(Counts start, Counts end){
+			this.trees = end.trees;
+			this.nodes = end.nodes;
+		}
+	}
+
+	private static final int DEFAULT_TREE_BATCH_SIZE = 100;
+}
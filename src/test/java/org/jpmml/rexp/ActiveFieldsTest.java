@@ -0,0 +1,154 @@
+/*
+ * Copyright (c) 2017 Villu Ruusmann
+ *
+ * This file is part of JPMML-R
+ *
+ * JPMML-R is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JPMML-R is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with JPMML-R.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.jpmml.rexp;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.dmg.pmml.FieldName;
+import org.dmg.pmml.MiningField;
+import org.dmg.pmml.Model;
+import org.dmg.pmml.PMML;
+import org.dmg.pmml.SimplePredicate;
+import org.dmg.pmml.SimpleSetPredicate;
+import org.dmg.pmml.VisitorAction;
+import org.dmg.pmml.tree.TreeModel;
+import org.jpmml.model.visitors.AbstractVisitor;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class ActiveFieldsTest extends ConverterTest {
+
+	@Test
+	public void limitActiveFields() throws Exception {
+		String[] names = {"RandomForestAuto", "RangerAudit", "GBMAutoNA", "IForestAuto", "XGBoostAutoNA"};
+
+		for(String name : names){
+			Converter<RExp> converter = createConverter(name);
+			converter.setNtreeLimit(1);
+
+			PMML pmml = converter.encodePMML();
+
+			FieldReferenceCollector collector = new FieldReferenceCollector();
+			collector.applyTo(pmml);
+
+			Set<FieldName> activeFields = getActiveFields((pmml.getModels()).get(0));
+
+			// Input fields that the truncated ensemble does not split on are neither active fields nor data fields
+			assertEquals(name, collector.getFieldNames(), activeFields);
+			assertEquals(name, activeFields.size() + 1, ((pmml.getDataDictionary()).getDataFields()).size());
+		}
+	}
+
+	@Test
+	public void limitSegmentActiveFields() throws Exception {
+		String[] names = {"RandomForestAuto", "RangerAudit", "GBMAutoNA", "IForestAuto", "XGBoostAutoNA"};
+
+		for(String name : names){
+			Converter<RExp> converter = createConverter(name);
+			converter.setNtreeLimit(5);
+
+			PMML pmml = converter.encodePMML();
+
+			SegmentChecker checker = new SegmentChecker(name);
+			checker.applyTo(pmml);
+
+			assertEquals(name, 5, checker.getTreeModels());
+		}
+	}
+
+	static
+	private Set<FieldName> getActiveFields(Model model){
+		Set<FieldName> result = new HashSet<>();
+
+		List<MiningField> miningFields = (model.getMiningSchema()).getMiningFields();
+		for(MiningField miningField : miningFields){
+			MiningField.UsageType usageType = miningField.getUsageType();
+
+			switch(usageType){
+				case ACTIVE:
+					result.add(miningField.getName());
+					break;
+				default:
+					break;
+			}
+		}
+
+		return result;
+	}
+
+	static
+	private class FieldReferenceCollector extends AbstractVisitor {
+
+		private Set<FieldName> fieldNames = new HashSet<>();
+
+
+		@Override
+		public VisitorAction visit(SimplePredicate simplePredicate){
+			this.fieldNames.add(simplePredicate.getField());
+
+			return super.visit(simplePredicate);
+		}
+
+		@Override
+		public VisitorAction visit(SimpleSetPredicate simpleSetPredicate){
+			this.fieldNames.add(simpleSetPredicate.getField());
+
+			return super.visit(simpleSetPredicate);
+		}
+
+		public Set<FieldName> getFieldNames(){
+			return this.fieldNames;
+		}
+	}
+
+	/**
+	 * Checks that every tree model lists only those fields that its own splits reference.
+	 */
+	static
+	private class SegmentChecker extends AbstractVisitor {
+
+		private String name = null;
+
+		private int treeModels = 0;
+
+
+		private SegmentChecker(String name){
+			this.name = name;
+		}
+
+		@Override
+		public VisitorAction visit(TreeModel treeModel){
+			FieldReferenceCollector collector = new FieldReferenceCollector();
+			collector.applyTo(treeModel);
+
+			assertEquals(this.name, collector.getFieldNames(), getActiveFields(treeModel));
+
+			this.treeModels++;
+
+			return VisitorAction.SKIP;
+		}
+
+		public int getTreeModels(){
+			return this.treeModels;
+		}
+	}
+}
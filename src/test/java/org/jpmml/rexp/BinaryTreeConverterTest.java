@@ -18,6 +18,7 @@
  */
 package org.jpmml.rexp;
 
+import org.jpmml.evaluator.Batch;
 import org.junit.Test;
 
 public class BinaryTreeConverterTest extends ConverterTest {
@@ -27,6 +28,16 @@ public class BinaryTreeConverterTest extends ConverterTest {
 		evaluate("BinaryTree", "Audit");
 	}
 
+	@Test
+	public void evaluateComplementSetsAudit() throws Exception {
+		ConverterOptions options = new ConverterOptions()
+			.put(ConverterOptions.COMPLEMENT_SETS, true);
+
+		try(Batch batch = createBatch("BinaryTree", "Audit", options)){
+			evaluate(batch, null);
+		}
+	}
+
 	@Test
 	public void convertAuto() throws Exception {
 		evaluate("BinaryTree", "Auto");
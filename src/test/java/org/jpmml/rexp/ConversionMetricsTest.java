@@ -0,0 +1,117 @@
+/*
+ * Copyright (c) 2017 Villu Ruusmann
+ *
+ * This file is part of JPMML-R
+ *
+ * JPMML-R is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JPMML-R is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with JPMML-R.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.jpmml.rexp;
+
+import java.io.InputStream;
+import java.io.StringWriter;
+
+import org.dmg.pmml.mining.MiningModel;
+import org.jpmml.converter.Schema;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class ConversionMetricsTest {
+
+	@Test
+	public void collect() throws Exception {
+		ConversionMetrics metrics = new ConversionMetrics();
+
+		RExp rexp;
+
+		try(InputStream is = ConversionMetricsTest.class.getResourceAsStream("/rds/RandomForestAudit.rds")){
+			RExpParser parser = new RExpParser(is);
+			parser.setListener(metrics);
+
+			rexp = parser.parse();
+		}
+
+		assertNotNull(metrics.getPhaseTime(ConversionPhase.PARSE));
+		assertTrue(metrics.getBytesRead() > 0L);
+		assertTrue(metrics.getRExpCount(SExpTypes.VECSXP) > 0L);
+
+		ConverterFactory converterFactory = ConverterFactory.newInstance();
+
+		Converter<RExp> converter = converterFactory.newConverter(rexp);
+		converter.setListener(metrics);
+
+		converter.encodePMML();
+
+		assertNotNull(metrics.getPhaseTime(ConversionPhase.ENCODE_SCHEMA));
+		assertNotNull(metrics.getPhaseTime(ConversionPhase.ENCODE_MODEL));
+		assertNotNull(metrics.getPhaseTime(ConversionPhase.ENCODE_PMML));
+		assertNull(metrics.getPhaseTime(ConversionPhase.MARSHAL));
+
+		RGenericVector randomForest = (RGenericVector)rexp;
+
+		RNumberVector<?> ntree = (RNumberVector<?>)randomForest.getValue("ntree");
+
+		assertEquals((ntree.asScalar()).longValue(), metrics.getTrees());
+		assertTrue(metrics.getNodes() >= metrics.getTrees());
+		assertTrue(metrics.getPredicates() >= metrics.getDistinctPredicates());
+
+		StringWriter writer = new StringWriter();
+
+		metrics.writeJson(writer);
+
+		String json = writer.toString();
+
+		assertTrue(json.contains("\"encodeModel\""));
+		assertTrue(json.contains("\"VECSXP\""));
+	}
+
+	@Test
+	public void collectFailure() throws Exception {
+		ConversionMetrics metrics = new ConversionMetrics();
+
+		RExp rexp;
+
+		try(InputStream is = ConversionMetricsTest.class.getResourceAsStream("/rds/RandomForestAudit.rds")){
+			RExpParser parser = new RExpParser(is);
+
+			rexp = parser.parse();
+		}
+
+		Converter<RGenericVector> converter = new RandomForestConverter((RGenericVector)rexp){
+
+			@Override
+			public MiningModel encodeModel(Schema schema){
+				throw new IllegalArgumentException();
+			}
+		};
+		converter.setListener(metrics);
+
+		try {
+			converter.encodePMML();
+
+			fail();
+		} catch(IllegalArgumentException iae){
+			// Ignored
+		}
+
+		// The failed phase is finished, and the remaining phases are not started
+		assertNotNull(metrics.getPhaseTime(ConversionPhase.ENCODE_SCHEMA));
+		assertNotNull(metrics.getPhaseTime(ConversionPhase.ENCODE_MODEL));
+		assertNull(metrics.getPhaseTime(ConversionPhase.ENCODE_PMML));
+	}
+}
@@ -0,0 +1,198 @@
+/*
+ * Copyright (c) 2017 Villu Ruusmann
+ *
+ * This file is part of JPMML-R
+ *
+ * JPMML-R is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JPMML-R is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with JPMML-R.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.jpmml.rexp;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.concurrent.TimeUnit;
+
+import com.google.common.io.ByteStreams;
+import org.dmg.pmml.PMML;
+import org.dmg.pmml.VisitorAction;
+import org.dmg.pmml.general_regression.PCell;
+import org.dmg.pmml.regression.CategoricalPredictor;
+import org.dmg.pmml.regression.NumericPredictor;
+import org.dmg.pmml.regression.PredictorTerm;
+import org.dmg.pmml.tree.TreeModel;
+import org.jpmml.model.MetroJAXBUtil;
+import org.jpmml.model.visitors.AbstractVisitor;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * <p>
+ * Measures the cost of converting an already parsed R object to a PMML class model object,
+ * and the cost of marshalling the latter.
+ * </p>
+ *
+ * <p>
+ * The primary result is the time per invocation.
+ * The secondary "elements" result is the time per encoded element (a tree for ensemble models, a coefficient for regression models).
+ * Allocated bytes are reported by the GC profiler ("gc.alloc.rate.norm").
+ * </p>
+ *
+ * Run using the "benchmark" profile:
+ * <pre>
+ * mvn -Pbenchmark -DskipTests test
+ * </pre>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ConverterBenchmark {
+
+	@Param({
+		"RandomForestAudit",
+		"RangerAudit",
+		"GBMAutoNA",
+		"IForestAuto",
+		"XGBoostAutoNA",
+		"BinaryTreeAudit",
+		"LinearRegressionFormulaAuto",
+		"GeneralRegressionFormulaAudit",
+		"EarthFormulaAuto"
+	})
+	public String name = null;
+
+	private RExp rexp = null;
+
+	private PMML pmml = null;
+
+	private int elements = 0;
+
+
+	@Setup(Level.Trial)
+	public void setUp() throws Exception {
+
+		try(InputStream is = ConverterBenchmark.class.getResourceAsStream("/rds/" + this.name + ".rds")){
+			RExpParser parser = new RExpParser(is);
+
+			this.rexp = parser.parse();
+		}
+
+		this.pmml = encodePMML(this.rexp);
+
+		ElementCounter counter = new ElementCounter();
+		counter.applyTo(this.pmml);
+
+		this.elements = counter.getCount();
+	}
+
+	@Benchmark
+	public PMML encodePMML(Elements elements){
+		PMML pmml = encodePMML(this.rexp);
+
+		elements.elements += this.elements;
+
+		return pmml;
+	}
+
+	@Benchmark
+	public void marshalPMML(Elements elements) throws Exception {
+		OutputStream os = ByteStreams.nullOutputStream();
+
+		MetroJAXBUtil.marshalPMML(this.pmml, os);
+
+		elements.elements += this.elements;
+	}
+
+	static
+	private PMML encodePMML(RExp rexp){
+		ConverterFactory converterFactory = ConverterFactory.newInstance();
+
+		// Converters are stateful, and must not be reused between invocations
+		Converter<RExp> converter = converterFactory.newConverter(rexp);
+
+		return converter.encodePMML();
+	}
+
+	@AuxCounters(AuxCounters.Type.OPERATIONS)
+	@State(Scope.Thread)
+	static
+	public class Elements {
+
+		public long elements = 0;
+
+
+		@Setup(Level.Iteration)
+		public void reset(){
+			this.elements = 0;
+		}
+	}
+
+	static
+	private class ElementCounter extends AbstractVisitor {
+
+		private int count = 0;
+
+
+		@Override
+		public VisitorAction visit(TreeModel treeModel){
+			this.count++;
+
+			return VisitorAction.SKIP;
+		}
+
+		@Override
+		public VisitorAction visit(NumericPredictor numericPredictor){
+			this.count++;
+
+			return super.visit(numericPredictor);
+		}
+
+		@Override
+		public VisitorAction visit(CategoricalPredictor categoricalPredictor){
+			this.count++;
+
+			return super.visit(categoricalPredictor);
+		}
+
+		@Override
+		public VisitorAction visit(PredictorTerm predictorTerm){
+			this.count++;
+
+			return super.visit(predictorTerm);
+		}
+
+		@Override
+		public VisitorAction visit(PCell pCell){
+			this.count++;
+
+			return super.visit(pCell);
+		}
+
+		public int getCount(){
+			return this.count;
+		}
+	}
+}
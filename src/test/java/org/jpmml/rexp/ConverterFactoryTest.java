@@ -0,0 +1,126 @@
+/*
+ * Copyright (c) 2017 Villu Ruusmann
+ *
+ * This file is part of JPMML-R
+ *
+ * JPMML-R is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JPMML-R is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with JPMML-R.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.jpmml.rexp;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.dmg.pmml.PMML;
+import org.junit.Test;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class ConverterFactoryTest {
+
+	@Test
+	public void builtinConverters() throws Exception {
+		Map<String, ConverterSupplier> converters = new LinkedHashMap<>();
+
+		ConverterProvider provider = new BuiltinConverterProvider();
+		provider.registerConverters(converters);
+
+		Collection<ConverterSupplier> suppliers = converters.values();
+		for(ConverterSupplier supplier : suppliers){
+			ClassConverterSupplier classSupplier = (ClassConverterSupplier)supplier;
+
+			Class<?> clazz = Class.forName(classSupplier.getClassName());
+
+			assertTrue((Converter.class).isAssignableFrom(clazz));
+		}
+	}
+
+	@Test
+	public void newConverter(){
+		ConverterFactory converterFactory = ConverterFactory.newInstance();
+
+		RExp rexp = createRExp("jpmml.custom", "lm");
+
+		assertTrue((converterFactory.getConverters()).containsKey("jpmml.custom"));
+		assertTrue(converterFactory.newConverter(rexp) instanceof CustomConverter);
+
+		try {
+			converterFactory.newConverter(createRExp("jpmml.unknown"));
+
+			fail();
+		} catch(IllegalArgumentException iae){
+			// Ignored
+		}
+	}
+
+	@Test
+	public void putConverter(){
+		final
+		Converter<RExp> converter = new CustomConverter(createRExp("jpmml.other"));
+
+		ConverterFactory converterFactory = ConverterFactory.newInstance();
+		converterFactory.putConverter("jpmml.other", new ConverterSupplier(){
+
+			@Override
+			public <R extends RExp> Converter<R> newConverter(R rexp){
+				@SuppressWarnings("unchecked")
+				Converter<R> result = (Converter<R>)converter;
+
+				return result;
+			}
+		});
+
+		RExp rexp = createRExp("jpmml.other");
+
+		assertSame(converter, converterFactory.newConverter(rexp));
+
+		converterFactory = ConverterFactory.newInstance();
+
+		assertFalse((converterFactory.getConverters()).containsKey("jpmml.other"));
+	}
+
+	static
+	private RExp createRExp(String... names){
+		RPair attributes = new RPair(new RString("class"), new RStringVector(Arrays.asList(names), null), null);
+
+		return new RGenericVector(Collections.<RExp>emptyList(), attributes);
+	}
+
+	static
+	public class CustomConverterProvider implements ConverterProvider {
+
+		@Override
+		public void registerConverters(Map<String, ConverterSupplier> converters){
+			converters.put("jpmml.custom", new ClassConverterSupplier(CustomConverter.class.getName()));
+		}
+	}
+
+	static
+	public class CustomConverter extends Converter<RExp> {
+
+		public CustomConverter(RExp rexp){
+			super(rexp);
+		}
+
+		@Override
+		public PMML encodePMML(){
+			throw new UnsupportedOperationException();
+		}
+	}
+}
@@ -0,0 +1,146 @@
+/*
+ * Copyright (c) 2017 Villu Ruusmann
+ *
+ * This file is part of JPMML-R
+ *
+ * JPMML-R is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JPMML-R is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with JPMML-R.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.jpmml.rexp;
+
+import java.util.Collections;
+
+import org.dmg.pmml.PMML;
+import org.dmg.pmml.VisitorAction;
+import org.dmg.pmml.tree.TreeModel;
+import org.jpmml.model.visitors.AbstractVisitor;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class ConverterOptionsTest extends ConverterTest {
+
+	@Test
+	public void removeTypedValues(){
+		ConverterOptions options = new ConverterOptions(Collections.singletonMap(ConverterOptions.NTREE_LIMIT, "10"))
+			.put(ConverterOptions.COMPACT, true)
+			.put(ConverterOptions.MEMORY_BUDGET, "2K");
+
+		assertEquals((Integer)10, options.removeInteger(ConverterOptions.NTREE_LIMIT));
+		assertEquals(Boolean.TRUE, options.removeBoolean(ConverterOptions.COMPACT));
+		assertEquals((Long)2048L, options.removeBytes(ConverterOptions.MEMORY_BUDGET));
+
+		assertNull(options.removeInteger(ConverterOptions.NTREE_LIMIT));
+		assertTrue(options.isEmpty());
+
+		options.put(ConverterOptions.PRUNE, "yes");
+
+		try {
+			options.removeBoolean(ConverterOptions.PRUNE);
+
+			fail();
+		} catch(IllegalArgumentException iae){
+			// Ignored
+		}
+	}
+
+	@Test
+	public void applyOptions() throws Exception {
+		ConverterOptions options = new ConverterOptions()
+			.put(ConverterOptions.NTREE_LIMIT, 3)
+			.put(ConverterOptions.PRUNE, true)
+			.put(ConverterOptions.MEMORY_BUDGET, "2G");
+
+		TreeModelConverter<?> converter = (TreeModelConverter<?>)createConverter("RandomForestAudit", options);
+
+		assertEquals(3, converter.getNtreeLimit());
+		assertTrue(converter.isPruneTrees());
+		assertEquals(2L * 1024L * 1024L * 1024L, converter.getMemoryBudget());
+
+		assertEquals(options.getValues(), (converter.getOptions()).getValues());
+	}
+
+	@Test
+	public void rejectUnsupportedOptions() throws Exception {
+		ConverterOptions options = new ConverterOptions()
+			.put(ConverterOptions.NTREE_LIMIT, 3);
+
+		try {
+			createConverter("LinearRegressionFormulaAuto", options);
+
+			fail();
+		} catch(IllegalArgumentException iae){
+			// Ignored
+		}
+
+		options = new ConverterOptions()
+			.put(ConverterOptions.AGGREGATE_STUMPS, true);
+
+		try {
+			createConverter("RandomForestAudit", options);
+
+			fail();
+		} catch(IllegalArgumentException iae){
+			// Ignored
+		}
+
+		createConverter("GBMAutoNA", options);
+	}
+
+	@Test
+	public void forwardOptions() throws Exception {
+		ConverterOptions options = new ConverterOptions()
+			.put(ConverterOptions.NTREE_LIMIT, 3);
+
+		Converter<RExp> converter = createConverter("TrainRandomForestIris", options);
+
+		PMML pmml = converter.encodePMML();
+
+		TreeModelCounter counter = new TreeModelCounter();
+		counter.applyTo(pmml);
+
+		assertEquals(3, counter.getTreeModels());
+
+		options = new ConverterOptions()
+			.put(ConverterOptions.AGGREGATE_STUMPS, true);
+
+		try {
+			createConverter("TrainRandomForestIris", options);
+
+			fail();
+		} catch(IllegalArgumentException iae){
+			// Ignored
+		}
+	}
+
+	static
+	private class TreeModelCounter extends AbstractVisitor {
+
+		private int treeModels = 0;
+
+
+		@Override
+		public VisitorAction visit(TreeModel treeModel){
+			this.treeModels++;
+
+			return VisitorAction.SKIP;
+		}
+
+		public int getTreeModels(){
+			return this.treeModels;
+		}
+	}
+}
@@ -19,8 +19,11 @@
 package org.jpmml.rexp;
 
 import java.io.InputStream;
+import java.util.Collections;
+import java.util.List;
 
 import org.dmg.pmml.PMML;
+import org.dmg.pmml.Visitor;
 import org.jpmml.evaluator.ArchiveBatch;
 import org.jpmml.evaluator.IntegrationTest;
 import org.jpmml.evaluator.IntegrationTestBatch;
@@ -30,10 +33,25 @@ public class ConverterTest extends IntegrationTest {
 
 	@Override
 	protected ArchiveBatch createBatch(String name, String dataset){
-		return createBatch(name, dataset, null);
+		return createBatch(name, dataset, new ConverterOptions());
 	}
 
 	protected ArchiveBatch createBatch(String name, String dataset, final Class<? extends Converter<? extends RExp>> clazz){
+		return createBatch(name, dataset, clazz, Collections.<Visitor>emptyList());
+	}
+
+	protected ArchiveBatch createBatch(String name, String dataset, final Class<? extends Converter<? extends RExp>> clazz, final List<? extends Visitor> visitors){
+		return createBatch(name, dataset, clazz, new ConverterOptions(), visitors);
+	}
+
+	protected ArchiveBatch createBatch(String name, String dataset, final ConverterOptions options){
+		return createBatch(name, dataset, null, options, Collections.<Visitor>emptyList());
+	}
+
+	/**
+	 * @param visitors Visitors that are applied to the PMML class model object after conversion.
+	 */
+	protected ArchiveBatch createBatch(String name, String dataset, final Class<? extends Converter<? extends RExp>> clazz, final ConverterOptions options, final List<? extends Visitor> visitors){
 		ArchiveBatch result = new IntegrationTestBatch(name, dataset){
 
 			@Override
@@ -49,7 +67,11 @@ public class ConverterTest extends IntegrationTest {
 
 					RExp rexp = parser.parse();
 
-					PMML pmml = convert(rexp, clazz);
+					PMML pmml = convert(rexp, clazz, options);
+
+					for(Visitor visitor : visitors){
+						visitor.applyTo(pmml);
+					}
 
 					ensureValidity(pmml);
 
@@ -62,17 +84,40 @@ public class ConverterTest extends IntegrationTest {
 	}
 
 	static
-	private PMML convert(RExp rexp, Class<? extends Converter<? extends RExp>> clazz) throws Exception {
+	protected Converter<RExp> createConverter(String name) throws Exception {
+		return createConverter(name, new ConverterOptions());
+	}
+
+	/**
+	 * @param name The name of an RDS resource, without the ".rds" file name extension.
+	 */
+	static
+	protected Converter<RExp> createConverter(String name, ConverterOptions options) throws Exception {
+		RExp rexp;
+
+		try(InputStream is = ConverterTest.class.getResourceAsStream("/rds/" + name + ".rds")){
+			RExpParser parser = new RExpParser(is);
+
+			rexp = parser.parse();
+		}
+
+		ConverterFactory converterFactory = ConverterFactory.newInstance();
+
+		return converterFactory.newConverter(rexp, options);
+	}
+
+	static
+	private PMML convert(RExp rexp, Class<? extends Converter<? extends RExp>> clazz, ConverterOptions options) throws Exception {
 		ConverterFactory converterFactory = ConverterFactory.newInstance();
 
 		Converter<RExp> converter;
 
 		if(clazz != null){
-			converter = converterFactory.newConverter(clazz, rexp);
+			converter = converterFactory.newConverter(clazz, rexp, options);
 		} else
 
 		{
-			converter = converterFactory.newConverter(rexp);
+			converter = converterFactory.newConverter(rexp, options);
 		}
 
 		return converter.encodePMML();
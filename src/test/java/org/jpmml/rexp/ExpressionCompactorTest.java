@@ -22,12 +22,14 @@ import java.util.Arrays;
 
 import org.dmg.pmml.Apply;
 import org.dmg.pmml.Constant;
+import org.dmg.pmml.DataType;
 import org.dmg.pmml.Expression;
 import org.dmg.pmml.FieldName;
 import org.dmg.pmml.FieldRef;
 import org.junit.Test;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
 
 public class ExpressionCompactorTest {
 
@@ -68,6 +70,52 @@ public class ExpressionCompactorTest {
 		assertEquals(Arrays.asList(fieldRef), apply.getExpressions());
 	}
 
+	@Test
+	public void compactArithmeticExpression(){
+		FieldRef fieldRef = new FieldRef(FieldName.create("x"));
+
+		Apply apply = compact(createApply("+", createApply("*", createApply("sqrt", createConstant("1")), fieldRef), createApply("-", createConstant("3"), createConstant("3"))));
+
+		assertEquals(fieldRef, ExpressionCompactor.simplify(apply));
+
+		Constant one = createConstant("1");
+
+		apply = compact(createApply("+", createApply("*", fieldRef, one).setMapMissingTo("0"), createConstant("0")));
+
+		Apply nestedApply = (Apply)ExpressionCompactor.simplify(apply);
+
+		assertEquals(Arrays.asList(fieldRef, one), nestedApply.getExpressions());
+	}
+
+	@Test
+	public void compactDivisionByOne(){
+		FieldRef fieldRef = new FieldRef(FieldName.create("x"));
+
+		// The field may be an integer field
+		Apply apply = createApply("/", fieldRef, createConstant("1"));
+
+		assertSame(apply, ExpressionCompactor.simplify(apply));
+
+		Apply logApply = createApply("ln", fieldRef);
+
+		apply = createApply("/", logApply, createConstant("1"));
+
+		assertSame(logApply, ExpressionCompactor.simplify(apply));
+	}
+
+	@Test
+	public void formatFoldedConstant(){
+		Constant constant = (Constant)ExpressionCompactor.simplify(createApply("sqrt", createConstant("4")));
+
+		assertEquals("2", constant.getValue());
+		assertEquals(DataType.DOUBLE, constant.getDataType());
+
+		constant = (Constant)ExpressionCompactor.simplify(createApply("/", createConstant("1"), createConstant("4")));
+
+		assertEquals("0.25", constant.getValue());
+		assertEquals(DataType.DOUBLE, constant.getDataType());
+	}
+
 	static
 	private Apply createApply(String function, Expression... expressions){
 		Apply apply = new Apply(function);
@@ -31,6 +31,7 @@ import org.dmg.pmml.Interval;
 import org.junit.Test;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
 import static org.junit.Assert.fail;
 
 public class ExpressionTranslatorTest {
@@ -176,7 +177,7 @@ public class ExpressionTranslatorTest {
 
 	@Test
 	public void translateExponentiationExpression(){
-		Apply apply = (Apply)ExpressionTranslator.translateExpression("-2^-3");
+		Apply apply = (Apply)ExpressionTranslator.translateExpression("-2^-3", false);
 
 		List<Expression> expressions = checkApply(apply, "*", Constant.class, Apply.class);
 
@@ -193,7 +194,7 @@ public class ExpressionTranslatorTest {
 		checkConstant((Constant)left, "2", null);
 		checkConstant((Constant)right, "-3", null);
 
-		apply = (Apply)ExpressionTranslator.translateExpression("-2^-2*1.5");
+		apply = (Apply)ExpressionTranslator.translateExpression("-2^-2*1.5", false);
 
 		expressions = checkApply(apply, "*", Apply.class, Constant.class);
 
@@ -216,6 +217,98 @@ public class ExpressionTranslatorTest {
 		checkConstant((Constant)right, "-2", null);
 	}
 
+	@Test
+	public void translateSimplifiedExpression(){
+		checkConstant((Constant)ExpressionTranslator.translateExpression("-2^-3"), "-0.125", DataType.DOUBLE);
+		checkConstant((Constant)ExpressionTranslator.translateExpression("-2^-2*1.5"), "-0.375", DataType.DOUBLE);
+		checkConstant((Constant)ExpressionTranslator.translateExpression("(1 + 2) * 3 - 4"), "5", null);
+
+		Apply apply = (Apply)ExpressionTranslator.translateExpression("2 * 3 * x + 0");
+
+		List<Expression> expressions = checkApply(apply, "*", Constant.class, FieldRef.class);
+
+		checkConstant((Constant)expressions.get(0), "6", null);
+		checkFieldRef((FieldRef)expressions.get(1), FieldName.create("x"));
+
+		checkFieldRef((FieldRef)ExpressionTranslator.translateExpression("x ^ 1"), FieldName.create("x"));
+
+		// Division by one is kept, because it converts the value of an integer field to double
+		apply = (Apply)ExpressionTranslator.translateExpression("(x - 0) / 1.0");
+
+		expressions = checkApply(apply, "/", FieldRef.class, Constant.class);
+
+		checkFieldRef((FieldRef)expressions.get(0), FieldName.create("x"));
+
+		apply = (Apply)ExpressionTranslator.translateExpression("log(x) / 1.0");
+
+		checkApply(apply, "ln", FieldRef.class);
+
+		apply = (Apply)ExpressionTranslator.translateExpression("x ^ 2");
+
+		expressions = checkApply(apply, "*", FieldRef.class, FieldRef.class);
+
+		checkFieldRef((FieldRef)expressions.get(0), FieldName.create("x"));
+		checkFieldRef((FieldRef)expressions.get(1), FieldName.create("x"));
+
+		apply = (Apply)ExpressionTranslator.translateExpression("log(x) ^ 2");
+
+		checkApply(apply, "pow", Apply.class, Constant.class);
+
+		apply = (Apply)ExpressionTranslator.translateExpression("0 < x");
+
+		expressions = checkApply(apply, "greaterThan", FieldRef.class, Constant.class);
+
+		checkConstant((Constant)expressions.get(1), "0", null);
+
+		apply = (Apply)ExpressionTranslator.translateExpression("log(-1)");
+
+		checkApply(apply, "ln", Constant.class);
+
+		FunctionExpression functionExpression = (FunctionExpression)ExpressionTranslator.translateExpression("I(log(x) * 1)");
+
+		expressions = checkFunctionExpression(functionExpression, "I", (String)null);
+
+		checkApply((Apply)expressions.get(0), "ln", FieldRef.class);
+	}
+
+	@Test
+	public void translateMemoizedExpression(){
+		String string = "I(log(x) + 1)";
+
+		FunctionExpression first = (FunctionExpression)ExpressionTranslator.translateExpression(string);
+
+		Apply apply = (Apply)(first.getArgument(0)).getExpression();
+		apply.setFunction("-");
+
+		FunctionExpression second = (FunctionExpression)ExpressionTranslator.translateExpression(string);
+
+		assertNotSame(first, second);
+
+		FunctionExpression.Argument argument = second.getArgument(0);
+
+		assertEquals("log(x) + 1", argument.formatExpression());
+
+		List<Expression> expressions = checkApply((Apply)argument.getExpression(), "+", Apply.class, Constant.class);
+
+		checkApply((Apply)expressions.get(0), "ln", FieldRef.class);
+
+		try {
+			ExpressionTranslator.translateExpression("log(x");
+
+			fail();
+		} catch(IllegalArgumentException iae){
+			// Ignored
+		}
+
+		Interval interval = ExpressionTranslator.translateInterval("(0, 1]");
+		interval.setRightMargin(2d);
+
+		interval = ExpressionTranslator.translateInterval("(0, 1]");
+
+		assertEquals(Interval.Closure.OPEN_CLOSED, interval.getClosure());
+		assertEquals((Double)1d, interval.getRightMargin());
+	}
+
 	@Test
 	public void translateFunctionExpression(){
 		FunctionExpression functionExpression = (FunctionExpression)ExpressionTranslator.translateExpression("parent(first = child(A, log(A)), child(1 + B, right = 0), \"third\" = child(left = 0, c(A, B, C)))");
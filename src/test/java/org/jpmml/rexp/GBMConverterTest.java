@@ -18,8 +18,20 @@
  */
 package org.jpmml.rexp;
 
+import java.util.Collections;
+import java.util.List;
+
+import org.dmg.pmml.VisitorAction;
+import org.dmg.pmml.tree.Node;
+import org.dmg.pmml.tree.TreeModel;
+import org.jpmml.evaluator.Batch;
+import org.jpmml.model.visitors.AbstractVisitor;
 import org.junit.Test;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
 public class GBMConverterTest extends ConverterTest {
 
 	@Test
@@ -66,4 +78,110 @@ public class GBMConverterTest extends ConverterTest {
 	public void evaluateCaretFitAutoNA() throws Exception {
 		evaluate("TrainGBM", "AutoNA");
 	}
-}
\ No newline at end of file
+
+	@Test
+	public void evaluateDefaultChildFitAdaBoostAuditNA() throws Exception {
+		evaluateDefaultChild("GBMAdaBoost", "AuditNA");
+	}
+
+	@Test
+	public void evaluateDefaultChildFitBernoulliAuditNA() throws Exception {
+		evaluateDefaultChild("GBMBernoulli", "AuditNA");
+	}
+
+	@Test
+	public void evaluateDefaultChildFitIris() throws Exception {
+		evaluateDefaultChild("GBM", "Iris");
+	}
+
+	@Test
+	public void evaluateDefaultChildFitAutoNA() throws Exception {
+		evaluateDefaultChild("GBM", "AutoNA");
+	}
+
+	@Test
+	public void evaluateCompactDefaultChildFitAutoNA() throws Exception {
+		ConverterOptions options = new ConverterOptions()
+			.put(ConverterOptions.DEFAULT_CHILD, true)
+			.put(ConverterOptions.COMPACT, true);
+
+		try(Batch batch = createBatch("GBM", "AutoNA", options)){
+			evaluate(batch, null);
+		}
+	}
+
+	@Test
+	public void evaluateComplementSetsFitBernoulliAuditNA() throws Exception {
+		ConverterOptions options = new ConverterOptions()
+			.put(ConverterOptions.COMPLEMENT_SETS, true);
+
+		try(Batch batch = createBatch("GBMBernoulli", "AuditNA", options)){
+			evaluate(batch, null);
+		}
+	}
+
+	private void evaluateDefaultChild(String name, String dataset) throws Exception {
+
+		FoldChecker checker = new FoldChecker();
+
+		try(Batch batch = createBatch(name, dataset, DefaultChildGBMConverter.class, Collections.singletonList(checker))){
+			evaluate(batch, null);
+		}
+
+		assertTrue(checker.getFoldedCount() > 0);
+	}
+
+	static
+	public class DefaultChildGBMConverter extends GBMConverter {
+
+		public DefaultChildGBMConverter(RGenericVector gbm){
+			super(gbm);
+
+			setUseDefaultChild(true);
+		}
+	}
+
+	static
+	private class FoldChecker extends AbstractVisitor {
+
+		private int foldedCount = 0;
+
+
+		@Override
+		public VisitorAction visit(TreeModel treeModel){
+
+			if((TreeModel.MissingValueStrategy.LAST_PREDICTION).equals(treeModel.getMissingValueStrategy())){
+				assertEquals(TreeModel.SplitCharacteristic.BINARY_SPLIT, treeModel.getSplitCharacteristic());
+
+				checkBinary(treeModel.getNode());
+
+				this.foldedCount++;
+			} else
+
+			{
+				assertEquals(TreeModel.MissingValueStrategy.DEFAULT_CHILD, treeModel.getMissingValueStrategy());
+			}
+
+			return VisitorAction.SKIP;
+		}
+
+		public int getFoldedCount(){
+			return this.foldedCount;
+		}
+
+		static
+		private void checkBinary(Node node){
+			assertNotNull(node.getScore());
+
+			if(node.hasNodes()){
+				List<Node> children = node.getNodes();
+
+				assertEquals(2, children.size());
+
+				for(Node child : children){
+					checkBinary(child);
+				}
+			}
+		}
+	}
+}
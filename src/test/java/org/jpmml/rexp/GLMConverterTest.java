@@ -18,9 +18,17 @@
  */
 package org.jpmml.rexp;
 
+import org.dmg.pmml.MiningFunction;
+import org.dmg.pmml.Model;
+import org.dmg.pmml.PMML;
+import org.dmg.pmml.general_regression.GeneralRegressionModel;
 import org.jpmml.evaluator.Batch;
 import org.junit.Test;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
 public class GLMConverterTest extends ConverterTest {
 
 	@Test
@@ -33,6 +41,16 @@ public class GLMConverterTest extends ConverterTest {
 		evaluate("GeneralRegressionCustFormula", "Audit");
 	}
 
+	@Test
+	public void evaluateLookupFormulaAudit() throws Exception {
+		ConverterOptions options = new ConverterOptions()
+			.put(ConverterOptions.LOOKUP_LEVELS, 2);
+
+		try(Batch batch = createBatch("GeneralRegressionFormula", "Audit", options)){
+			evaluate(batch);
+		}
+	}
+
 	@Test
 	public void evaluateFormulaAuto() throws Exception {
 		evaluate("GeneralRegressionFormula", "Auto");
@@ -65,4 +83,65 @@ public class GLMConverterTest extends ConverterTest {
 	public void evaluateCustFormulaWineQuality() throws Exception {
 		evaluate("GeneralRegressionCustFormula", "WineQuality");
 	}
-}
\ No newline at end of file
+
+	@Test
+	public void evaluateRegressionFormulaAudit() throws Exception {
+		ConverterOptions options = new ConverterOptions()
+			.put(ConverterOptions.REGRESSION_MODEL, true);
+
+		try(Batch batch = createBatch("GeneralRegressionFormula", "Audit", options)){
+			evaluate(batch);
+		}
+	}
+
+	@Test
+	public void evaluateRegressionFormulaVisit() throws Exception {
+		ConverterOptions options = new ConverterOptions()
+			.put(ConverterOptions.REGRESSION_MODEL, true);
+
+		try(Batch batch = createBatch("GeneralRegressionFormula", "Visit", options)){
+			evaluate(batch);
+		}
+	}
+
+	@Test
+	public void evaluateRegressionFormulaWineQuality() throws Exception {
+		ConverterOptions options = new ConverterOptions()
+			.put(ConverterOptions.REGRESSION_MODEL, true);
+
+		try(Batch batch = createBatch("GeneralRegressionFormula", "WineQuality", options)){
+			evaluate(batch);
+		}
+	}
+
+	@Test
+	public void encodeRegressionLogBinomial() throws Exception {
+		assertNull(LinearModelUtil.parseNormalizationMethod(MiningFunction.CLASSIFICATION, GeneralRegressionModel.LinkFunction.LOG));
+
+		ConverterOptions options = new ConverterOptions()
+			.put(ConverterOptions.REGRESSION_MODEL, true);
+
+		Converter<RExp> converter = createConverter("GeneralRegressionFormulaAudit", options);
+
+		RGenericVector glm = (RGenericVector)converter.getObject();
+
+		RGenericVector family = (RGenericVector)glm.getValue("family");
+
+		// Turn the binomial logit model into a binomial log model
+		RStringVector familyLink = (RStringVector)family.getValue("link");
+
+		(familyLink.getValues()).set(0, "log");
+
+		PMML pmml = converter.encodePMML();
+
+		Model model = (pmml.getModels()).get(0);
+
+		// The evaluator cannot normalize classification results with the exp function
+		assertTrue(model instanceof GeneralRegressionModel);
+
+		GeneralRegressionModel generalRegressionModel = (GeneralRegressionModel)model;
+
+		assertEquals(MiningFunction.CLASSIFICATION, generalRegressionModel.getMiningFunction());
+		assertEquals(GeneralRegressionModel.LinkFunction.LOG, generalRegressionModel.getLinkFunction());
+	}
+}
@@ -0,0 +1,169 @@
+/*
+ * Copyright (c) 2017 Villu Ruusmann
+ *
+ * This file is part of JPMML-R
+ *
+ * JPMML-R is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JPMML-R is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with JPMML-R.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.jpmml.rexp;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.dmg.pmml.PMML;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * <p>
+ * Measures the cost of converting a linear model object with a large number of dummy-coded coefficients.
+ * </p>
+ *
+ * <p>
+ * The model object is synthesized (instead of parsed from a RDS file), so that the number of coefficients can be varied freely.
+ * The coefficients are main effects of a factor, and interactions between the factor and a numeric variable.
+ * </p>
+ *
+ * Run using the "benchmark" profile:
+ * <pre>
+ * mvn -Pbenchmark -Dbenchmark=LMConverterBenchmark -DskipTests test
+ * </pre>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class LMConverterBenchmark {
+
+	@Param({
+		"1000",
+		"10000",
+		"100000"
+	})
+	public int mainEffects = 0;
+
+	@Param({
+		"0",
+		"1000"
+	})
+	public int interactions = 0;
+
+	private RGenericVector lm = null;
+
+
+	@Setup(Level.Trial)
+	public void setUp(){
+		this.lm = createLM(this.mainEffects, this.interactions);
+	}
+
+	@Benchmark
+	public PMML encodePMML(){
+		LMConverter converter = new LMConverter(this.lm);
+
+		return converter.encodePMML();
+	}
+
+	/**
+	 * <p>
+	 * Creates the equivalent of <code>lm(y ~ x + z + x:z)</code>, where <code>x</code> is a factor and <code>z</code> is a numeric variable.
+	 * </p>
+	 *
+	 * @param mainEffects The number of main effect coefficients of <code>x</code> (ie. the number of levels minus one).
+	 * @param interactions The number of interaction coefficients between <code>x</code> and <code>z</code>.
+	 */
+	static
+	public RGenericVector createLM(int mainEffects, int interactions){
+
+		if(mainEffects < 1 || interactions < 0 || interactions > mainEffects){
+			throw new IllegalArgumentException();
+		}
+
+		List<String> xLevels = new ArrayList<>();
+
+		for(int i = 0; i <= mainEffects; i++){
+			xLevels.add("L" + (i + 1));
+		}
+
+		List<String> coefficientNames = new ArrayList<>();
+		coefficientNames.add(LMConverter.INTERCEPT);
+
+		for(int i = 1; i <= mainEffects; i++){
+			coefficientNames.add("x" + xLevels.get(i));
+		}
+
+		coefficientNames.add("z");
+
+		for(int i = 1; i <= interactions; i++){
+			coefficientNames.add("x" + xLevels.get(i) + ":z");
+		}
+
+		double[] coefficientValues = new double[coefficientNames.size()];
+
+		for(int i = 0; i < coefficientValues.length; i++){
+			coefficientValues[i] = (i + 1) / 1000d;
+		}
+
+		RGenericVector factorDimnames = new RGenericVector(Arrays.<RExp>asList(createStringVector("y", "x", "z"), createStringVector("x", "z", "x:z")), null);
+
+		RIntegerVector factors = new RIntegerVector(new int[]{0, 1, 0, 0, 0, 1, 0, 1, 1}, createAttributes("dimnames", factorDimnames));
+
+		RStringVector dataClasses = new RStringVector(Arrays.asList("numeric", "factor", "numeric"), createAttributes("names", createStringVector("y", "x", "z")));
+
+		RIntegerVector response = new RIntegerVector(new int[]{1}, null);
+
+		RExp terms = new RGenericVector(Collections.<RExp>emptyList(), createAttributes("factors", factors, "dataClasses", dataClasses, "response", response));
+
+		RGenericVector model = new RGenericVector(Collections.<RExp>emptyList(), createAttributes("terms", terms));
+
+		RGenericVector xlevels = new RGenericVector(Arrays.<RExp>asList(new RStringVector(xLevels, null)), createAttributes("names", createStringVector("x")));
+
+		RDoubleVector coefficientVector = new RDoubleVector(coefficientValues, createAttributes("names", new RStringVector(coefficientNames, null)));
+
+		return new RGenericVector(Arrays.<RExp>asList(coefficientVector, model, xlevels), createAttributes("names", createStringVector("coefficients", "model", "xlevels")));
+	}
+
+	static
+	private RStringVector createStringVector(String... values){
+		return new RStringVector(Arrays.asList(values), null);
+	}
+
+	static
+	private RPair createAttributes(Object... tagValues){
+		RPair result = null;
+
+		for(int i = tagValues.length - 2; i > -1; i -= 2){
+			RPair attribute = new RPair(new RString((String)tagValues[i]), (RExp)tagValues[i + 1], null);
+			attribute.setNext(result);
+
+			result = attribute;
+		}
+
+		return result;
+	}
+}
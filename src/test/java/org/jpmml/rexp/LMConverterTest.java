@@ -19,7 +19,18 @@
 package org.jpmml.rexp;
 
 import java.util.Arrays;
+import java.util.List;
 
+import org.dmg.pmml.DerivedField;
+import org.dmg.pmml.FieldName;
+import org.dmg.pmml.MapValues;
+import org.dmg.pmml.PMML;
+import org.dmg.pmml.regression.CategoricalPredictor;
+import org.dmg.pmml.regression.NumericPredictor;
+import org.dmg.pmml.regression.PredictorTerm;
+import org.dmg.pmml.regression.RegressionModel;
+import org.dmg.pmml.regression.RegressionTable;
+import org.jpmml.evaluator.Batch;
 import org.junit.Test;
 
 import static org.junit.Assert.assertEquals;
@@ -45,11 +56,87 @@ public class LMConverterTest extends ConverterTest {
 		assertEquals(Arrays.asList("", "A", "B", "C", ""), LMConverter.split(":A:B:C:"));
 	}
 
+	@Test
+	public void encodeLargeFormula(){
+		LMConverter converter = new LMConverter(LMConverterBenchmark.createLM(999, 999));
+
+		PMML pmml = converter.encodePMML();
+
+		RegressionModel regressionModel = (RegressionModel)(pmml.getModels()).get(0);
+
+		RegressionTable regressionTable = (regressionModel.getRegressionTables()).get(0);
+
+		assertEquals(0.001d, regressionTable.getIntercept(), 0d);
+
+		List<NumericPredictor> numericPredictors = regressionTable.getNumericPredictors();
+		List<CategoricalPredictor> categoricalPredictors = regressionTable.getCategoricalPredictors();
+		List<PredictorTerm> predictorTerms = regressionTable.getPredictorTerms();
+
+		assertEquals(1, numericPredictors.size());
+		assertEquals(999, categoricalPredictors.size());
+		assertEquals(999, predictorTerms.size());
+
+		NumericPredictor numericPredictor = numericPredictors.get(0);
+
+		assertEquals(FieldName.create("z"), numericPredictor.getName());
+		assertEquals(1.001d, numericPredictor.getCoefficient(), 0d);
+
+		CategoricalPredictor categoricalPredictor = categoricalPredictors.get(998);
+
+		assertEquals("L1000", categoricalPredictor.getValue());
+		assertEquals(1d, categoricalPredictor.getCoefficient(), 0d);
+
+		PredictorTerm predictorTerm = predictorTerms.get(998);
+
+		assertEquals(FieldName.create("xL1000:z"), predictorTerm.getName());
+		assertEquals(2d, predictorTerm.getCoefficient(), 0d);
+	}
+
+	@Test
+	public void encodeLookupFormula(){
+		LMConverter converter = new LMConverter(LMConverterBenchmark.createLM(999, 999));
+		converter.setLookupLevels(100);
+
+		PMML pmml = converter.encodePMML();
+
+		RegressionModel regressionModel = (RegressionModel)(pmml.getModels()).get(0);
+
+		RegressionTable regressionTable = (regressionModel.getRegressionTables()).get(0);
+
+		List<NumericPredictor> numericPredictors = regressionTable.getNumericPredictors();
+
+		assertEquals(2, numericPredictors.size());
+		assertEquals(0, (regressionTable.getCategoricalPredictors()).size());
+		assertEquals(999, (regressionTable.getPredictorTerms()).size());
+
+		NumericPredictor numericPredictor = numericPredictors.get(0);
+
+		assertEquals(FieldName.create("lookup(x)"), numericPredictor.getName());
+		assertEquals(1d, numericPredictor.getCoefficient(), 0d);
+
+		DerivedField derivedField = ((pmml.getTransformationDictionary()).getDerivedFields()).get(0);
+
+		MapValues mapValues = (MapValues)derivedField.getExpression();
+
+		assertEquals("0", mapValues.getDefaultValue());
+		assertEquals(999, ((mapValues.getInlineTable()).getRows()).size());
+	}
+
 	@Test
 	public void evaluateFormulaAuto() throws Exception {
 		evaluate("LinearRegressionFormula", "Auto");
 	}
 
+	@Test
+	public void evaluateLookupFormulaAuto() throws Exception {
+		ConverterOptions options = new ConverterOptions()
+			.put(ConverterOptions.LOOKUP_LEVELS, 2);
+
+		try(Batch batch = createBatch("LinearRegressionFormula", "Auto", options)){
+			evaluate(batch);
+		}
+	}
+
 	@Test
 	public void evaluateCustFormulaAuto() throws Exception {
 		evaluate("LinearRegressionCustFormula", "Auto");
@@ -18,6 +18,7 @@
  */
 package org.jpmml.rexp;
 
+import org.jpmml.evaluator.Batch;
 import org.junit.Test;
 
 public class LRMConverterTest extends ConverterTest {
@@ -26,4 +27,24 @@ public class LRMConverterTest extends ConverterTest {
 	public void evaluateFormulaAudit() throws Exception {
 		evaluate("LogisticRegressionFormula", "Audit");
 	}
+
+	@Test
+	public void evaluateLookupFormulaAudit() throws Exception {
+		ConverterOptions options = new ConverterOptions()
+			.put(ConverterOptions.LOOKUP_LEVELS, 2);
+
+		try(Batch batch = createBatch("LogisticRegressionFormula", "Audit", options)){
+			evaluate(batch);
+		}
+	}
+
+	@Test
+	public void evaluateRegressionFormulaAudit() throws Exception {
+		ConverterOptions options = new ConverterOptions()
+			.put(ConverterOptions.REGRESSION_MODEL, true);
+
+		try(Batch batch = createBatch("LogisticRegressionFormula", "Audit", options)){
+			evaluate(batch);
+		}
+	}
 }
\ No newline at end of file
@@ -18,6 +18,7 @@
  */
 package org.jpmml.rexp;
 
+import org.jpmml.evaluator.Batch;
 import org.junit.Test;
 
 public class MVRConverterTest extends ConverterTest {
@@ -31,4 +32,14 @@ public class MVRConverterTest extends ConverterTest {
 	public void evaluateCustFormulaAuto() throws Exception {
 		evaluate("PLSRegressionCustFormula", "Auto");
 	}
+
+	@Test
+	public void evaluateRegressionFormulaAuto() throws Exception {
+		ConverterOptions options = new ConverterOptions()
+			.put(ConverterOptions.REGRESSION_MODEL, true);
+
+		try(Batch batch = createBatch("PLSRegressionFormula", "Auto", options)){
+			evaluate(batch);
+		}
+	}
 }
\ No newline at end of file
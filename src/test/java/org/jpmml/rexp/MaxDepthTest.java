@@ -0,0 +1,279 @@
+/*
+ * Copyright (c) 2017 Villu Ruusmann
+ *
+ * This file is part of JPMML-R
+ *
+ * JPMML-R is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JPMML-R is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with JPMML-R.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.jpmml.rexp;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.dmg.pmml.FieldName;
+import org.dmg.pmml.MiningFunction;
+import org.dmg.pmml.PMML;
+import org.dmg.pmml.ScoreDistribution;
+import org.dmg.pmml.VisitorAction;
+import org.dmg.pmml.tree.Node;
+import org.dmg.pmml.tree.TreeModel;
+import org.jpmml.evaluator.Evaluator;
+import org.jpmml.evaluator.EvaluatorUtil;
+import org.jpmml.evaluator.FieldValue;
+import org.jpmml.evaluator.InputField;
+import org.jpmml.evaluator.ModelEvaluatorFactory;
+import org.jpmml.evaluator.TargetField;
+import org.jpmml.model.visitors.AbstractVisitor;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class MaxDepthTest extends ConverterTest {
+
+	@Test
+	public void limitDepth() throws Exception {
+		String[] names = {"RandomForestAuto", "RandomForestIris", "RangerAudit", "RangerAutoNA", "RangerProbIris", "GBMAutoNA", "IForestAuto", "TrainRandomForestIris"};
+
+		for(String name : names){
+			assertTrue(name, getMaxDepth(name, -1) > 2);
+
+			assertEquals(name, 2, getMaxDepth(name, 2));
+			assertEquals(name, 0, getMaxDepth(name, 0));
+		}
+	}
+
+	@Test
+	public void limitExceedingDepth() throws Exception {
+		assertEquals(getMaxDepth("RandomForestAudit", -1), getMaxDepth("RandomForestAudit", Integer.MAX_VALUE));
+	}
+
+	@Test
+	public void evaluateAggregatedLeaves() throws Exception {
+		LeafScoreAverager averager = new LeafScoreAverager();
+		averager.applyTo(encodePMML("RangerAutoNA", -1));
+
+		// Every tree is reduced to its root node, which predicts the unweighted mean of the leaf scores of the original tree
+		assertEquals(averager.getAverage(), evaluateConstant(encodePMML("RangerAutoNA", 0)), 1e-9);
+	}
+
+	@Test
+	public void evaluateInteriorNodes() throws Exception {
+		Converter<RExp> converter = createConverter("RandomForestAuto");
+
+		RGenericVector randomForest = (RGenericVector)converter.getObject();
+
+		RGenericVector forest = (RGenericVector)randomForest.getValue("forest");
+
+		RDoubleVector nodepred = (RDoubleVector)forest.getValue("nodepred");
+		RIntegerVector nrnodes = (RIntegerVector)forest.getValue("nrnodes");
+		RDoubleVector ntree = (RDoubleVector)forest.getValue("ntree");
+
+		int rows = nrnodes.asScalar();
+		int columns = (ntree.asScalar()).intValue();
+
+		double sum = 0d;
+
+		for(int i = 0; i < columns; i++){
+			sum += nodepred.getValue(i * rows);
+		}
+
+		// Every tree is reduced to its root node, which predicts the mean of the training samples
+		assertEquals(sum / columns, evaluateConstant(encodePMML("RandomForestAuto", 0)), 1e-9);
+	}
+
+	@Test
+	public void aggregateRegressionLeaves(){
+		List<Node> leaves = Arrays.asList(new Node().setScore("1"), new Node().setScore("4"));
+
+		Node node = TreeModelConverter.aggregateLeaves(new Node(), MiningFunction.REGRESSION, leaves, null);
+
+		assertEquals("2.5", node.getScore());
+
+		node = TreeModelConverter.aggregateLeaves(new Node(), MiningFunction.REGRESSION, leaves, Arrays.asList(2, 1));
+
+		assertEquals("2", node.getScore());
+	}
+
+	@Test
+	public void aggregateClassificationLeaves(){
+		List<Node> leaves = Arrays.asList(new Node().setScore("a"), new Node().setScore("b"), new Node().setScore("b"));
+
+		Node node = TreeModelConverter.aggregateLeaves(new Node(), MiningFunction.CLASSIFICATION, leaves, null);
+
+		assertEquals("b", node.getScore());
+		assertTrue(!node.hasScoreDistributions());
+
+		node = TreeModelConverter.aggregateLeaves(new Node(), MiningFunction.CLASSIFICATION, leaves, Arrays.asList(3, 1, 1));
+
+		assertEquals("a", node.getScore());
+	}
+
+	@Test
+	public void aggregateProbabilityLeaves(){
+		Node left = new Node()
+			.addScoreDistributions(new ScoreDistribution("a", 0.75d), new ScoreDistribution("b", 0.25d));
+
+		Node right = new Node()
+			.addScoreDistributions(new ScoreDistribution("a", 0d), new ScoreDistribution("b", 1d));
+
+		Node node = TreeModelConverter.aggregateLeaves(new Node(), MiningFunction.CLASSIFICATION, Arrays.asList(left, right), null);
+
+		assertEquals("b", node.getScore());
+
+		List<ScoreDistribution> scoreDistributions = node.getScoreDistributions();
+
+		assertEquals(2, scoreDistributions.size());
+		assertEquals(0.375d, (scoreDistributions.get(0)).getRecordCount(), 1e-15);
+		assertEquals(0.625d, (scoreDistributions.get(1)).getRecordCount(), 1e-15);
+	}
+
+	@Test
+	public void setMaxDepth() throws Exception {
+		TreeModelConverter<?> converter = (TreeModelConverter<?>)createConverter("RandomForestAudit");
+
+		try {
+			converter.setMaxDepth(-2);
+
+			fail();
+		} catch(IllegalArgumentException iae){
+			// Ignored
+		}
+	}
+
+	static
+	private int getMaxDepth(String name, int maxDepth) throws Exception {
+		PMML pmml = encodePMML(name, maxDepth);
+
+		DepthCounter counter = new DepthCounter();
+		counter.applyTo(pmml);
+
+		return counter.getMaxDepth();
+	}
+
+	static
+	private PMML encodePMML(String name, int maxDepth) throws Exception {
+		Converter<RExp> converter = createConverter(name, new ConverterOptions().put(ConverterOptions.MAX_DEPTH, maxDepth));
+
+		return converter.encodePMML();
+	}
+
+	/**
+	 * @return The prediction of a regression model whose tree models consist of a root node only.
+	 */
+	static
+	private double evaluateConstant(PMML pmml){
+		ModelEvaluatorFactory modelEvaluatorFactory = ModelEvaluatorFactory.newInstance();
+
+		Evaluator evaluator = modelEvaluatorFactory.newModelEvaluator(pmml);
+
+		Map<FieldName, FieldValue> arguments = new LinkedHashMap<>();
+
+		List<InputField> inputFields = evaluator.getInputFields();
+		for(InputField inputField : inputFields){
+			arguments.put(inputField.getName(), inputField.prepare(null));
+		}
+
+		Map<FieldName, ?> results = evaluator.evaluate(arguments);
+
+		List<TargetField> targetFields = evaluator.getTargetFields();
+
+		Object value = EvaluatorUtil.decode(results.get((targetFields.get(0)).getName()));
+
+		return ((Number)value).doubleValue();
+	}
+
+	static
+	private class LeafScoreAverager extends AbstractVisitor {
+
+		private double sum = 0d;
+
+		private int count = 0;
+
+
+		@Override
+		public VisitorAction visit(TreeModel treeModel){
+			List<Double> scores = new ArrayList<>();
+
+			collectLeafScores(treeModel.getNode(), scores);
+
+			double scoreSum = 0d;
+
+			for(Double score : scores){
+				scoreSum += score;
+			}
+
+			this.sum += (scoreSum / scores.size());
+			this.count++;
+
+			return VisitorAction.SKIP;
+		}
+
+		public double getAverage(){
+			return (this.sum / this.count);
+		}
+
+		static
+		private void collectLeafScores(Node node, List<Double> scores){
+
+			if(!node.hasNodes()){
+				scores.add(Double.valueOf(node.getScore()));
+
+				return;
+			}
+
+			List<Node> children = node.getNodes();
+			for(Node child : children){
+				collectLeafScores(child, scores);
+			}
+		}
+	}
+
+	static
+	private class DepthCounter extends AbstractVisitor {
+
+		private int maxDepth = -1;
+
+
+		@Override
+		public VisitorAction visit(TreeModel treeModel){
+			this.maxDepth = Math.max(this.maxDepth, getDepth(treeModel.getNode()));
+
+			return VisitorAction.SKIP;
+		}
+
+		public int getMaxDepth(){
+			return this.maxDepth;
+		}
+
+		static
+		private int getDepth(Node node){
+			int result = 0;
+
+			if(node.hasNodes()){
+				List<Node> children = node.getNodes();
+
+				for(Node child : children){
+					result = Math.max(result, getDepth(child) + 1);
+				}
+			}
+
+			return result;
+		}
+	}
+}
@@ -0,0 +1,151 @@
+/*
+ * Copyright (c) 2017 Villu Ruusmann
+ *
+ * This file is part of JPMML-R
+ *
+ * JPMML-R is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JPMML-R is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with JPMML-R.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.jpmml.rexp;
+
+
+import org.dmg.pmml.PMML;
+import org.dmg.pmml.VisitorAction;
+import org.dmg.pmml.tree.Node;
+import org.dmg.pmml.tree.TreeModel;
+import org.jpmml.model.visitors.AbstractVisitor;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class MemoryBudgetTest extends ConverterTest {
+
+	@Test
+	public void estimateMemoryUsage() throws Exception {
+		checkMemoryUsage("RandomForestAudit", 7, 3539);
+		checkMemoryUsage("RangerAudit", 7, 3905);
+		checkMemoryUsage("GBMAutoNA", 100, 1000);
+		checkMemoryUsage("IForestAuto", 7, 1543);
+		checkMemoryUsage("XGBoostAutoNA", 15, 913);
+
+		ModelConverter<RExp> converter = (ModelConverter<RExp>)createConverter("LinearRegressionFormulaAuto");
+
+		assertEquals(-1L, converter.estimateMemoryUsage());
+	}
+
+	@Test
+	public void refuse() throws Exception {
+		ModelConverter<RExp> converter = (ModelConverter<RExp>)createConverter("RandomForestAudit");
+		converter.setMemoryBudget(1024L);
+
+		try {
+			converter.encodePMML();
+
+			fail();
+		} catch(IllegalArgumentException iae){
+			// Ignored
+		}
+
+		converter.setMemoryBudget(converter.estimateMemoryUsage());
+
+		PMML pmml = converter.encodePMML();
+
+		assertNotNull(pmml);
+	}
+
+	@Test
+	public void parseBytes(){
+		assertEquals(512L, MemoryUtil.parseBytes("512"));
+		assertEquals(512L * 1024L, MemoryUtil.parseBytes("512k"));
+		assertEquals(2L * 1024L * 1024L * 1024L, MemoryUtil.parseBytes("2G"));
+
+		String[] invalidStrings = {"2T", "", " ", "K", "-1"};
+
+		for(String invalidString : invalidStrings){
+
+			try {
+				MemoryUtil.parseBytes(invalidString);
+
+				fail(invalidString);
+			} catch(IllegalArgumentException iae){
+				// Ignored
+			}
+		}
+	}
+
+	/**
+	 * <p>
+	 * Checks the estimate against the number of trees and nodes in the encoded PMML document.
+	 * The estimate should account for all of them, but it should not be grossly inflated either.
+	 * </p>
+	 */
+	static
+	private void checkMemoryUsage(String name, int trees, int nodes) throws Exception {
+		ModelConverter<RExp> converter = (ModelConverter<RExp>)createConverter(name);
+
+		long memoryUsage = converter.estimateMemoryUsage();
+
+		PMML pmml = converter.encodePMML();
+
+		NodeCounter counter = new NodeCounter();
+		counter.applyTo(pmml);
+
+		assertEquals(name, trees, counter.getTrees());
+		assertEquals(name, nodes, counter.getNodes());
+
+		long minMemoryUsage = (trees * MemoryBudgetTest.TREE_MODEL_BYTES) + (nodes * MemoryBudgetTest.NODE_BYTES);
+
+		assertTrue(name, memoryUsage >= minMemoryUsage);
+		assertTrue(name, memoryUsage <= (minMemoryUsage * 3) / 2);
+	}
+
+	static
+	private class NodeCounter extends AbstractVisitor {
+
+		private int trees = 0;
+
+		private int nodes = 0;
+
+
+		@Override
+		public VisitorAction visit(TreeModel treeModel){
+			this.trees++;
+
+			return super.visit(treeModel);
+		}
+
+		@Override
+		public VisitorAction visit(Node node){
+			this.nodes++;
+
+			return super.visit(node);
+		}
+
+		public int getTrees(){
+			return this.trees;
+		}
+
+		public int getNodes(){
+			return this.nodes;
+		}
+	}
+
+	/**
+	 * The documented per-tree and per-node costs (see {@link MemoryUtil}).
+	 */
+	private static final long TREE_MODEL_BYTES = 4096L;
+	private static final long NODE_BYTES = 640L;
+}
@@ -0,0 +1,99 @@
+/*
+ * Copyright (c) 2017 Villu Ruusmann
+ *
+ * This file is part of JPMML-R
+ *
+ * JPMML-R is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JPMML-R is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with JPMML-R.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.jpmml.rexp;
+
+import org.dmg.pmml.PMML;
+import org.dmg.pmml.VisitorAction;
+import org.dmg.pmml.tree.TreeModel;
+import org.jpmml.model.visitors.AbstractVisitor;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+public class NtreeLimitTest extends ConverterTest {
+
+	@Test
+	public void limitForests() throws Exception {
+		String[] names = {"RandomForestAuto", "RandomForestIris", "RangerAudit", "RangerIris", "IForestAuto", "TrainRandomForestIris"};
+
+		for(String name : names){
+			assertEquals(name, 3, countTreeModels(name, 3));
+		}
+	}
+
+	@Test
+	public void limitBoosters() throws Exception {
+		assertEquals(3, countTreeModels("GBMAutoNA", 3));
+		assertEquals(3, countTreeModels("XGBoostAutoNA", 3));
+
+		// One tree per class per boosting iteration
+		assertEquals(3 * 3, countTreeModels("GBMIris", 3));
+		assertEquals(3 * 3, countTreeModels("XGBoostIris", 3));
+	}
+
+	@Test
+	public void limitExceedingSize() throws Exception {
+		assertEquals(countTreeModels("RangerAudit", -1), countTreeModels("RangerAudit", Integer.MAX_VALUE));
+	}
+
+	@Test
+	public void setNtreeLimit() throws Exception {
+		Converter<RExp> converter = createConverter("RandomForestAudit");
+
+		try {
+			converter.setNtreeLimit(0);
+
+			fail();
+		} catch(IllegalArgumentException iae){
+			// Ignored
+		}
+	}
+
+	static
+	private int countTreeModels(String name, int ntreeLimit) throws Exception {
+		Converter<RExp> converter = createConverter(name);
+		converter.setNtreeLimit(ntreeLimit);
+
+		PMML pmml = converter.encodePMML();
+
+		TreeModelCounter counter = new TreeModelCounter();
+		counter.applyTo(pmml);
+
+		return counter.getTreeModels();
+	}
+
+	static
+	private class TreeModelCounter extends AbstractVisitor {
+
+		private int treeModels = 0;
+
+
+		@Override
+		public VisitorAction visit(TreeModel treeModel){
+			this.treeModels++;
+
+			return VisitorAction.SKIP;
+		}
+
+		public int getTreeModels(){
+			return this.treeModels;
+		}
+	}
+}
@@ -0,0 +1,234 @@
+/*
+ * Copyright (c) 2017 Villu Ruusmann
+ *
+ * This file is part of JPMML-R
+ *
+ * JPMML-R is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JPMML-R is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with JPMML-R.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.jpmml.rexp;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.dmg.pmml.Apply;
+import org.dmg.pmml.DataType;
+import org.dmg.pmml.DerivedField;
+import org.dmg.pmml.Expression;
+import org.dmg.pmml.FieldName;
+import org.dmg.pmml.LinearNorm;
+import org.dmg.pmml.MiningField;
+import org.dmg.pmml.MiningFunction;
+import org.dmg.pmml.MiningSchema;
+import org.dmg.pmml.NormContinuous;
+import org.dmg.pmml.OpType;
+import org.dmg.pmml.regression.NumericPredictor;
+import org.dmg.pmml.regression.RegressionModel;
+import org.dmg.pmml.regression.RegressionTable;
+import org.jpmml.converter.Feature;
+import org.jpmml.converter.ModelUtil;
+import org.jpmml.converter.Schema;
+import org.jpmml.evaluator.NormalizationUtil;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class PreProcessEncoderTest extends ConverterTest {
+
+	@Test
+	public void evaluateFoldedCaretIris() throws Exception {
+		evaluate(createBatch("TrainRandomForest", "Iris", new ConverterOptions().put(ConverterOptions.FOLD_PREPROCESS, true)));
+	}
+
+	@Test
+	public void foldCenterScale(){
+		RGenericVector preProcess = createPreProcess(Arrays.asList("center", "scale"), null, new double[]{2d}, new double[]{0.5d}, null);
+
+		NormContinuous normContinuous = (NormContinuous)encodeExpression(preProcess, true);
+
+		List<LinearNorm> linearNorms = normContinuous.getLinearNorms();
+
+		assertEquals(2, linearNorms.size());
+		assertEquals(2d, (linearNorms.get(0)).getOrig(), 0d);
+		assertEquals(2.5d, (linearNorms.get(1)).getOrig(), 0d);
+		assertNull(normContinuous.getMapMissingTo());
+
+		assertEquals((7.3d - 2d) / 0.5d, NormalizationUtil.normalize(normContinuous, 7.3d), 1e-13);
+		assertEquals((-1.1d - 2d) / 0.5d, NormalizationUtil.normalize(normContinuous, -1.1d), 1e-13);
+
+		assertTrue(encodeExpression(preProcess, false) instanceof Apply);
+	}
+
+	@Test
+	public void foldRangeCenterScale(){
+		RGenericVector preProcess = createPreProcess(Arrays.asList("range", "center", "scale", "medianImpute"), new double[]{-1d, 3d}, new double[]{0.25d}, new double[]{2d}, new double[]{1.5d});
+
+		NormContinuous normContinuous = (NormContinuous)encodeExpression(preProcess, true);
+
+		assertEquals((Double)1.5d, normContinuous.getMapMissingTo());
+
+		double x = 2.2d;
+
+		assertEquals((((x + 1d) / 4d) - 0.25d) / 2d, NormalizationUtil.normalize(normContinuous, x), 1e-13);
+	}
+
+	@Test
+	public void foldConstantScale(){
+		RGenericVector preProcess = createPreProcess(Arrays.asList("range"), new double[]{1d, 1d}, null, null, null);
+
+		assertTrue(encodeExpression(preProcess, true) instanceof Apply);
+	}
+
+	@Test
+	public void imputeMedian(){
+		RGenericVector preProcess = createPreProcess(Arrays.asList("medianImpute"), null, null, null, new double[]{1.5d});
+
+		Apply apply = (Apply)encodeExpression(preProcess, false);
+
+		assertEquals("if", apply.getFunction());
+
+		PreProcessEncoder encoder = new PreProcessEncoder(preProcess);
+
+		Schema schema = encodeSchema(encoder);
+
+		Feature feature = (schema.getFeatures()).get(0);
+
+		assertEquals(FieldName.create("preProcess(x)"), feature.getName());
+
+		RegressionModel regressionModel = encodeRegressionModel(encoder, schema);
+
+		MiningField miningField = getMiningField(regressionModel, FieldName.create("x"));
+
+		assertNull(miningField.getMissingValueReplacement());
+	}
+
+	@Test
+	public void foldImputeMedian(){
+		RGenericVector preProcess = createPreProcess(Arrays.asList("medianImpute"), null, null, null, new double[]{1.5d});
+
+		PreProcessEncoder encoder = new PreProcessEncoder(preProcess);
+		encoder.setFoldTransformations(true);
+
+		Schema schema = encodeSchema(encoder);
+
+		Feature feature = (schema.getFeatures()).get(0);
+
+		assertEquals(FieldName.create("x"), feature.getName());
+		assertSame(encoder.getDataField(FieldName.create("x")), encoder.getField(feature.getName()));
+
+		RegressionModel regressionModel = encodeRegressionModel(encoder, schema);
+
+		MiningField miningField = getMiningField(regressionModel, FieldName.create("x"));
+
+		assertEquals("1.5", miningField.getMissingValueReplacement());
+	}
+
+	static
+	private Expression encodeExpression(RGenericVector preProcess, boolean foldTransformations){
+		PreProcessEncoder encoder = new PreProcessEncoder(preProcess);
+		encoder.setFoldTransformations(foldTransformations);
+
+		Schema schema = encodeSchema(encoder);
+
+		Feature feature = (schema.getFeatures()).get(0);
+
+		DerivedField derivedField = encoder.getDerivedField(feature.getName());
+
+		return derivedField.getExpression();
+	}
+
+	static
+	private RegressionModel encodeRegressionModel(PreProcessEncoder encoder, Schema schema){
+		Feature feature = (schema.getFeatures()).get(0);
+
+		RegressionTable regressionTable = new RegressionTable(0d)
+			.addNumericPredictors(new NumericPredictor(feature.getName(), 2d));
+
+		RegressionModel regressionModel = new RegressionModel(MiningFunction.REGRESSION, ModelUtil.createMiningSchema(schema), null)
+			.addRegressionTables(regressionTable);
+
+		encoder.encodePMML(regressionModel);
+
+		return regressionModel;
+	}
+
+	static
+	private MiningField getMiningField(RegressionModel regressionModel, FieldName name){
+		MiningSchema miningSchema = regressionModel.getMiningSchema();
+
+		for(MiningField miningField : miningSchema.getMiningFields()){
+
+			if((name).equals(miningField.getName())){
+				return miningField;
+			}
+		}
+
+		throw new IllegalArgumentException(name.getValue());
+	}
+
+	static
+	private Schema encodeSchema(PreProcessEncoder encoder){
+		encoder.setLabel(encoder.createDataField(FieldName.create("y"), OpType.CONTINUOUS, DataType.DOUBLE));
+		encoder.addFeature(encoder.createDataField(FieldName.create("x"), OpType.CONTINUOUS, DataType.DOUBLE));
+
+		return encoder.createSchema();
+	}
+
+	static
+	private RGenericVector createPreProcess(List<String> methodNames, double[] ranges, double[] mean, double[] std, double[] median){
+		List<RExp> values = new ArrayList<>();
+		List<String> names = new ArrayList<>();
+
+		values.add(new RGenericVector(Collections.<RExp>nCopies(methodNames.size(), createNames()), createNamesAttribute(methodNames)));
+		names.add("method");
+
+		if(ranges != null){
+			RGenericVector dimnames = new RGenericVector(Arrays.<RExp>asList(new RStringVector(Arrays.asList("min", "max"), null), createNames()), null);
+
+			values.add(new RDoubleVector(ranges, new RPair(new RString("dimnames"), dimnames, null)));
+			names.add("ranges");
+		} // End if
+
+		if(mean != null){
+			values.add(new RDoubleVector(mean, createNamesAttribute(Arrays.asList("x"))));
+			names.add("mean");
+		} // End if
+
+		if(std != null){
+			values.add(new RDoubleVector(std, createNamesAttribute(Arrays.asList("x"))));
+			names.add("std");
+		} // End if
+
+		if(median != null){
+			values.add(new RDoubleVector(median, createNamesAttribute(Arrays.asList("x"))));
+			names.add("median");
+		}
+
+		return new RGenericVector(values, createNamesAttribute(names));
+	}
+
+	static
+	private RStringVector createNames(){
+		return new RStringVector(Arrays.asList("x"), null);
+	}
+
+	static
+	private RPair createNamesAttribute(List<String> names){
+		return new RPair(new RString("names"), new RStringVector(names, null), null);
+	}
+}
@@ -0,0 +1,134 @@
+/*
+ * Copyright (c) 2017 Villu Ruusmann
+ *
+ * This file is part of JPMML-R
+ *
+ * JPMML-R is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JPMML-R is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with JPMML-R.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.jpmml.rexp;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.dmg.pmml.DataDictionary;
+import org.dmg.pmml.DataField;
+import org.dmg.pmml.DataType;
+import org.dmg.pmml.FieldName;
+import org.dmg.pmml.MiningField;
+import org.dmg.pmml.MiningFunction;
+import org.dmg.pmml.MiningSchema;
+import org.dmg.pmml.OpType;
+import org.dmg.pmml.PMML;
+import org.dmg.pmml.regression.NumericPredictor;
+import org.dmg.pmml.regression.RegressionModel;
+import org.dmg.pmml.regression.RegressionTable;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class RExpEncoderTest {
+
+	@Test
+	public void getMappings(){
+		Map<FieldName, FieldName> renamedFields = new LinkedHashMap<>();
+		renamedFields.put(FieldName.create("a"), FieldName.create("b"));
+		renamedFields.put(FieldName.create("b"), FieldName.create("c"));
+		renamedFields.put(FieldName.create("x"), FieldName.create("x"));
+
+		Map<FieldName, FieldName> mappings = RExpEncoder.getMappings(renamedFields);
+
+		assertEquals(2, mappings.size());
+		assertEquals(FieldName.create("c"), mappings.get(FieldName.create("a")));
+		assertEquals(FieldName.create("c"), mappings.get(FieldName.create("b")));
+
+		renamedFields.clear();
+		renamedFields.put(FieldName.create("b"), FieldName.create("c"));
+		renamedFields.put(FieldName.create("a"), FieldName.create("b"));
+
+		mappings = RExpEncoder.getMappings(renamedFields);
+
+		assertEquals(2, mappings.size());
+		assertEquals(FieldName.create("b"), mappings.get(FieldName.create("a")));
+		assertEquals(FieldName.create("c"), mappings.get(FieldName.create("b")));
+
+		renamedFields.clear();
+		renamedFields.put(FieldName.create("a"), FieldName.create("b"));
+		renamedFields.put(FieldName.create("b"), FieldName.create("a"));
+
+		mappings = RExpEncoder.getMappings(renamedFields);
+
+		assertEquals(1, mappings.size());
+		assertEquals(FieldName.create("a"), mappings.get(FieldName.create("b")));
+	}
+
+	@Test
+	public void getChainedMappings(){
+		Map<FieldName, FieldName> renamedFields = new LinkedHashMap<>();
+
+		for(int i = 0; i < 20000; i++){
+			renamedFields.put(FieldName.create("x" + i), FieldName.create("x" + (i + 1)));
+		}
+
+		Map<FieldName, FieldName> mappings = RExpEncoder.getMappings(renamedFields);
+
+		assertEquals(20000, mappings.size());
+
+		for(int i = 0; i < 20000; i++){
+			assertEquals(FieldName.create("x20000"), mappings.get(FieldName.create("x" + i)));
+		}
+	}
+
+	@Test
+	public void encodePMML(){
+		RExpEncoder encoder = new RExpEncoder();
+
+		FieldName x1 = FieldName.create("x1");
+		FieldName x2 = FieldName.create("x2");
+
+		encoder.createDataField(x1, OpType.CONTINUOUS, DataType.DOUBLE);
+		encoder.createDataField(x2, OpType.CONTINUOUS, DataType.DOUBLE);
+
+		encoder.renameField(x1, FieldName.create("I(x1)"));
+		encoder.renameField(x2, FieldName.create("cut(x2)"));
+
+		MiningSchema miningSchema = new MiningSchema()
+			.addMiningFields(new MiningField(x1), new MiningField(x2));
+
+		RegressionTable regressionTable = new RegressionTable(0d)
+			.addNumericPredictors(new NumericPredictor(x1, 1d), new NumericPredictor(x2, 1d));
+
+		RegressionModel regressionModel = new RegressionModel(MiningFunction.REGRESSION, miningSchema, null)
+			.addRegressionTables(regressionTable);
+
+		PMML pmml = encoder.encodePMML(regressionModel);
+
+		DataDictionary dataDictionary = pmml.getDataDictionary();
+
+		List<DataField> dataFields = dataDictionary.getDataFields();
+
+		assertEquals(FieldName.create("I(x1)"), (dataFields.get(0)).getName());
+		assertEquals(FieldName.create("cut(x2)"), (dataFields.get(1)).getName());
+
+		List<MiningField> miningFields = miningSchema.getMiningFields();
+
+		assertEquals(FieldName.create("I(x1)"), (miningFields.get(0)).getName());
+		assertEquals(FieldName.create("cut(x2)"), (miningFields.get(1)).getName());
+
+		List<NumericPredictor> numericPredictors = regressionTable.getNumericPredictors();
+
+		assertEquals(FieldName.create("I(x1)"), (numericPredictors.get(0)).getName());
+		assertEquals(FieldName.create("cut(x2)"), (numericPredictors.get(1)).getName());
+	}
+}
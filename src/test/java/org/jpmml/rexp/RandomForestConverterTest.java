@@ -62,6 +62,16 @@ public class RandomForestConverterTest extends ConverterTest {
 		evaluate("RandomForest", "Audit");
 	}
 
+	@Test
+	public void evaluateComplementSetsAudit() throws Exception {
+		ConverterOptions options = new ConverterOptions()
+			.put(ConverterOptions.COMPLEMENT_SETS, true);
+
+		try(Batch batch = createBatch("RandomForest", "Audit", options)){
+			evaluate(batch, null);
+		}
+	}
+
 	@Test
 	public void evaluateCaretFormulaAuditMatrix() throws Exception {
 		evaluateCaretAudit("TrainRandomForestFormula", "AuditMatrix");
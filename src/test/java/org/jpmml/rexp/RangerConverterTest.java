@@ -18,6 +18,7 @@
  */
 package org.jpmml.rexp;
 
+import org.jpmml.evaluator.Batch;
 import org.junit.Test;
 
 public class RangerConverterTest extends ConverterTest {
@@ -27,6 +28,17 @@ public class RangerConverterTest extends ConverterTest {
 		evaluate("Ranger", "Audit");
 	}
 
+	@Test
+	public void evaluateCompactComplementSetsAudit() throws Exception {
+		ConverterOptions options = new ConverterOptions()
+			.put(ConverterOptions.COMPLEMENT_SETS, true)
+			.put(ConverterOptions.COMPACT, true);
+
+		try(Batch batch = createBatch("Ranger", "Audit", options)){
+			evaluate(batch, null);
+		}
+	}
+
 	@Test
 	public void evaluateProbAudit() throws Exception {
 		evaluate("RangerProb", "Audit");
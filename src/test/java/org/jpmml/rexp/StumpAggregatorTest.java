@@ -0,0 +1,368 @@
+/*
+ * Copyright (c) 2017 Villu Ruusmann
+ *
+ * This file is part of JPMML-R
+ *
+ * JPMML-R is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JPMML-R is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with JPMML-R.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.jpmml.rexp;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.dmg.pmml.DataDictionary;
+import org.dmg.pmml.DataField;
+import org.dmg.pmml.DataType;
+import org.dmg.pmml.FieldName;
+import org.dmg.pmml.Header;
+import org.dmg.pmml.MiningField;
+import org.dmg.pmml.MiningFunction;
+import org.dmg.pmml.MiningSchema;
+import org.dmg.pmml.OpType;
+import org.dmg.pmml.PMML;
+import org.dmg.pmml.SimplePredicate;
+import org.dmg.pmml.True;
+import org.dmg.pmml.mining.MiningModel;
+import org.dmg.pmml.mining.Segment;
+import org.dmg.pmml.mining.Segmentation;
+import org.dmg.pmml.tree.Node;
+import org.dmg.pmml.tree.TreeModel;
+import org.jpmml.converter.CategoricalFeature;
+import org.jpmml.converter.ContinuousFeature;
+import org.jpmml.converter.ContinuousLabel;
+import org.jpmml.converter.Feature;
+import org.jpmml.converter.ModelUtil;
+import org.jpmml.converter.Schema;
+import org.jpmml.evaluator.ArchiveBatch;
+import org.jpmml.evaluator.Batch;
+import org.jpmml.evaluator.EvaluatorUtil;
+import org.jpmml.evaluator.FieldValue;
+import org.jpmml.evaluator.InputField;
+import org.jpmml.evaluator.ModelEvaluator;
+import org.jpmml.evaluator.ModelEvaluatorFactory;
+import org.jpmml.model.visitors.MiningSchemaCleaner;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class StumpAggregatorTest extends ConverterTest {
+
+	@Test
+	public void aggregateContinuous(){
+		GBMConverter converter = new GBMConverter(null);
+
+		Feature feature = new ContinuousFeature(new RExpEncoder(), FieldName.create("x"), DataType.DOUBLE);
+
+		Schema schema = new Schema(new ContinuousLabel(null, DataType.DOUBLE), Collections.singletonList(feature));
+
+		TreeModel first = createStump(converter, feature, "0.5", "1", "2", "3", schema);
+		TreeModel second = createStump(converter, feature, "1.5", "10", "20", "30", schema);
+		TreeModel third = createStump(converter, feature, "1.5", "100", "200", "300", schema);
+
+		StumpAggregator aggregator = new StumpAggregator(converter);
+
+		List<TreeModel> treeModels = aggregator.aggregate(Arrays.asList(first, second, third), schema);
+
+		assertEquals(1, treeModels.size());
+
+		Node root = (treeModels.get(0)).getNode();
+
+		List<Node> children = root.getNodes();
+
+		assertEquals(3, children.size());
+
+		Node missingChild = children.get(0);
+
+		assertEquals("111", missingChild.getScore());
+
+		// x < 0.5
+		Node leftChild = children.get(1);
+
+		assertEquals("0.5", ((SimplePredicate)leftChild.getPredicate()).getValue());
+		assertEquals("222", leftChild.getScore());
+
+		// x >= 0.5
+		Node rightChild = children.get(2);
+
+		children = rightChild.getNodes();
+
+		assertEquals(2, children.size());
+
+		assertEquals("1.5", ((SimplePredicate)(children.get(0)).getPredicate()).getValue());
+		assertEquals("223", (children.get(0)).getScore());
+		assertEquals("333", (children.get(1)).getScore());
+	}
+
+	@Test
+	public void aggregateSingle(){
+		GBMConverter converter = new GBMConverter(null);
+
+		Feature feature = new ContinuousFeature(new RExpEncoder(), FieldName.create("x"), DataType.DOUBLE);
+
+		Schema schema = new Schema(new ContinuousLabel(null, DataType.DOUBLE), Collections.singletonList(feature));
+
+		TreeModel stump = createStump(converter, feature, "0.5", "1", "2", "3", schema);
+
+		StumpAggregator aggregator = new StumpAggregator(converter);
+
+		List<TreeModel> treeModels = aggregator.aggregate(Collections.singletonList(stump), schema);
+
+		assertSame(stump, treeModels.get(0));
+	}
+
+	@Test
+	public void aggregateCategorical(){
+		GBMConverter converter = new GBMConverter(null);
+
+		CategoricalFeature feature = new CategoricalFeature(new RExpEncoder(), FieldName.create("x"), DataType.STRING, Arrays.asList("a", "b", "c"));
+
+		Schema schema = new Schema(new ContinuousLabel(null, DataType.DOUBLE), Collections.<Feature>singletonList(feature));
+
+		TreeModel first = createStump(converter, feature, Arrays.asList("a"), Arrays.asList("b", "c"), schema);
+		TreeModel second = createStump(converter, feature, Arrays.asList("a", "b"), Arrays.asList("c"), schema);
+
+		StumpAggregator aggregator = new StumpAggregator(converter);
+
+		List<TreeModel> treeModels = aggregator.aggregate(Arrays.asList(first, second), schema);
+
+		assertEquals(1, treeModels.size());
+
+		Node root = (treeModels.get(0)).getNode();
+
+		List<Node> children = root.getNodes();
+
+		assertEquals(Arrays.asList("2", "2", "3", "4"), getScores(children));
+
+		TreeModel incomplete = createStump(converter, feature, Arrays.asList("a"), Arrays.asList("b"), schema);
+
+		treeModels = aggregator.aggregate(Arrays.asList(first, incomplete), schema);
+
+		assertEquals(2, treeModels.size());
+	}
+
+	@Test
+	public void aggregateTolerance(){
+		GBMConverter converter = new GBMConverter(null);
+
+		Feature x = new ContinuousFeature(new RExpEncoder(), FieldName.create("x"), DataType.DOUBLE);
+		Feature y = new ContinuousFeature(new RExpEncoder(), FieldName.create("y"), DataType.DOUBLE);
+
+		Schema schema = new Schema(new ContinuousLabel(FieldName.create("z"), DataType.DOUBLE), Arrays.asList(x, y));
+
+		Random random = new Random(42L);
+
+		List<TreeModel> stumps = new ArrayList<>();
+
+		// Interleave the stumps of two features, so that the aggregated sums are computed in a different order
+		for(int i = 0; i < 200; i++){
+			Feature feature = (i % 2 == 0 ? x : y);
+
+			String threshold = String.valueOf(random.nextInt(10));
+
+			stumps.add(createStump(converter, feature, threshold, String.valueOf(random.nextGaussian()), String.valueOf(random.nextGaussian()), String.valueOf(random.nextGaussian()), schema));
+		}
+
+		PMML pmml = createPMML(stumps, schema);
+
+		StumpAggregator aggregator = new StumpAggregator(converter);
+
+		PMML aggregatedPmml = createPMML(aggregator.aggregate(new ArrayList<>(stumps), schema), schema);
+
+		assertEquals(2, ((MiningModel)(aggregatedPmml.getModels()).get(0)).getSegmentation().getSegments().size());
+
+		double maxScore = 0d;
+
+		for(TreeModel stump : stumps){
+			List<Node> children = (stump.getNode()).getNodes();
+
+			for(Node child : children){
+				maxScore = Math.max(maxScore, Math.abs(Double.parseDouble(child.getScore())));
+			}
+		}
+
+		double tolerance = (stumps.size() - 1) * Math.ulp(1d) * (stumps.size() * maxScore);
+
+		boolean different = false;
+
+		for(int i = -1; i <= 10; i++){
+			Double value = (i > -1 ? Double.valueOf(i - 0.5d) : null);
+
+			double expected = evaluate(pmml, value);
+			double actual = evaluate(aggregatedPmml, value);
+
+			assertEquals(expected, actual, tolerance);
+
+			different |= (expected != actual);
+		}
+
+		assertTrue(different);
+	}
+
+	@Test
+	public void evaluateGBMAdaBoostAuditNA() throws Exception {
+		evaluateAggregated("GBMAdaBoost", "AuditNA");
+	}
+
+	@Test
+	public void evaluateGBMBernoulliAuditNA() throws Exception {
+		evaluateAggregated("GBMBernoulli", "AuditNA");
+	}
+
+	@Test
+	public void evaluateGBMIris() throws Exception {
+		evaluateAggregated("GBM", "Iris");
+	}
+
+	@Test
+	public void evaluateGBMAutoNA() throws Exception {
+		evaluateAggregated("GBM", "AutoNA");
+	}
+
+	private void evaluateAggregated(String name, String dataset) throws Exception {
+
+		try(Batch batch = createAggregatedBatch(name, dataset)){
+			evaluate(batch, null);
+		}
+	}
+
+	private ArchiveBatch createAggregatedBatch(String name, String dataset){
+		return createBatch(name, dataset, AggregatingGBMConverter.class);
+	}
+
+	static
+	private TreeModel createStump(GBMConverter converter, Feature feature, List<String> leftValues, List<String> rightValues, Schema schema){
+		Node root = new Node()
+			.setPredicate(new True())
+			.addNodes(
+				new Node()
+					.setPredicate(converter.createSimplePredicate(feature, SimplePredicate.Operator.IS_MISSING, null))
+					.setScore("1"),
+				new Node()
+					.setPredicate(converter.createSimpleSetPredicate(feature, leftValues))
+					.setScore("1"),
+				new Node()
+					.setPredicate(converter.createSimpleSetPredicate(feature, rightValues))
+					.setScore("2")
+			);
+
+		return new TreeModel(MiningFunction.REGRESSION, ModelUtil.createMiningSchema(schema), root);
+	}
+
+	static
+	private List<String> getScores(List<Node> nodes){
+		List<String> result = new ArrayList<>();
+
+		for(Node node : nodes){
+			result.add(node.getScore());
+		}
+
+		return result;
+	}
+
+	static
+	private TreeModel createStump(GBMConverter converter, Feature feature, String threshold, String missingScore, String leftScore, String rightScore, Schema schema){
+		Node root = new Node()
+			.setPredicate(new True())
+			.addNodes(
+				new Node()
+					.setPredicate(converter.createSimplePredicate(feature, SimplePredicate.Operator.IS_MISSING, null))
+					.setScore(missingScore),
+				new Node()
+					.setPredicate(converter.createSimplePredicate(feature, SimplePredicate.Operator.LESS_THAN, threshold))
+					.setScore(leftScore),
+				new Node()
+					.setPredicate(converter.createSimplePredicate(feature, SimplePredicate.Operator.GREATER_OR_EQUAL, threshold))
+					.setScore(rightScore)
+			);
+
+		return new TreeModel(MiningFunction.REGRESSION, ModelUtil.createMiningSchema(schema), root);
+	}
+
+	static
+	public class AggregatingGBMConverter extends GBMConverter {
+
+		public AggregatingGBMConverter(RGenericVector gbm){
+			super(gbm);
+
+			setAggregateStumps(true);
+		}
+	}
+
+	static
+	private PMML createPMML(List<TreeModel> treeModels, Schema schema){
+		DataDictionary dataDictionary = new DataDictionary();
+
+		List<Feature> features = schema.getFeatures();
+		for(Feature feature : features){
+			dataDictionary.addDataFields(new DataField(feature.getName(), OpType.CONTINUOUS, DataType.DOUBLE));
+		}
+
+		dataDictionary.addDataFields(new DataField(FieldName.create("z"), OpType.CONTINUOUS, DataType.DOUBLE));
+
+		Segmentation segmentation = new Segmentation(Segmentation.MultipleModelMethod.SUM, null);
+
+		for(TreeModel treeModel : treeModels){
+			Segment segment = new Segment()
+				.setPredicate(new True())
+				.setModel(treeModel);
+
+			segmentation.addSegments(segment);
+		}
+
+		MiningSchema miningSchema = new MiningSchema()
+			.addMiningFields(new MiningField(FieldName.create("z")).setUsageType(MiningField.UsageType.TARGET));
+
+		for(Feature feature : features){
+			miningSchema.addMiningFields(new MiningField(feature.getName()));
+		}
+
+		MiningModel miningModel = new MiningModel(MiningFunction.REGRESSION, miningSchema)
+			.setSegmentation(segmentation);
+
+		PMML pmml = new PMML("4.3", new Header(), dataDictionary)
+			.addModels(miningModel);
+
+		MiningSchemaCleaner cleaner = new MiningSchemaCleaner();
+		cleaner.applyTo(pmml);
+
+		return pmml;
+	}
+
+	/**
+	 * @param value The value of all input fields.
+	 */
+	static
+	private double evaluate(PMML pmml, Double value){
+		ModelEvaluatorFactory modelEvaluatorFactory = ModelEvaluatorFactory.newInstance();
+
+		ModelEvaluator<?> modelEvaluator = modelEvaluatorFactory.newModelEvaluator(pmml);
+
+		Map<FieldName, FieldValue> arguments = new LinkedHashMap<>();
+
+		for(InputField inputField : modelEvaluator.getInputFields()){
+			arguments.put(inputField.getName(), inputField.prepare(value));
+		}
+
+		Map<FieldName, ?> results = modelEvaluator.evaluate(arguments);
+
+		return (Double)EvaluatorUtil.decode(results.get(FieldName.create("z")));
+	}
+}
@@ -0,0 +1,235 @@
+/*
+ * Copyright (c) 2017 Villu Ruusmann
+ *
+ * This file is part of JPMML-R
+ *
+ * JPMML-R is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JPMML-R is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with JPMML-R.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.jpmml.rexp;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.dmg.pmml.Apply;
+import org.dmg.pmml.Constant;
+import org.dmg.pmml.DataDictionary;
+import org.dmg.pmml.DataField;
+import org.dmg.pmml.DataType;
+import org.dmg.pmml.DerivedField;
+import org.dmg.pmml.Expression;
+import org.dmg.pmml.FieldName;
+import org.dmg.pmml.FieldRef;
+import org.dmg.pmml.Header;
+import org.dmg.pmml.OpType;
+import org.dmg.pmml.PMML;
+import org.dmg.pmml.TransformationDictionary;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class SubexpressionEliminatorTest {
+
+	@Test
+	public void eliminate(){
+		FieldRef x = new FieldRef(FieldName.create("x"));
+		FieldRef y = new FieldRef(FieldName.create("y"));
+
+		DerivedField logX = createDerivedField("I(log(x))", OpType.CONTINUOUS, createApply("ln", x));
+		DerivedField squaredLogX = createDerivedField("I(log(x)^2)", OpType.CONTINUOUS, createApply("pow", createApply("ln", x), createConstant("2")));
+
+		Apply product = createApply("*", x, y);
+
+		DerivedField first = createDerivedField("I(x * y + 1)", OpType.CONTINUOUS, createApply("+", product, createConstant("1")));
+		DerivedField second = createDerivedField("I(x * y/2)", OpType.CONTINUOUS, createApply("/", createApply("*", x, y), createConstant("2")));
+
+		List<DerivedField> derivedFields = new ArrayList<>(Arrays.asList(logX, squaredLogX, first, second));
+
+		Set<FieldName> names = new HashSet<>();
+
+		for(DerivedField derivedField : derivedFields){
+			names.add(derivedField.getName());
+		}
+
+		SubexpressionEliminator.eliminate(derivedFields, names);
+
+		assertEquals(5, derivedFields.size());
+
+		assertSame(logX, derivedFields.get(0));
+		assertSame(squaredLogX, derivedFields.get(1));
+
+		assertEquals(logX.getName(), getFieldRef(squaredLogX, 0).getField());
+
+		DerivedField productField = derivedFields.get(2);
+
+		assertEquals(FieldName.create("I(x * y)"), productField.getName());
+		assertEquals(OpType.CONTINUOUS, productField.getOpType());
+		assertEquals(DataType.DOUBLE, productField.getDataType());
+		assertSame(product, productField.getExpression());
+
+		assertSame(first, derivedFields.get(3));
+		assertSame(second, derivedFields.get(4));
+
+		assertEquals(productField.getName(), getFieldRef(first, 0).getField());
+		assertEquals(productField.getName(), getFieldRef(second, 0).getField());
+
+		assertTrue(names.contains(productField.getName()));
+	}
+
+	@Test
+	public void eliminateNonShareable(){
+		FieldRef x = new FieldRef(FieldName.create("x"));
+
+		DerivedField first = createDerivedField("first", OpType.CONTINUOUS, createApply("+", createApply("ln", x).setMapMissingTo("0"), createConstant("1")));
+		DerivedField second = createDerivedField("second", OpType.CONTINUOUS, createApply("+", createApply("ln", x), createConstant("2")));
+
+		// Not an arithmetic function
+		DerivedField third = createDerivedField("third", OpType.CONTINUOUS, createApply("+", createApply("if", x, x), createConstant("1")));
+		DerivedField fourth = createDerivedField("fourth", OpType.CONTINUOUS, createApply("+", createApply("if", x, x), createConstant("2")));
+
+		// Not a continuous double field
+		DerivedField fifth = createDerivedField("fifth", OpType.CATEGORICAL, createApply("exp", x));
+		DerivedField sixth = createDerivedField("sixth", OpType.CONTINUOUS, createApply("+", createApply("exp", x), createConstant("1")));
+
+		List<DerivedField> derivedFields = new ArrayList<>(Arrays.asList(first, second, third, fourth, fifth, sixth));
+
+		SubexpressionEliminator.eliminate(derivedFields, new HashSet<FieldName>());
+
+		assertEquals(6, derivedFields.size());
+
+		for(DerivedField derivedField : derivedFields){
+			Apply apply = (Apply)derivedField.getExpression();
+
+			for(Expression expression : apply.getExpressions()){
+
+				if(expression instanceof FieldRef){
+					assertEquals(x, expression);
+				}
+			}
+		}
+	}
+
+	@Test
+	public void eliminateNested(){
+		FieldRef x = new FieldRef(FieldName.create("x"));
+
+		DerivedField first = createDerivedField("first", OpType.CONTINUOUS, createApply("+", createApply("sqrt", createApply("ln", x)), createConstant("1")));
+		DerivedField second = createDerivedField("second", OpType.CONTINUOUS, createApply("+", createApply("sqrt", createApply("ln", x)), createConstant("2")));
+		DerivedField third = createDerivedField("third", OpType.CONTINUOUS, createApply("+", createApply("ln", x), createConstant("3")));
+
+		List<DerivedField> derivedFields = new ArrayList<>(Arrays.asList(first, second, third));
+
+		Set<FieldName> names = new HashSet<>();
+		names.add(FieldName.create("I(ln(x))"));
+
+		SubexpressionEliminator.eliminate(derivedFields, names);
+
+		assertEquals(5, derivedFields.size());
+
+		DerivedField sqrtField = derivedFields.get(0);
+
+		assertSame(first, derivedFields.get(1));
+		assertSame(second, derivedFields.get(2));
+
+		DerivedField logField = derivedFields.get(3);
+
+		assertSame(third, derivedFields.get(4));
+
+		// The name "I(ln(x))" is already taken
+		assertEquals(FieldName.create("I(ln(x))_2"), logField.getName());
+		assertEquals(FieldName.create("I(sqrt(ln(x)))"), sqrtField.getName());
+
+		assertEquals(logField.getName(), getFieldRef(sqrtField, 0).getField());
+		assertEquals(logField.getName(), getFieldRef(third, 0).getField());
+
+		assertEquals(sqrtField.getName(), getFieldRef(first, 0).getField());
+		assertEquals(sqrtField.getName(), getFieldRef(second, 0).getField());
+	}
+
+	@Test
+	public void eliminateConflictingName(){
+		FieldName x = FieldName.create("x");
+		FieldName y = FieldName.create("y");
+
+		// A data field whose name coincides with the name of the shared derived field
+		FieldName z = FieldName.create("I(x * y)");
+
+		DataDictionary dataDictionary = new DataDictionary()
+			.addDataFields(new DataField(x, OpType.CONTINUOUS, DataType.DOUBLE), new DataField(y, OpType.CONTINUOUS, DataType.DOUBLE), new DataField(z, OpType.CONTINUOUS, DataType.DOUBLE));
+
+		DerivedField first = createDerivedField("first", OpType.CONTINUOUS, createApply("+", createApply("*", new FieldRef(x), new FieldRef(y)), new FieldRef(z)));
+		DerivedField second = createDerivedField("second", OpType.CONTINUOUS, createApply("-", createApply("*", new FieldRef(x), new FieldRef(y)), new FieldRef(z)));
+
+		TransformationDictionary transformationDictionary = new TransformationDictionary()
+			.addDerivedFields(first, second);
+
+		PMML pmml = new PMML("4.3", new Header(), dataDictionary)
+			.setTransformationDictionary(transformationDictionary);
+
+		SubexpressionEliminator eliminator = new SubexpressionEliminator();
+		eliminator.applyTo(pmml);
+
+		List<DerivedField> derivedFields = transformationDictionary.getDerivedFields();
+
+		assertEquals(3, derivedFields.size());
+
+		DerivedField productField = derivedFields.get(0);
+
+		assertEquals(FieldName.create("I(x * y)_2"), productField.getName());
+
+		assertEquals(productField.getName(), getFieldRef(first, 0).getField());
+		assertEquals(productField.getName(), getFieldRef(second, 0).getField());
+
+		assertEquals(z, getFieldRef(first, 1).getField());
+		assertEquals(z, getFieldRef(second, 1).getField());
+	}
+
+	static
+	private FieldRef getFieldRef(DerivedField derivedField, int index){
+		Apply apply = (Apply)derivedField.getExpression();
+
+		return (FieldRef)(apply.getExpressions()).get(index);
+	}
+
+	static
+	private DerivedField createDerivedField(String name, OpType opType, Expression expression){
+		DerivedField derivedField = new DerivedField(opType, DataType.DOUBLE)
+			.setName(FieldName.create(name))
+			.setExpression(expression);
+
+		return derivedField;
+	}
+
+	static
+	private Apply createApply(String function, Expression... expressions){
+		Apply apply = new Apply(function);
+
+		for(Expression expression : expressions){
+			apply.addExpressions(expression);
+		}
+
+		return apply;
+	}
+
+	static
+	private Constant createConstant(String value){
+		Constant constant = new Constant(value);
+
+		return constant;
+	}
+}
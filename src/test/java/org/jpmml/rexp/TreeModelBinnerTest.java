@@ -0,0 +1,147 @@
+/*
+ * Copyright (c) 2017 Villu Ruusmann
+ *
+ * This file is part of JPMML-R
+ *
+ * JPMML-R is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JPMML-R is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with JPMML-R.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.jpmml.rexp;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import com.google.common.collect.ImmutableSet;
+import org.dmg.pmml.DataType;
+import org.dmg.pmml.DerivedField;
+import org.dmg.pmml.Discretize;
+import org.dmg.pmml.FieldName;
+import org.dmg.pmml.PMML;
+import org.dmg.pmml.SimplePredicate;
+import org.dmg.pmml.TransformationDictionary;
+import org.dmg.pmml.VisitorAction;
+import org.jpmml.evaluator.ArchiveBatch;
+import org.jpmml.evaluator.Batch;
+import org.jpmml.model.visitors.AbstractVisitor;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class TreeModelBinnerTest extends ConverterTest {
+
+	@Test
+	public void bin() throws Exception {
+		PMML pmml;
+
+		try(ArchiveBatch batch = createBatch("RandomForest", "Auto")){
+			pmml = batch.getPMML();
+		}
+
+		TreeModelBinner binner = new TreeModelBinner();
+		binner.applyTo(pmml);
+
+		TransformationDictionary transformationDictionary = pmml.getTransformationDictionary();
+
+		final
+		Set<FieldName> binFields = new HashSet<>();
+
+		for(DerivedField derivedField : transformationDictionary.getDerivedFields()){
+			FieldName name = derivedField.getName();
+
+			if(!(name.getValue()).startsWith("bin(")){
+				continue;
+			}
+
+			assertEquals(DataType.INTEGER, derivedField.getDataType());
+			assertTrue(derivedField.getExpression() instanceof Discretize);
+
+			binFields.add(name);
+		}
+
+		assertTrue(binFields.size() > 0);
+
+		AbstractVisitor predicateChecker = new AbstractVisitor(){
+
+			@Override
+			public VisitorAction visit(SimplePredicate simplePredicate){
+
+				switch(simplePredicate.getOperator()){
+					case LESS_OR_EQUAL:
+					case GREATER_THAN:
+						{
+							assertTrue(binFields.contains(simplePredicate.getField()));
+
+							Integer.parseInt(simplePredicate.getValue());
+						}
+						break;
+					default:
+						break;
+				}
+
+				return super.visit(simplePredicate);
+			}
+		};
+		predicateChecker.applyTo(pmml);
+	}
+
+	@Test
+	public void evaluateRandomForestAuto() throws Exception {
+		evaluateBinned("RandomForest", "Auto");
+	}
+
+	@Test
+	public void evaluateRandomForestAudit() throws Exception {
+		evaluateBinned("RandomForest", "Audit");
+	}
+
+	@Test
+	public void evaluateRangerAutoNA() throws Exception {
+		evaluateBinned("Ranger", "AutoNA");
+	}
+
+	@Test
+	public void evaluateGBMAutoNA() throws Exception {
+		evaluateBinned("GBM", "AutoNA");
+	}
+
+	@Test
+	public void evaluateGBMBernoulliAuditNA() throws Exception {
+		evaluateBinned("GBMBernoulli", "AuditNA");
+	}
+
+	@Test
+	public void evaluateBinaryTreeAudit() throws Exception {
+		evaluateBinned("BinaryTree", "Audit");
+	}
+
+	@Test
+	public void evaluateIForestAuto() throws Exception {
+		Set<FieldName> ignoredFields = ImmutableSet.of(FieldName.create("rawPathLength"), FieldName.create("normalizedPathLength"));
+
+		evaluateBinned("IForest", "Auto", ignoredFields);
+	}
+
+	private void evaluateBinned(String name, String dataset) throws Exception {
+		evaluateBinned(name, dataset, null);
+	}
+
+	private void evaluateBinned(String name, String dataset, Set<FieldName> ignoredFields) throws Exception {
+		ConverterOptions options = new ConverterOptions()
+			.put(ConverterOptions.BIN_FEATURES, true);
+
+		try(Batch batch = createBatch(name, dataset, options)){
+			evaluate(batch, ignoredFields);
+		}
+	}
+}
@@ -0,0 +1,298 @@
+/*
+ * Copyright (c) 2017 Villu Ruusmann
+ *
+ * This file is part of JPMML-R
+ *
+ * JPMML-R is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JPMML-R is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with JPMML-R.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.jpmml.rexp;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import com.google.common.collect.ImmutableSet;
+import org.dmg.pmml.Array;
+import org.dmg.pmml.DataDictionary;
+import org.dmg.pmml.DataField;
+import org.dmg.pmml.DataType;
+import org.dmg.pmml.FieldName;
+import org.dmg.pmml.Header;
+import org.dmg.pmml.MiningField;
+import org.dmg.pmml.MiningFunction;
+import org.dmg.pmml.MiningSchema;
+import org.dmg.pmml.OpType;
+import org.dmg.pmml.PMML;
+import org.dmg.pmml.Predicate;
+import org.dmg.pmml.SimplePredicate;
+import org.dmg.pmml.True;
+import org.dmg.pmml.Visitor;
+import org.dmg.pmml.VisitorAction;
+import org.dmg.pmml.tree.Node;
+import org.dmg.pmml.tree.TreeModel;
+import org.jpmml.evaluator.ArchiveBatch;
+import org.jpmml.evaluator.Batch;
+import org.jpmml.evaluator.EvaluatorUtil;
+import org.jpmml.evaluator.FieldValue;
+import org.jpmml.evaluator.InputField;
+import org.jpmml.evaluator.ModelEvaluator;
+import org.jpmml.evaluator.ModelEvaluatorFactory;
+import org.jpmml.model.visitors.AbstractVisitor;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class TreeModelCompactorTest extends ConverterTest {
+
+	@Test
+	public void parseArray(){
+		Array array = new Array(Array.Type.STRING, "1 \"two words\"  3");
+
+		assertEquals(Arrays.asList("1", "two words", "3"), TreeModelCompactor.parseArray(array));
+	}
+
+	@Test
+	public void compact() throws Exception {
+		PMML pmml;
+
+		try(ArchiveBatch batch = createBatch("RandomForest", "Audit")){
+			pmml = batch.getPMML();
+		}
+
+		NodeCounter counter = new NodeCounter();
+		counter.applyTo(pmml);
+
+		int nodes = counter.getNodes();
+
+		TreeModelCompactor compactor = new TreeModelCompactor();
+		compactor.applyTo(pmml);
+
+		counter = new NodeCounter();
+		counter.applyTo(pmml);
+
+		assertTrue(counter.getNodes() < nodes);
+		assertEquals(counter.getTreeModels(), counter.getCompactedTreeModels());
+	}
+
+	@Test
+	public void compactFallThrough() throws Exception {
+		Node root = new Node()
+			.setPredicate(new True())
+			.addNodes(
+				createNode(new SimplePredicate(FieldName.create("x"), SimplePredicate.Operator.LESS_OR_EQUAL).setValue("1"), "1"),
+				createNode(new True(), "2")
+			);
+
+		PMML pmml = createPMML(root);
+
+		assertEquals((Double)2d, evaluate(pmml, null));
+
+		TreeModelCompactor compactor = new TreeModelCompactor();
+		compactor.applyTo(pmml);
+
+		TreeModel treeModel = (TreeModel)(pmml.getModels()).get(0);
+
+		assertEquals(TreeModel.NoTrueChildStrategy.RETURN_LAST_PREDICTION, treeModel.getNoTrueChildStrategy());
+		assertEquals(TreeModel.MissingValueStrategy.NONE, treeModel.getMissingValueStrategy());
+
+		// A missing value falls through to the True child, as before
+		assertEquals((Double)2d, evaluate(pmml, null));
+		assertEquals((Double)1d, evaluate(pmml, 0d));
+		assertEquals((Double)2d, evaluate(pmml, 2d));
+	}
+
+	@Test
+	public void compactMixed() throws Exception {
+		Node root = new Node()
+			.setPredicate(new True())
+			.addNodes(
+				new Node()
+					.setPredicate(new SimplePredicate(FieldName.create("x"), SimplePredicate.Operator.LESS_OR_EQUAL).setValue("1"))
+					.addNodes(
+						createNode(new SimplePredicate(FieldName.create("x"), SimplePredicate.Operator.LESS_OR_EQUAL).setValue("0"), "0"),
+						createNode(new True(), "1")
+					),
+				createNode(new SimplePredicate(FieldName.create("x"), SimplePredicate.Operator.GREATER_THAN).setValue("1"), "2")
+			);
+
+		PMML pmml = createPMML(root);
+
+		TreeModelCompactor compactor = new TreeModelCompactor();
+		compactor.applyTo(pmml);
+
+		TreeModel treeModel = (TreeModel)(pmml.getModels()).get(0);
+
+		assertEquals(TreeModel.NoTrueChildStrategy.RETURN_NULL_PREDICTION, treeModel.getNoTrueChildStrategy());
+		assertNull(evaluate(pmml, null));
+	}
+
+	@Test
+	public void evaluateRandomForestAudit() throws Exception {
+		evaluateCompacted("RandomForest", "Audit");
+	}
+
+	@Test
+	public void evaluateRandomForestFormulaAuto() throws Exception {
+		evaluateCompacted("RandomForestFormula", "Auto");
+	}
+
+	@Test
+	public void evaluateRandomForestIris() throws Exception {
+		evaluateCompacted("RandomForest", "Iris");
+	}
+
+	@Test
+	public void evaluateGBMBernoulliAuditNA() throws Exception {
+		evaluateCompacted("GBMBernoulli", "AuditNA");
+	}
+
+	@Test
+	public void evaluateGBMAutoNA() throws Exception {
+		evaluateCompacted("GBM", "AutoNA");
+	}
+
+	@Test
+	public void evaluateRangerAudit() throws Exception {
+		evaluateCompacted("Ranger", "Audit");
+	}
+
+	@Test
+	public void evaluateRangerAutoNA() throws Exception {
+		evaluateCompacted("Ranger", "AutoNA");
+	}
+
+	@Test
+	public void evaluateRangerProbIris() throws Exception {
+		evaluateCompacted("RangerProb", "Iris");
+	}
+
+	@Test
+	public void evaluateIForestAuto() throws Exception {
+		Set<FieldName> ignoredFields = ImmutableSet.of(FieldName.create("rawPathLength"), FieldName.create("normalizedPathLength"));
+
+		try(Batch batch = createCompactedBatch("IForest", "Auto")){
+			evaluate(batch, ignoredFields);
+		}
+	}
+
+	private void evaluateCompacted(String name, String dataset) throws Exception {
+
+		try(Batch batch = createCompactedBatch(name, dataset)){
+			evaluate(batch, null);
+		}
+	}
+
+	private Batch createCompactedBatch(String name, String dataset){
+		List<? extends Visitor> visitors = Collections.singletonList(new TreeModelCompactor());
+
+		return createBatch(name, dataset, null, visitors);
+	}
+
+	static
+	private class NodeCounter extends AbstractVisitor {
+
+		private int treeModels = 0;
+
+		private int compactedTreeModels = 0;
+
+		private int nodes = 0;
+
+
+		@Override
+		public VisitorAction visit(TreeModel treeModel){
+			this.treeModels++;
+
+			if((TreeModel.NoTrueChildStrategy.RETURN_LAST_PREDICTION).equals(treeModel.getNoTrueChildStrategy())){
+				this.compactedTreeModels++;
+			}
+
+			return super.visit(treeModel);
+		}
+
+		@Override
+		public VisitorAction visit(Node node){
+			this.nodes++;
+
+			return super.visit(node);
+		}
+
+		public int getTreeModels(){
+			return this.treeModels;
+		}
+
+		public int getCompactedTreeModels(){
+			return this.compactedTreeModels;
+		}
+
+		public int getNodes(){
+			return this.nodes;
+		}
+	}
+
+	static
+	private Node createNode(Predicate predicate, String score){
+		Node node = new Node()
+			.setPredicate(predicate)
+			.setScore(score);
+
+		return node;
+	}
+
+	static
+	private PMML createPMML(Node root){
+		FieldName x = FieldName.create("x");
+		FieldName y = FieldName.create("y");
+
+		DataDictionary dataDictionary = new DataDictionary()
+			.addDataFields(
+				new DataField(x, OpType.CONTINUOUS, DataType.DOUBLE),
+				new DataField(y, OpType.CONTINUOUS, DataType.DOUBLE)
+			);
+
+		MiningSchema miningSchema = new MiningSchema()
+			.addMiningFields(
+				new MiningField(y).setUsageType(MiningField.UsageType.TARGET),
+				new MiningField(x)
+			);
+
+		TreeModel treeModel = new TreeModel(MiningFunction.REGRESSION, miningSchema, root);
+
+		PMML pmml = new PMML("4.3", new Header(), dataDictionary)
+			.addModels(treeModel);
+
+		return pmml;
+	}
+
+	static
+	private Double evaluate(PMML pmml, Double x){
+		ModelEvaluatorFactory modelEvaluatorFactory = ModelEvaluatorFactory.newInstance();
+
+		ModelEvaluator<?> modelEvaluator = modelEvaluatorFactory.newModelEvaluator(pmml);
+
+		Map<FieldName, FieldValue> arguments = new LinkedHashMap<>();
+
+		for(InputField inputField : modelEvaluator.getInputFields()){
+			arguments.put(inputField.getName(), inputField.prepare(x));
+		}
+
+		Map<FieldName, ?> results = modelEvaluator.evaluate(arguments);
+
+		return (Double)EvaluatorUtil.decode(results.get(FieldName.create("y")));
+	}
+}
@@ -0,0 +1,228 @@
+/*
+ * Copyright (c) 2017 Villu Ruusmann
+ *
+ * This file is part of JPMML-R
+ *
+ * JPMML-R is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JPMML-R is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with JPMML-R.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.jpmml.rexp;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+import com.google.common.collect.ImmutableSet;
+import org.dmg.pmml.Array;
+import org.dmg.pmml.DataType;
+import org.dmg.pmml.FieldName;
+import org.dmg.pmml.MiningFunction;
+import org.dmg.pmml.MiningSchema;
+import org.dmg.pmml.Predicate;
+import org.dmg.pmml.SimplePredicate;
+import org.dmg.pmml.SimpleSetPredicate;
+import org.dmg.pmml.True;
+import org.dmg.pmml.tree.Node;
+import org.dmg.pmml.tree.TreeModel;
+import org.jpmml.evaluator.Batch;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class TreeModelPrunerTest extends ConverterTest {
+
+	@Test
+	public void evaluate(){
+		TreeModelPruner pruner = new TreeModelPruner();
+
+		Map<FieldName, TreeModelPruner.Constraint> constraints = new HashMap<>();
+
+		assertNull(pruner.evaluate(createSimplePredicate("x", SimplePredicate.Operator.LESS_OR_EQUAL, "7"), constraints));
+
+		constraints = pruner.apply(createSimplePredicate("x", SimplePredicate.Operator.LESS_OR_EQUAL, "5"), constraints);
+
+		assertEquals(Boolean.TRUE, pruner.evaluate(createSimplePredicate("x", SimplePredicate.Operator.LESS_OR_EQUAL, "7"), constraints));
+		assertEquals(Boolean.TRUE, pruner.evaluate(createSimplePredicate("x", SimplePredicate.Operator.LESS_OR_EQUAL, "5"), constraints));
+		assertEquals(Boolean.FALSE, pruner.evaluate(createSimplePredicate("x", SimplePredicate.Operator.GREATER_THAN, "5"), constraints));
+		assertEquals(Boolean.FALSE, pruner.evaluate(createSimplePredicate("x", SimplePredicate.Operator.IS_MISSING, null), constraints));
+		assertNull(pruner.evaluate(createSimplePredicate("x", SimplePredicate.Operator.LESS_THAN, "5"), constraints));
+		assertNull(pruner.evaluate(createSimplePredicate("y", SimplePredicate.Operator.LESS_THAN, "5"), constraints));
+
+		constraints = pruner.apply(createSimplePredicate("x", SimplePredicate.Operator.GREATER_OR_EQUAL, "5"), constraints);
+
+		assertEquals(Boolean.TRUE, pruner.evaluate(createSimplePredicate("x", SimplePredicate.Operator.GREATER_OR_EQUAL, "5"), constraints));
+		assertEquals(Boolean.FALSE, pruner.evaluate(createSimplePredicate("x", SimplePredicate.Operator.LESS_THAN, "5"), constraints));
+
+		constraints = pruner.apply(createSimplePredicate("y", SimplePredicate.Operator.IS_MISSING, null), constraints);
+
+		assertEquals(Boolean.TRUE, pruner.evaluate(createSimplePredicate("y", SimplePredicate.Operator.IS_MISSING, null), constraints));
+		assertEquals(Boolean.FALSE, pruner.evaluate(createSimplePredicate("y", SimplePredicate.Operator.LESS_THAN, "5"), constraints));
+
+		constraints = pruner.apply(createSimpleSetPredicate("z", SimpleSetPredicate.BooleanOperator.IS_IN, "a b c"), constraints);
+
+		assertEquals(Boolean.TRUE, pruner.evaluate(createSimpleSetPredicate("z", SimpleSetPredicate.BooleanOperator.IS_IN, "a b c d"), constraints));
+		assertEquals(Boolean.FALSE, pruner.evaluate(createSimpleSetPredicate("z", SimpleSetPredicate.BooleanOperator.IS_IN, "d e"), constraints));
+		assertEquals(Boolean.TRUE, pruner.evaluate(createSimpleSetPredicate("z", SimpleSetPredicate.BooleanOperator.IS_NOT_IN, "d e"), constraints));
+		assertEquals(Boolean.FALSE, pruner.evaluate(createSimplePredicate("z", SimplePredicate.Operator.EQUAL, "d"), constraints));
+		assertNull(pruner.evaluate(createSimplePredicate("z", SimplePredicate.Operator.EQUAL, "a"), constraints));
+	}
+
+	@Test
+	public void evaluateByDataType(){
+		Map<FieldName, DataType> dataTypes = new HashMap<>();
+		dataTypes.put(FieldName.create("x"), DataType.DOUBLE);
+		dataTypes.put(FieldName.create("z"), DataType.STRING);
+
+		TreeModelPruner pruner = new TreeModelPruner(dataTypes);
+
+		Map<FieldName, TreeModelPruner.Constraint> constraints = new HashMap<>();
+
+		constraints = pruner.apply(createSimpleSetPredicate("x", SimpleSetPredicate.BooleanOperator.IS_IN, "1 2"), constraints);
+
+		assertEquals(Boolean.TRUE, pruner.evaluate(createSimpleSetPredicate("x", SimpleSetPredicate.BooleanOperator.IS_IN, "1.0 2.0 3.0"), constraints));
+		assertEquals(Boolean.FALSE, pruner.evaluate(createSimplePredicate("x", SimplePredicate.Operator.EQUAL, "3.0"), constraints));
+		assertNull(pruner.evaluate(createSimplePredicate("x", SimplePredicate.Operator.EQUAL, "1.0"), constraints));
+
+		constraints = pruner.apply(createSimplePredicate("x", SimplePredicate.Operator.NOT_EQUAL, "1.0"), constraints);
+
+		assertEquals(Boolean.TRUE, pruner.evaluate(createSimplePredicate("x", SimplePredicate.Operator.EQUAL, "2"), constraints));
+
+		constraints = pruner.apply(createSimpleSetPredicate("z", SimpleSetPredicate.BooleanOperator.IS_IN, "1 2"), constraints);
+
+		// String values are compared as-is
+		assertEquals(Boolean.FALSE, pruner.evaluate(createSimplePredicate("z", SimplePredicate.Operator.EQUAL, "1.0"), constraints));
+	}
+
+	@Test
+	public void prune(){
+		Node left = new Node()
+			.setId("2")
+			.setPredicate(createSimplePredicate("x", SimplePredicate.Operator.LESS_OR_EQUAL, "5"))
+			.addNodes(
+				new Node()
+					.setId("4")
+					.setPredicate(createSimplePredicate("x", SimplePredicate.Operator.LESS_OR_EQUAL, "7"))
+					.setScore("1"),
+				new Node()
+					.setId("5")
+					.setPredicate(createSimplePredicate("x", SimplePredicate.Operator.GREATER_THAN, "7"))
+					.setScore("2")
+			);
+
+		Node right = new Node()
+			.setId("3")
+			.setPredicate(createSimplePredicate("x", SimplePredicate.Operator.GREATER_THAN, "5"))
+			.setScore("3");
+
+		Node root = new Node()
+			.setId("1")
+			.setPredicate(new True())
+			.addNodes(left, right);
+
+		TreeModel treeModel = new TreeModel(MiningFunction.REGRESSION, new MiningSchema(), root)
+			.setSplitCharacteristic(TreeModel.SplitCharacteristic.BINARY_SPLIT);
+
+		TreeModelPruner pruner = new TreeModelPruner();
+		pruner.applyTo(treeModel);
+
+		assertEquals(2, root.getNodes().size());
+		assertEquals(TreeModel.SplitCharacteristic.BINARY_SPLIT, treeModel.getSplitCharacteristic());
+
+		assertEquals("4", left.getId());
+		assertEquals("1", left.getScore());
+		assertTrue(!left.hasNodes());
+	}
+
+	@Test
+	public void pruneTreeModels() throws Exception {
+		String[] names = {"RandomForestAudit", "RangerAudit", "GBMAutoNA", "IForestAuto", "BinaryTreeAudit"};
+
+		boolean pruned = false;
+
+		for(String name : names){
+			ConversionMetrics metrics = new ConversionMetrics();
+
+			TreeModelConverter<RExp> converter = (TreeModelConverter<RExp>)createConverter(name);
+			converter.setListener(metrics);
+			converter.encodePMML();
+
+			long nodes = metrics.getNodes();
+
+			metrics = new ConversionMetrics();
+
+			converter = (TreeModelConverter<RExp>)createConverter(name);
+			converter.setPruneTrees(true);
+			converter.setListener(metrics);
+			converter.encodePMML();
+
+			assertTrue(name, metrics.getNodes() <= nodes);
+
+			pruned |= (metrics.getNodes() < nodes);
+		}
+
+		assertTrue(pruned);
+	}
+
+	@Test
+	public void evaluateRandomForestAudit() throws Exception {
+		evaluatePruned("RandomForest", "Audit");
+	}
+
+	@Test
+	public void evaluateRangerAudit() throws Exception {
+		evaluatePruned("Ranger", "Audit");
+	}
+
+	@Test
+	public void evaluateGBMAutoNA() throws Exception {
+		evaluatePruned("GBM", "AutoNA");
+	}
+
+	@Test
+	public void evaluateBinaryTreeAudit() throws Exception {
+		evaluatePruned("BinaryTree", "Audit");
+	}
+
+	@Test
+	public void evaluateIForestAuto() throws Exception {
+		Set<FieldName> ignoredFields = ImmutableSet.of(FieldName.create("rawPathLength"), FieldName.create("normalizedPathLength"));
+
+		evaluatePruned("IForest", "Auto", ignoredFields);
+	}
+
+	private void evaluatePruned(String name, String dataset) throws Exception {
+		evaluatePruned(name, dataset, null);
+	}
+
+	private void evaluatePruned(String name, String dataset, Set<FieldName> ignoredFields) throws Exception {
+		ConverterOptions options = new ConverterOptions()
+			.put(ConverterOptions.PRUNE, true);
+
+		try(Batch batch = createBatch(name, dataset, options)){
+			evaluate(batch, ignoredFields);
+		}
+	}
+
+	static
+	private Predicate createSimplePredicate(String name, SimplePredicate.Operator operator, String value){
+		return new SimplePredicate(FieldName.create(name), operator)
+			.setValue(value);
+	}
+
+	static
+	private Predicate createSimpleSetPredicate(String name, SimpleSetPredicate.BooleanOperator booleanOperator, String value){
+		return new SimpleSetPredicate(FieldName.create(name), booleanOperator, new Array(Array.Type.STRING, value));
+	}
+}
@@ -0,0 +1,175 @@
+/*
+ * Copyright (c) 2017 Villu Ruusmann
+ *
+ * This file is part of JPMML-R
+ *
+ * JPMML-R is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JPMML-R is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with JPMML-R.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.jpmml.rexp;
+
+import java.math.RoundingMode;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+import com.google.common.collect.ImmutableSet;
+import org.dmg.pmml.FieldName;
+import org.jpmml.evaluator.Batch;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+
+public class TreeModelRounderTest extends ConverterTest {
+
+	@Test
+	public void formatValue(){
+		TreeModelRounder rounder = new TreeModelRounder();
+
+		assertEquals("0.996395", rounder.formatValue("0.9963949999999999", RoundingMode.HALF_EVEN));
+		assertEquals("0.1", rounder.formatValue("0.1000000000000001", RoundingMode.HALF_EVEN));
+		assertEquals("8.5", rounder.formatValue("8.5", RoundingMode.HALF_EVEN));
+		assertEquals("1E300", rounder.formatValue("1E300", RoundingMode.HALF_EVEN));
+		assertEquals("NA", rounder.formatValue("NA", RoundingMode.HALF_EVEN));
+
+		assertEquals("0.34", rounder.formatValue("0.33999999999999997", RoundingMode.HALF_EVEN));
+		assertEquals("0.33999997", rounder.formatValue("0.33999999999999997", RoundingMode.FLOOR));
+		assertEquals("0.34", rounder.formatValue("0.33999999999999997", RoundingMode.CEILING));
+		assertEquals("0.33999999999999997", rounder.formatValue("0.33999999999999997", RoundingMode.UNNECESSARY));
+
+		rounder = new TreeModelRounder(3);
+
+		assertEquals("11.1", rounder.formatValue("11.075", RoundingMode.HALF_EVEN));
+		assertEquals("1.23E-5", rounder.formatValue("0.0000123456", RoundingMode.HALF_EVEN));
+		assertEquals("12300", rounder.formatValue("12345.678", RoundingMode.HALF_EVEN));
+
+		assertEquals("0.339", rounder.formatValue("0.33999999999999997", RoundingMode.FLOOR));
+		assertEquals("0.34", rounder.formatValue("0.33999999999999997", RoundingMode.CEILING));
+	}
+
+	@Test
+	public void roundThresholds(){
+		Map<Double, TreeModelRounder.Threshold> thresholds = new TreeMap<>();
+		thresholds.put(0.12341d, new TreeModelRounder.Threshold("0.12341", RoundingMode.FLOOR));
+		thresholds.put(0.12361d, new TreeModelRounder.Threshold("0.12361", RoundingMode.FLOOR));
+		thresholds.put(0.5d, new TreeModelRounder.Threshold("0.5", RoundingMode.FLOOR));
+
+		TreeModelRounder rounder = new TreeModelRounder(3);
+		rounder.roundThresholds(thresholds);
+
+		// Both thresholds round down to 0.123
+		assertNull((thresholds.get(0.12341d)).getRoundedValue());
+		assertNull((thresholds.get(0.12361d)).getRoundedValue());
+		assertNull((thresholds.get(0.5d)).getRoundedValue());
+
+		rounder = new TreeModelRounder(4);
+		rounder.roundThresholds(thresholds);
+
+		assertEquals("0.1234", (thresholds.get(0.12341d)).getRoundedValue());
+		assertEquals("0.1236", (thresholds.get(0.12361d)).getRoundedValue());
+		assertNull((thresholds.get(0.5d)).getRoundedValue());
+	}
+
+	@Test
+	public void parsePrecision(){
+		assertNull(TreeModelRounder.parsePrecision("double"));
+		assertEquals((Integer)TreeModelRounder.FLOAT, TreeModelRounder.parsePrecision("float"));
+		assertEquals((Integer)6, TreeModelRounder.parsePrecision("6"));
+
+		try {
+			TreeModelRounder.parsePrecision("0");
+
+			fail();
+		} catch(IllegalArgumentException iae){
+			// Ignored
+		}
+	}
+
+	@Test
+	public void setPrecision(){
+		TreeModelPostProcessor postProcessor = new TreeModelPostProcessor();
+
+		postProcessor.setPrecision(TreeModelRounder.FLOAT);
+		postProcessor.setPrecision(17);
+		postProcessor.setPrecision(null);
+
+		Integer[] invalidPrecisions = {-1, 18};
+
+		for(Integer invalidPrecision : invalidPrecisions){
+
+			try {
+				postProcessor.setPrecision(invalidPrecision);
+
+				fail();
+			} catch(IllegalArgumentException iae){
+				// Ignored
+			}
+		}
+
+		assertNull(postProcessor.getPrecision());
+	}
+
+	@Test
+	public void evaluateRandomForestAuto() throws Exception {
+		evaluate("RandomForest", "Auto", "float");
+		evaluate("RandomForest", "Auto", "7");
+	}
+
+	@Test
+	public void evaluateRandomForestWineQuality() throws Exception {
+		evaluate("RandomForest", "WineQuality", "float");
+		evaluate("RandomForest", "WineQuality", "7");
+	}
+
+	@Test
+	public void evaluateRangerAutoNA() throws Exception {
+		evaluate("Ranger", "AutoNA", "float");
+	}
+
+	@Test
+	public void evaluateGBMAutoNA() throws Exception {
+		evaluate("GBM", "AutoNA", "float");
+		evaluate("GBM", "AutoNA", "7");
+	}
+
+	@Test
+	public void evaluateGBMBernoulliAuditNA() throws Exception {
+		evaluate("GBMBernoulli", "AuditNA", "float");
+	}
+
+	@Test
+	public void evaluateXGBoostAutoNA() throws Exception {
+		evaluate("XGBoost", "AutoNA", "float");
+		evaluate("XGBoost", "AutoNA", "7");
+	}
+
+	@Test
+	public void evaluateIForestAuto() throws Exception {
+		Set<FieldName> ignoredFields = ImmutableSet.of(FieldName.create("rawPathLength"), FieldName.create("normalizedPathLength"));
+
+		evaluate("IForest", "Auto", "float", ignoredFields);
+	}
+
+	private void evaluate(String name, String dataset, String precision) throws Exception {
+		evaluate(name, dataset, precision, null);
+	}
+
+	private void evaluate(String name, String dataset, String precision, Set<FieldName> ignoredFields) throws Exception {
+
+		try(Batch batch = createBatch(name, dataset, new ConverterOptions().put(ConverterOptions.PRECISION, precision))){
+			evaluate(batch, ignoredFields, 1e-6, 1e-6);
+		}
+	}
+}
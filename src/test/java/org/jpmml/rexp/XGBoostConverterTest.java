@@ -36,6 +36,25 @@ public class XGBoostConverterTest extends ConverterTest {
 		evaluate("XGBoost", "Iris");
 	}
 
+	@Test
+	public void evaluateCompactXGBoostAutoNA() throws Exception {
+		evaluateCompact("XGBoost", "AutoNA");
+	}
+
+	@Test
+	public void evaluateCompactXGBoostIris() throws Exception {
+		evaluateCompact("XGBoost", "Iris");
+	}
+
+	private void evaluateCompact(String name, String dataset) throws Exception {
+		ConverterOptions options = new ConverterOptions()
+			.put(ConverterOptions.COMPACT, true);
+
+		try(Batch batch = createBatch(name, dataset, options)){
+			evaluate(batch, null);
+		}
+	}
+
 	@Override
 	public void evaluate(Batch batch, Set<FieldName> ignoredFields) throws Exception {
 		evaluate(batch, ignoredFields, 1e-6, 1e-6);
@@ -0,0 +1,121 @@
+/*
+ * Copyright (c) 2017 Villu Ruusmann
+ *
+ * This file is part of JPMML-R
+ *
+ * JPMML-R is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JPMML-R is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with JPMML-R.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.jpmml.rexp;
+
+import java.io.File;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import jdk.jfr.FlightRecorder;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+public class FlightRecorderListenerTest {
+
+	@Test
+	public void record() throws Exception {
+		assumeTrue(FlightRecorder.isAvailable());
+
+		List<RecordedEvent> events = new ArrayList<>();
+
+		File file = File.createTempFile("conversion", ".jfr");
+
+		try(Recording recording = new Recording()){
+			recording.enable(FlightRecorderListener.ParseEvent.class);
+			recording.enable(FlightRecorderListener.EncodeModelEvent.class);
+			recording.enable(FlightRecorderListener.EncodeTreeBatchEvent.class);
+			recording.start();
+
+			FlightRecorderListener listener = new FlightRecorderListener(3);
+			listener.setConverter(RandomForestConverter.class.getName());
+
+			RExp rexp;
+
+			try(InputStream is = FlightRecorderListenerTest.class.getResourceAsStream("/rds/RandomForestAudit.rds")){
+				RExpParser parser = new RExpParser(is);
+				parser.setListener(listener);
+
+				rexp = parser.parse();
+			}
+
+			ConverterFactory converterFactory = ConverterFactory.newInstance();
+
+			Converter<RExp> converter = converterFactory.newConverter(rexp);
+			converter.setListener(listener);
+
+			converter.encodePMML();
+
+			recording.stop();
+			recording.dump(file.toPath());
+
+			events.addAll(RecordingFile.readAllEvents(file.toPath()));
+		} finally {
+			file.delete();
+		}
+
+		int parseEvents = 0;
+		int modelEvents = 0;
+		int batchEvents = 0;
+
+		long modelTrees = 0;
+		long batchTrees = 0;
+
+		for(RecordedEvent event : events){
+			String name = (event.getEventType()).getName();
+
+			if(("org.jpmml.rexp.Parse").equals(name)){
+				assertTrue(event.getLong("inputSize") > 0L);
+				assertTrue(event.getLong("rexps") > 0L);
+
+				parseEvents++;
+			} else
+
+			if(("org.jpmml.rexp.EncodeModel").equals(name)){
+				assertEquals(RandomForestConverter.class.getName(), event.getString("converter"));
+
+				modelTrees += event.getLong("trees");
+
+				modelEvents++;
+			} else
+
+			if(("org.jpmml.rexp.EncodeTreeBatch").equals(name)){
+				assertTrue(event.getLong("trees") <= 3L);
+
+				batchTrees += event.getLong("trees");
+
+				batchEvents++;
+			}
+		}
+
+		assertEquals(1, parseEvents);
+		assertEquals(1, modelEvents);
+
+		assertTrue(batchEvents > 1);
+
+		assertTrue(modelTrees > 0L);
+		assertEquals(modelTrees, batchTrees);
+	}
+}